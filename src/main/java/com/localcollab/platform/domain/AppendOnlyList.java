@@ -0,0 +1,31 @@
+package com.localcollab.platform.domain;
+
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+/**
+ * Backing store for the room collections that only ever grow (artifacts, messages, events). Storage engines supply
+ * their own implementation, so large rooms do not have to keep every entry on the heap.
+ * <p>
+ * Writers call {@link #add(Object)} while holding the room lock; {@link #snapshot()} may be read from any thread.
+ */
+public abstract class AppendOnlyList<T> extends AbstractList<T> implements RandomAccess {
+
+    @Override
+    public abstract boolean add(T element);
+
+    /**
+     * Returns an immutable view of the entries appended so far. It must be cheap to take (it is taken on every room
+     * update) and stay valid while later entries are appended. Calling {@code add} on the view throws
+     * {@link UnsupportedOperationException}.
+     */
+    public abstract AppendOnlyList<T> snapshot();
+
+    /**
+     * Drops the entries appended after {@code snapshot} was taken from this list, so a change that fails part-way can
+     * be undone. Writer-only; snapshots of the discarded entries must not have been handed out. Abstract because
+     * all-or-nothing batches depend on it; views returned by {@link #snapshot()} throw
+     * {@link UnsupportedOperationException}, as they do for {@code add}.
+     */
+    public abstract void rollback(AppendOnlyList<T> snapshot);
+}
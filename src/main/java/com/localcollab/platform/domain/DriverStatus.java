@@ -61,6 +61,10 @@ public class DriverStatus {
         return recordRecovery();
     }
 
+    public DriverStatus copy() {
+        return new DriverStatus(maxRetries, consecutiveFailures, lastFailureAt, lastFailureReason, state);
+    }
+
     public int getMaxRetries() {
         return maxRetries;
     }
@@ -0,0 +1,39 @@
+package com.localcollab.platform.domain;
+
+/**
+ * Heap-resident {@link AppendOnlyList}. Entries are held in a {@link PersistentVector}, so {@link #snapshot()} is
+ * constant-time and shares storage with later appends.
+ */
+public class HeapAppendOnlyList<T> extends AppendOnlyList<T> {
+
+    private volatile PersistentVector<T> entries = PersistentVector.empty();
+
+    @Override
+    public boolean add(T element) {
+        entries = entries.append(element);
+        return true;
+    }
+
+    @Override
+    public T get(int index) {
+        return entries.get(index);
+    }
+
+    @Override
+    public int size() {
+        return entries.size();
+    }
+
+    @Override
+    public PersistentVector<T> snapshot() {
+        return entries;
+    }
+
+    @Override
+    public void rollback(AppendOnlyList<T> snapshot) {
+        if (!(snapshot instanceof PersistentVector<T> previous) || previous.size() > entries.size()) {
+            throw new IllegalArgumentException("Not a snapshot of this list");
+        }
+        entries = previous;
+    }
+}
@@ -1,23 +1,54 @@
 package com.localcollab.platform.domain;
 
 import java.time.Instant;
-import java.util.ArrayList;
 import java.util.Collections;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * A collaboration room.
+ * <p>
+ * The live instance held by the room service is only mutated under the room lock. {@link #publish()} freezes its
+ * current state into a read-only view with a new {@linkplain #getVersion() version}; views share storage with the live
+ * room (persistent vectors, append-only snapshots), so publishing is cheap and readers can hold a view without locking
+ * while writers carry on.
+ */
 public class Room {
     private UUID id;
     private String name;
     private Instant createdAt;
-    private List<Participant> participants = new ArrayList<>();
-    private List<Artifact> artifacts = new ArrayList<>();
-    private List<ChatMessage> messages = new ArrayList<>();
-    private List<ProviderAdapter> providerAdapters = new ArrayList<>();
-    private List<TaskLane> taskLanes = new ArrayList<>();
-    private List<RoomEvent> events = new ArrayList<>();
+    private PersistentVector<Participant> participants = PersistentVector.empty();
+    private AppendOnlyList<Artifact> artifacts = new HeapAppendOnlyList<>();
+    private AppendOnlyList<ChatMessage> messages = new HeapAppendOnlyList<>();
+    private PersistentVector<ProviderAdapter> providerAdapters = PersistentVector.empty();
+    private PersistentVector<TaskLane> taskLanes = PersistentVector.empty();
+    private AppendOnlyList<RoomEvent> events = new HeapAppendOnlyList<>();
     private boolean paused;
     private DriverStatus driverStatus = DriverStatus.healthy();
+    private long version;
+
+    // Lookup indexes map ids to positions so write paths never scan. Entities are never removed, so views share the
+    // live room's indexes and ignore positions at or beyond their own size.
+    private Map<UUID, Integer> participantPositions = new ConcurrentHashMap<>();
+    private Map<UUID, Integer> artifactPositions = new ConcurrentHashMap<>();
+    private Map<UUID, Integer> taskLanePositions = new ConcurrentHashMap<>();
+    private Map<UUID, Integer> providerAdapterPositions = new ConcurrentHashMap<>();
+    private Map<ProviderKey, Integer> providerAdapterKeys = new ConcurrentHashMap<>();
+    private int[] latestArtifactVersions = new int[ArtifactType.values().length];
+
+    // Summary counters, updated by the same mutations as the lists so summaries never scan them.
+    private long[] participantsByRole = new long[ParticipantRole.values().length];
+    private long[] participantsByType = new long[ParticipantType.values().length];
+    private long[] artifactsByType = new long[ArtifactType.values().length];
+    private long[] taskLanesByState = new long[TaskLaneState.values().length];
+
+    private boolean view;
+    private volatile Room published;
 
     public Room() {
         // for serialization
@@ -29,6 +60,45 @@ public class Room {
         this.createdAt = createdAt;
     }
 
+    public Room(UUID id,
+                String name,
+                Instant createdAt,
+                AppendOnlyList<Artifact> artifacts,
+                AppendOnlyList<ChatMessage> messages,
+                AppendOnlyList<RoomEvent> events) {
+        this(id, name, createdAt);
+        this.artifacts = artifacts;
+        this.messages = messages;
+        this.events = events;
+    }
+
+    private Room(Room live) {
+        this.id = live.id;
+        this.name = live.name;
+        this.createdAt = live.createdAt;
+        this.participants = live.participants;
+        this.artifacts = live.artifacts.snapshot();
+        this.messages = live.messages.snapshot();
+        this.providerAdapters = live.providerAdapters;
+        this.taskLanes = live.taskLanes;
+        this.events = live.events.snapshot();
+        this.paused = live.paused;
+        this.driverStatus = live.driverStatus;
+        this.version = live.version;
+        this.participantPositions = live.participantPositions;
+        this.artifactPositions = live.artifactPositions;
+        this.taskLanePositions = live.taskLanePositions;
+        this.providerAdapterPositions = live.providerAdapterPositions;
+        this.providerAdapterKeys = live.providerAdapterKeys;
+        this.latestArtifactVersions = live.latestArtifactVersions.clone();
+        this.participantsByRole = live.participantsByRole.clone();
+        this.participantsByType = live.participantsByType.clone();
+        this.artifactsByType = live.artifactsByType.clone();
+        this.taskLanesByState = live.taskLanesByState.clone();
+        this.view = true;
+        this.published = this;
+    }
+
     public UUID getId() {
         return id;
     }
@@ -42,7 +112,7 @@ public class Room {
     }
 
     public List<Participant> getParticipants() {
-        return Collections.unmodifiableList(participants);
+        return participants;
     }
 
     public List<Artifact> getArtifacts() {
@@ -54,11 +124,11 @@ public class Room {
     }
 
     public List<ProviderAdapter> getProviderAdapters() {
-        return Collections.unmodifiableList(providerAdapters);
+        return providerAdapters;
     }
 
     public List<TaskLane> getTaskLanes() {
-        return Collections.unmodifiableList(taskLanes);
+        return taskLanes;
     }
 
     public boolean isPaused() {
@@ -73,37 +143,254 @@ public class Room {
         return Collections.unmodifiableList(events);
     }
 
+    /**
+     * Number of mutations applied to this room; increases with every change and is restored from persistence.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Freezes the current state into a read-only view, unless nothing changed since the last call. Writer-only.
+     */
+    public Room publish() {
+        ensureLive();
+        Room current = published;
+        if (current == null || current.version != version) {
+            current = new Room(this);
+            published = current;
+        }
+        return current;
+    }
+
+    /**
+     * Discards every change made since {@code view} was published, so a multi-step change that fails part-way leaves
+     * no trace. Writer-only; {@code view} must be the latest published view.
+     */
+    public void rollback(Room view) {
+        ensureLive();
+        if (view != published) {
+            throw new IllegalArgumentException("Room " + id + " can only roll back to its latest published view");
+        }
+        for (int i = view.participants.size(); i < participants.size(); i++) {
+            participantPositions.remove(participants.get(i).getId());
+        }
+        for (int i = view.artifacts.size(); i < artifacts.size(); i++) {
+            artifactPositions.remove(artifacts.get(i).getId());
+        }
+        for (int i = view.taskLanes.size(); i < taskLanes.size(); i++) {
+            taskLanePositions.remove(taskLanes.get(i).getId());
+        }
+        for (int i = view.providerAdapters.size(); i < providerAdapters.size(); i++) {
+            ProviderAdapter adapter = providerAdapters.get(i);
+            providerAdapterPositions.remove(adapter.getId());
+            providerAdapterKeys.remove(ProviderKey.of(adapter.getProviderName(), adapter.getAccessMode()), i);
+        }
+        participants = view.participants;
+        artifacts.rollback(view.artifacts);
+        messages.rollback(view.messages);
+        events.rollback(view.events);
+        providerAdapters = view.providerAdapters;
+        taskLanes = view.taskLanes;
+        paused = view.paused;
+        driverStatus = view.driverStatus;
+        version = view.version;
+        latestArtifactVersions = view.latestArtifactVersions.clone();
+        participantsByRole = view.participantsByRole.clone();
+        participantsByType = view.participantsByType.clone();
+        artifactsByType = view.artifactsByType.clone();
+        taskLanesByState = view.taskLanesByState.clone();
+    }
+
+    /**
+     * Returns the most recently published view; safe to call from any thread without the room lock.
+     */
+    public Room snapshot() {
+        Room current = published;
+        if (current == null) {
+            throw new IllegalStateException("Room " + id + " has not been published");
+        }
+        return current;
+    }
+
+    public Optional<Participant> findParticipant(UUID participantId) {
+        return lookup(participantPositions.get(participantId), participants);
+    }
+
+    public Optional<Artifact> findArtifact(UUID artifactId) {
+        return lookup(artifactPositions.get(artifactId), artifacts);
+    }
+
+    public Optional<TaskLane> findTaskLane(UUID laneId) {
+        return lookup(taskLanePositions.get(laneId), taskLanes);
+    }
+
+    public Optional<ProviderAdapter> findProviderAdapter(UUID adapterId) {
+        return lookup(providerAdapterPositions.get(adapterId), providerAdapters);
+    }
+
+    /**
+     * Finds the adapter registered for a provider name (case-insensitive) and access mode.
+     */
+    public Optional<ProviderAdapter> findProviderAdapter(String providerName, ProviderAccessMode accessMode) {
+        return lookup(providerAdapterKeys.get(ProviderKey.of(providerName, accessMode)), providerAdapters);
+    }
+
+    /**
+     * Returns the version the next artifact of the given type should carry, without scanning existing artifacts.
+     */
+    public int nextArtifactVersion(ArtifactType type) {
+        return latestArtifactVersions[type.ordinal()] + 1;
+    }
+
     public void addParticipant(Participant participant) {
-        participants.add(participant);
+        ensureLive();
+        participants = participants.append(participant);
+        participantPositions.put(participant.getId(), participants.size() - 1);
+        participantsByRole[participant.getRole().ordinal()]++;
+        participantsByType[participant.getType().ordinal()]++;
+        version++;
     }
 
     public void addArtifact(Artifact artifact) {
+        ensureLive();
         artifacts.add(artifact);
+        artifactPositions.put(artifact.getId(), artifacts.size() - 1);
+        int typeIndex = artifact.getType().ordinal();
+        latestArtifactVersions[typeIndex] = Math.max(latestArtifactVersions[typeIndex], artifact.getVersion());
+        artifactsByType[typeIndex]++;
+        version++;
     }
 
     public void addMessage(ChatMessage message) {
+        ensureLive();
         messages.add(message);
+        version++;
     }
 
     public void addProviderAdapter(ProviderAdapter adapter) {
-        providerAdapters.add(adapter);
+        ensureLive();
+        providerAdapters = providerAdapters.append(adapter);
+        int position = providerAdapters.size() - 1;
+        providerAdapterPositions.put(adapter.getId(), position);
+        providerAdapterKeys.putIfAbsent(ProviderKey.of(adapter.getProviderName(), adapter.getAccessMode()), position);
+        version++;
     }
 
     public void addTaskLane(TaskLane taskLane) {
-        taskLanes.add(taskLane);
+        ensureLive();
+        taskLanes = taskLanes.append(taskLane);
+        taskLanePositions.put(taskLane.getId(), taskLanes.size() - 1);
+        taskLanesByState[taskLane.getState().ordinal()]++;
+        version++;
+    }
+
+    /**
+     * Schedules a task into a lane. Lanes are copied on write so published views never see the change.
+     */
+    public TaskLane assignTask(UUID laneId, UUID taskArtifactId) {
+        ensureLive();
+        int position = taskLanePosition(laneId);
+        TaskLane lane = taskLanes.get(position).copy();
+        lane.addTask(taskArtifactId);
+        taskLanes = taskLanes.with(position, lane);
+        version++;
+        return lane;
+    }
+
+    /**
+     * Moves a lane to a new state through the room so the per-state counters stay in step.
+     */
+    public TaskLane updateTaskLaneState(UUID laneId, TaskLaneState state) {
+        ensureLive();
+        int position = taskLanePosition(laneId);
+        TaskLane previous = taskLanes.get(position);
+        TaskLane lane = previous.copy();
+        lane.updateState(state);
+        taskLanes = taskLanes.with(position, lane);
+        taskLanesByState[previous.getState().ordinal()]--;
+        taskLanesByState[state.ordinal()]++;
+        version++;
+        return lane;
     }
 
     public void addEvent(RoomEvent event) {
+        ensureLive();
         events.add(event);
+        version++;
+    }
+
+    /**
+     * Builds a summary from the maintained counters; cost does not depend on the size of the room.
+     */
+    public RoomSummary summarize() {
+        return new RoomSummary(
+                id,
+                name,
+                countsOf(ParticipantRole.class, participantsByRole),
+                countsOf(ParticipantType.class, participantsByType),
+                countsOf(ArtifactType.class, artifactsByType),
+                countsOf(TaskLaneState.class, taskLanesByState),
+                messages.size(),
+                driverStatus);
     }
 
     public void pause() {
-        this.paused = true;
-        this.driverStatus = driverStatus.asPaused();
+        restoreState(true, driverStatus.copy().asPaused());
     }
 
     public void resume() {
-        this.paused = false;
-        this.driverStatus = driverStatus.reset();
+        restoreState(false, driverStatus.copy().reset());
+    }
+
+    public void restoreState(boolean paused, DriverStatus driverStatus) {
+        ensureLive();
+        this.paused = paused;
+        this.driverStatus = driverStatus;
+        version++;
+    }
+
+    /**
+     * Sets the version recorded in a persisted snapshot after its contents have been restored.
+     */
+    public void restoreVersion(long version) {
+        ensureLive();
+        this.version = version;
+    }
+
+    private void ensureLive() {
+        if (view) {
+            throw new IllegalStateException("Published room views are read-only");
+        }
+    }
+
+    private int taskLanePosition(UUID laneId) {
+        Integer position = taskLanePositions.get(laneId);
+        if (position == null) {
+            throw new IllegalArgumentException("Task lane not found");
+        }
+        return position;
+    }
+
+    private static <T> Optional<T> lookup(Integer position, List<T> values) {
+        return position == null || position >= values.size() ? Optional.empty() : Optional.of(values.get(position));
+    }
+
+    private static <E extends Enum<E>> Map<E, Long> countsOf(Class<E> type, long[] counts) {
+        Map<E, Long> result = new EnumMap<>(type);
+        E[] constants = type.getEnumConstants();
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] > 0) {
+                result.put(constants[i], counts[i]);
+            }
+        }
+        return result;
+    }
+
+    private record ProviderKey(String providerName, ProviderAccessMode accessMode) {
+
+        static ProviderKey of(String providerName, ProviderAccessMode accessMode) {
+            return new ProviderKey(providerName.toLowerCase(Locale.ROOT), accessMode);
+        }
     }
 }
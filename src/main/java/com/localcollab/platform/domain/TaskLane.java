@@ -46,6 +46,10 @@ public class TaskLane {
         return taskArtifactIds;
     }
 
+    public TaskLane copy() {
+        return new TaskLane(id, name, implementorId, state, taskArtifactIds);
+    }
+
     public void addTask(UUID taskId) {
         taskArtifactIds.add(taskId);
     }
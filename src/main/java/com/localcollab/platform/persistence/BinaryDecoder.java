@@ -0,0 +1,121 @@
+package com.localcollab.platform.persistence;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Reader counterpart of {@link BinaryEncoder}; consumes a buffer from its current position, or a channel through a
+ * small buffer that is refilled as values are read.
+ */
+final class BinaryDecoder {
+
+    private final ReadableByteChannel source;
+    private ByteBuffer buffer;
+
+    BinaryDecoder(ByteBuffer buffer) {
+        this.source = null;
+        this.buffer = buffer;
+    }
+
+    /**
+     * Reads from the channel's current position through a buffer of {@code bufferSize} bytes, which only grows to hold
+     * a single value that is longer.
+     */
+    BinaryDecoder(ReadableByteChannel source, int bufferSize) {
+        this.source = source;
+        this.buffer = ByteBuffer.allocate(bufferSize).limit(0);
+    }
+
+    int readByte() {
+        return require(1).get();
+    }
+
+    boolean readBoolean() {
+        return require(1).get() != 0;
+    }
+
+    int readInt() {
+        return require(Integer.BYTES).getInt();
+    }
+
+    long readLong() {
+        return require(Long.BYTES).getLong();
+    }
+
+    UUID readUuid() {
+        if (!readBoolean()) {
+            return null;
+        }
+        return new UUID(readLong(), readLong());
+    }
+
+    String readString() {
+        int length = readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] encoded = new byte[length];
+        require(length).get(encoded);
+        return new String(encoded, StandardCharsets.UTF_8);
+    }
+
+    Instant readInstant() {
+        if (!readBoolean()) {
+            return null;
+        }
+        long seconds = readLong();
+        int nanos = readInt();
+        return Instant.ofEpochSecond(seconds, nanos);
+    }
+
+    <E extends Enum<E>> E readEnum(Class<E> type) {
+        int ordinal = readByte();
+        return ordinal < 0 ? null : type.getEnumConstants()[ordinal];
+    }
+
+    List<String> readStrings() {
+        int count = readInt();
+        List<String> values = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            values.add(readString());
+        }
+        return values;
+    }
+
+    List<UUID> readUuids() {
+        int count = readInt();
+        List<UUID> values = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            values.add(readUuid());
+        }
+        return values;
+    }
+
+    private ByteBuffer require(int bytes) {
+        if (source == null || buffer.remaining() >= bytes) {
+            return buffer;
+        }
+        ByteBuffer refill = bytes > buffer.capacity()
+                ? ByteBuffer.allocate(Math.max(bytes, buffer.capacity() * 2)).put(buffer)
+                : buffer.compact();
+        try {
+            while (refill.position() < bytes) {
+                if (source.read(refill) < 0) {
+                    throw new EOFException("Input ended " + (bytes - refill.position()) + " bytes before the value");
+                }
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        buffer = refill.flip();
+        return buffer;
+    }
+}
@@ -0,0 +1,114 @@
+package com.localcollab.platform.persistence;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Growable big-endian writer for the compact binary formats used by the room log.
+ */
+final class BinaryEncoder {
+
+    private byte[] bytes;
+    private int size;
+
+    BinaryEncoder(int initialCapacity) {
+        this.bytes = new byte[Math.max(16, initialCapacity)];
+    }
+
+    BinaryEncoder writeByte(int value) {
+        ensureCapacity(1);
+        bytes[size++] = (byte) value;
+        return this;
+    }
+
+    BinaryEncoder writeBoolean(boolean value) {
+        return writeByte(value ? 1 : 0);
+    }
+
+    BinaryEncoder writeInt(int value) {
+        ensureCapacity(Integer.BYTES);
+        bytes[size++] = (byte) (value >>> 24);
+        bytes[size++] = (byte) (value >>> 16);
+        bytes[size++] = (byte) (value >>> 8);
+        bytes[size++] = (byte) value;
+        return this;
+    }
+
+    BinaryEncoder writeLong(long value) {
+        writeInt((int) (value >>> 32));
+        return writeInt((int) value);
+    }
+
+    BinaryEncoder writeUuid(UUID value) {
+        writeBoolean(value != null);
+        if (value != null) {
+            writeLong(value.getMostSignificantBits());
+            writeLong(value.getLeastSignificantBits());
+        }
+        return this;
+    }
+
+    BinaryEncoder writeString(String value) {
+        if (value == null) {
+            return writeInt(-1);
+        }
+        byte[] encoded = value.getBytes(StandardCharsets.UTF_8);
+        writeInt(encoded.length);
+        ensureCapacity(encoded.length);
+        System.arraycopy(encoded, 0, bytes, size, encoded.length);
+        size += encoded.length;
+        return this;
+    }
+
+    BinaryEncoder writeInstant(Instant value) {
+        writeBoolean(value != null);
+        if (value != null) {
+            writeLong(value.getEpochSecond());
+            writeInt(value.getNano());
+        }
+        return this;
+    }
+
+    BinaryEncoder writeEnum(Enum<?> value) {
+        return writeByte(value == null ? -1 : value.ordinal());
+    }
+
+    BinaryEncoder writeStrings(List<String> values) {
+        List<String> safe = values == null ? List.of() : values;
+        writeInt(safe.size());
+        safe.forEach(this::writeString);
+        return this;
+    }
+
+    BinaryEncoder writeUuids(List<UUID> values) {
+        List<UUID> safe = values == null ? List.of() : values;
+        writeInt(safe.size());
+        safe.forEach(this::writeUuid);
+        return this;
+    }
+
+    int size() {
+        return size;
+    }
+
+    byte[] array() {
+        return bytes;
+    }
+
+    byte[] toByteArray() {
+        return Arrays.copyOf(bytes, size);
+    }
+
+    void reset() {
+        size = 0;
+    }
+
+    private void ensureCapacity(int additional) {
+        if (size + additional > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + additional));
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.localcollab.platform.persistence;
+
+/**
+ * How aggressively the room log forces appended records to stable storage.
+ */
+public enum DurabilityMode {
+    /**
+     * Every append is forced to disk before the mutation is acknowledged.
+     */
+    SYNC,
+    /**
+     * A background flusher forces all pending records every group-commit interval; writers wait for the
+     * flush that covers their record, so many mutations share one force.
+     */
+    GROUP_COMMIT,
+    /**
+     * Records are forced on the group-commit interval but writers never wait; a crash can lose the last interval.
+     */
+    ASYNC
+}
@@ -0,0 +1,178 @@
+package com.localcollab.platform.persistence;
+
+import com.localcollab.platform.domain.AppendOnlyList;
+import com.localcollab.platform.domain.Artifact;
+import com.localcollab.platform.domain.ChatMessage;
+import com.localcollab.platform.domain.RoomEvent;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * {@link AppendOnlyList} whose entries live in an append-only file; only an offset index (8 bytes per entry) stays on
+ * the heap. Reads use positional I/O and never block appends.
+ * <p>
+ * Entries are published by writing the offset for the new end before the volatile size, so a reader that observes a
+ * size also observes every offset below it.
+ */
+public final class FileBackedList<T> extends AppendOnlyList<T> implements Closeable {
+
+    private final FileChannel channel;
+    private final BiConsumer<T, BinaryEncoder> writer;
+    private final Function<BinaryDecoder, T> reader;
+    private final BinaryEncoder encoder = new BinaryEncoder(1024);
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private volatile long[] offsets = new long[64];
+    private volatile int size;
+
+    private FileBackedList(Path path, BiConsumer<T, BinaryEncoder> writer, Function<BinaryDecoder, T> reader) {
+        this.writer = writer;
+        this.reader = reader;
+        try {
+            this.channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Unable to create room storage file " + path, ex);
+        }
+    }
+
+    public static FileBackedList<Artifact> artifacts(Path path) {
+        return new FileBackedList<>(path, RoomLogCodec::writeArtifact, RoomLogCodec::readArtifact);
+    }
+
+    public static FileBackedList<ChatMessage> messages(Path path) {
+        return new FileBackedList<>(path, RoomLogCodec::writeMessage, RoomLogCodec::readMessage);
+    }
+
+    public static FileBackedList<RoomEvent> events(Path path, UUID roomId) {
+        return new FileBackedList<>(path, RoomLogCodec::writeEvent, in -> RoomLogCodec.readEvent(roomId, in));
+    }
+
+    @Override
+    public boolean add(T element) {
+        Objects.requireNonNull(element, "element");
+        appendLock.lock();
+        try {
+            encoder.reset();
+            writer.accept(element, encoder);
+            int count = size;
+            long start = offsets[count];
+            ByteBuffer bytes = ByteBuffer.wrap(encoder.array(), 0, encoder.size());
+            long position = start;
+            while (bytes.hasRemaining()) {
+                position += channel.write(bytes, position);
+            }
+            long[] index = offsets;
+            if (count + 2 > index.length) {
+                index = Arrays.copyOf(index, index.length * 2);
+            }
+            index[count + 1] = position;
+            offsets = index;
+            size = count + 1;
+            return true;
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Unable to append to room storage", ex);
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    @Override
+    public T get(int index) {
+        Objects.checkIndex(index, size);
+        long[] index0 = offsets;
+        long start = index0[index];
+        ByteBuffer bytes = ByteBuffer.allocate((int) (index0[index + 1] - start));
+        try {
+            while (bytes.hasRemaining()) {
+                if (channel.read(bytes, start + bytes.position()) < 0) {
+                    throw new EOFException("Room storage ended before entry " + index);
+                }
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Unable to read room storage entry " + index, ex);
+        }
+        return reader.apply(new BinaryDecoder(bytes.flip()));
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public AppendOnlyList<T> snapshot() {
+        return new PrefixView(size);
+    }
+
+    /**
+     * Forgets entries past the snapshot's length; the next append overwrites their bytes.
+     */
+    @Override
+    public void rollback(AppendOnlyList<T> snapshot) {
+        appendLock.lock();
+        try {
+            if (snapshot.size() > size) {
+                throw new IllegalArgumentException("Not a snapshot of this list");
+            }
+            size = snapshot.size();
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            channel.close();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private final class PrefixView extends AppendOnlyList<T> {
+
+        private final int length;
+
+        private PrefixView(int length) {
+            this.length = length;
+        }
+
+        @Override
+        public T get(int index) {
+            Objects.checkIndex(index, length);
+            return FileBackedList.this.get(index);
+        }
+
+        @Override
+        public int size() {
+            return length;
+        }
+
+        @Override
+        public boolean add(T element) {
+            throw new UnsupportedOperationException("Room storage snapshots are read-only");
+        }
+
+        @Override
+        public void rollback(AppendOnlyList<T> snapshot) {
+            throw new UnsupportedOperationException("Room storage snapshots are read-only");
+        }
+
+        @Override
+        public AppendOnlyList<T> snapshot() {
+            return this;
+        }
+    }
+}
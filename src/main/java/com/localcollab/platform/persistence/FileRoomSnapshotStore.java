@@ -0,0 +1,235 @@
+package com.localcollab.platform.persistence;
+
+import com.localcollab.platform.domain.DriverStatus;
+import com.localcollab.platform.domain.Room;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.ObjLongConsumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * One binary snapshot file per room ({@code <roomId>.snap}), replaced atomically on every write.
+ * <p>
+ * Layout: {@code magic:int, formatVersion:int, lsn:long, bodyLength:long, crc32c:int} followed by the body, which
+ * uses the same entity encoding as the room log. Format 3 widened the body length to a long; formats 1 and 2 store it
+ * as an int. Format 2 added the room version; format 1 files restore with version 0.
+ * <p>
+ * Bodies are streamed in both directions through a small buffer, so a room's history never has to fit in one array or
+ * on the heap: writing encodes entry by entry and patches the header last, and restoring checks the checksum in one
+ * pass and then adds each entry straight to a room created by the active storage engine. Each snapshot still encodes
+ * the room's whole history, so a checkpoint costs time in proportion to the size of the rooms that changed.
+ */
+public final class FileRoomSnapshotStore implements RoomSnapshotStore {
+
+    private static final Logger log = LoggerFactory.getLogger(FileRoomSnapshotStore.class);
+
+    static final int MAGIC = 0x52534E50;
+    static final int FORMAT_VERSION = 3;
+    static final int HEADER_SIZE = 28;
+    static final int LEGACY_HEADER_SIZE = 24;
+    static final String SUFFIX = ".snap";
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Path directory;
+
+    public FileRoomSnapshotStore(Path directory) {
+        this.directory = directory;
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Unable to create snapshot directory " + directory, ex);
+        }
+    }
+
+    @Override
+    public void write(RoomSnapshot snapshot) {
+        Path target = directory.resolve(snapshot.id() + SUFFIX);
+        Path temp = directory.resolve(snapshot.id() + SUFFIX + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            Body body = new Body(channel.position(HEADER_SIZE));
+            encode(snapshot, body);
+            body.flush();
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE)
+                    .putInt(MAGIC)
+                    .putInt(FORMAT_VERSION)
+                    .putLong(snapshot.lsn())
+                    .putLong(body.length)
+                    .putInt((int) body.crc.getValue())
+                    .flip();
+            while (header.hasRemaining()) {
+                channel.write(header, header.position());
+            }
+            channel.force(true);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Unable to write snapshot for room " + snapshot.id(), ex);
+        }
+        try {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Unable to publish snapshot for room " + snapshot.id(), ex);
+        }
+    }
+
+    /**
+     * Restores snapshot files one at a time, so only one room is being decoded at any moment.
+     */
+    @Override
+    public int restoreAll(RoomFactory rooms, ObjLongConsumer<Room> restored) {
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(directory)) {
+            files = listing.filter(path -> path.getFileName().toString().endsWith(SUFFIX)).toList();
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Unable to list snapshots in " + directory, ex);
+        }
+        long start = System.nanoTime();
+        for (Path file : files) {
+            restore(file, rooms, restored);
+        }
+        log.info("Restored {} room snapshots from {} in {} ms", files.size(), directory, (System.nanoTime() - start) / 1_000_000);
+        return files.size();
+    }
+
+    private void restore(Path path, RoomFactory rooms, ObjLongConsumer<Room> restored) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            while (header.hasRemaining()) {
+                if (channel.read(header) < 0) {
+                    break;
+                }
+            }
+            header.flip();
+            if (header.remaining() < LEGACY_HEADER_SIZE || header.getInt() != MAGIC) {
+                throw new IOException("Not a room snapshot: " + path);
+            }
+            int format = header.getInt();
+            if (format < 1 || format > FORMAT_VERSION) {
+                throw new IOException("Unsupported room snapshot format " + format + " in " + path);
+            }
+            int headerSize = format >= 3 ? HEADER_SIZE : LEGACY_HEADER_SIZE;
+            if (header.limit() < headerSize) {
+                throw new IOException("Truncated room snapshot: " + path);
+            }
+            long lsn = header.getLong();
+            long length = format >= 3 ? header.getLong() : header.getInt();
+            int expectedCrc = header.getInt();
+            if (channel.size() - headerSize != length) {
+                throw new IOException("Truncated room snapshot: " + path);
+            }
+            if (checksum(channel, headerSize) != expectedCrc) {
+                throw new IOException("Corrupt room snapshot: " + path);
+            }
+            restored.accept(decode(format, new BinaryDecoder(channel.position(headerSize), BUFFER_SIZE), rooms), lsn);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private static int checksum(FileChannel channel, long position) throws IOException {
+        CRC32C crc = new CRC32C();
+        ByteBuffer chunk = ByteBuffer.allocate(BUFFER_SIZE);
+        long next = position;
+        int read;
+        while ((read = channel.read(chunk.clear(), next)) > 0) {
+            next += read;
+            crc.update(chunk.flip());
+        }
+        return (int) crc.getValue();
+    }
+
+    private static void encode(RoomSnapshot snapshot, Body body) {
+        body.out.writeLong(snapshot.version())
+                .writeUuid(snapshot.id())
+                .writeString(snapshot.name())
+                .writeInstant(snapshot.createdAt())
+                .writeBoolean(snapshot.paused());
+        RoomLogCodec.writeDriverStatus(snapshot.driverStatus(), body.out);
+        body.writeList(snapshot.participants(), RoomLogCodec::writeParticipant);
+        body.writeList(snapshot.providerAdapters(), RoomLogCodec::writeProviderAdapter);
+        body.writeList(snapshot.artifacts(), RoomLogCodec::writeArtifact);
+        body.writeList(snapshot.messages(), RoomLogCodec::writeMessage);
+        body.writeList(snapshot.taskLanes(), RoomLogCodec::writeTaskLane);
+        body.writeList(snapshot.events(), RoomLogCodec::writeEvent);
+    }
+
+    private static Room decode(int format, BinaryDecoder in, RoomFactory rooms) {
+        long version = format >= 2 ? in.readLong() : 0;
+        UUID id = in.readUuid();
+        String name = in.readString();
+        Instant createdAt = in.readInstant();
+        boolean paused = in.readBoolean();
+        DriverStatus driverStatus = RoomLogCodec.readDriverStatus(in);
+        Room room = rooms.newRoom(id, name, createdAt);
+        readList(in, RoomLogCodec::readParticipant, room::addParticipant);
+        readList(in, RoomLogCodec::readProviderAdapter, room::addProviderAdapter);
+        readList(in, RoomLogCodec::readArtifact, room::addArtifact);
+        readList(in, RoomLogCodec::readMessage, room::addMessage);
+        readList(in, RoomLogCodec::readTaskLane, room::addTaskLane);
+        readList(in, decoder -> RoomLogCodec.readEvent(id, decoder), room::addEvent);
+        room.restoreState(paused, driverStatus);
+        room.restoreVersion(version);
+        return room;
+    }
+
+    private static <T> void readList(BinaryDecoder in, Function<BinaryDecoder, T> reader, Consumer<T> sink) {
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            sink.accept(reader.apply(in));
+        }
+    }
+
+    /**
+     * Snapshot body being written: entries are encoded into a reusable buffer that is written out, and added to the
+     * checksum, whenever it passes {@link #BUFFER_SIZE}.
+     */
+    private static final class Body {
+
+        private final FileChannel channel;
+        private final BinaryEncoder out = new BinaryEncoder(BUFFER_SIZE);
+        private final CRC32C crc = new CRC32C();
+        private long length;
+
+        private Body(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        private <T> void writeList(List<T> values, BiConsumer<T, BinaryEncoder> writer) {
+            out.writeInt(values.size());
+            for (T value : values) {
+                writer.accept(value, out);
+                if (out.size() >= BUFFER_SIZE) {
+                    flush();
+                }
+            }
+        }
+
+        private void flush() {
+            ByteBuffer bytes = ByteBuffer.wrap(out.array(), 0, out.size());
+            crc.update(bytes.duplicate());
+            try {
+                while (bytes.hasRemaining()) {
+                    channel.write(bytes);
+                }
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+            length += out.size();
+            out.reset();
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.localcollab.platform.persistence;
+
+/**
+ * Append-only write-ahead log of room mutations. Every record is assigned a log sequence number (LSN) that increases
+ * by one per append, starting at 1.
+ */
+public interface RoomLog extends AutoCloseable {
+
+    /**
+     * Appends a record and returns its LSN. Depending on the {@link DurabilityMode} the record may not be on stable
+     * storage yet; callers that acknowledge work to clients must follow up with {@link #awaitDurable(long)}.
+     */
+    long append(RoomLogRecord record);
+
+    /**
+     * LSN of the most recently appended record, or {@code 0} when the log is empty.
+     */
+    long lastLsn();
+
+    /**
+     * Blocks until every record up to {@code lsn} is durable according to the configured durability mode.
+     */
+    void awaitDurable(long lsn);
+
+    /**
+     * Forces every record appended so far to stable storage, regardless of durability mode.
+     */
+    void flush();
+
+    /**
+     * Streams every record with an LSN greater than {@code afterLsn} to the visitor in log order.
+     */
+    void replay(long afterLsn, RecordVisitor visitor);
+
+    /**
+     * Discards log storage that only holds records below {@code lsn}. Implementations may keep more than asked,
+     * for example records sharing a segment with newer ones.
+     */
+    void truncateBefore(long lsn);
+
+    @Override
+    void close();
+
+    static RoomLog disabled() {
+        return DisabledRoomLog.INSTANCE;
+    }
+
+    @FunctionalInterface
+    interface RecordVisitor {
+        void visit(long lsn, RoomLogRecord record);
+    }
+
+    final class DisabledRoomLog implements RoomLog {
+
+        private static final DisabledRoomLog INSTANCE = new DisabledRoomLog();
+
+        private DisabledRoomLog() {
+        }
+
+        @Override
+        public long append(RoomLogRecord record) {
+            return 0;
+        }
+
+        @Override
+        public long lastLsn() {
+            return 0;
+        }
+
+        @Override
+        public void awaitDurable(long lsn) {
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void replay(long afterLsn, RecordVisitor visitor) {
+        }
+
+        @Override
+        public void truncateBefore(long lsn) {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
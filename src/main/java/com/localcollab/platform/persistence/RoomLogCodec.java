@@ -0,0 +1,230 @@
+package com.localcollab.platform.persistence;
+
+import com.localcollab.platform.domain.Artifact;
+import com.localcollab.platform.domain.ArtifactType;
+import com.localcollab.platform.domain.ChatMessage;
+import com.localcollab.platform.domain.DriverStatus;
+import com.localcollab.platform.domain.Participant;
+import com.localcollab.platform.domain.ParticipantRole;
+import com.localcollab.platform.domain.ParticipantType;
+import com.localcollab.platform.domain.ProviderAccessMode;
+import com.localcollab.platform.domain.ProviderAdapter;
+import com.localcollab.platform.domain.RoomEvent;
+import com.localcollab.platform.domain.RoomEventType;
+import com.localcollab.platform.domain.TaskLane;
+import com.localcollab.platform.domain.TaskLaneState;
+import com.localcollab.platform.persistence.RoomLogRecord.ArtifactAdded;
+import com.localcollab.platform.persistence.RoomLogRecord.EventRecorded;
+import com.localcollab.platform.persistence.RoomLogRecord.MessageAdded;
+import com.localcollab.platform.persistence.RoomLogRecord.ParticipantAdded;
+import com.localcollab.platform.persistence.RoomLogRecord.ProviderAdapterAdded;
+import com.localcollab.platform.persistence.RoomLogRecord.RoomCreated;
+import com.localcollab.platform.persistence.RoomLogRecord.RoomStateChanged;
+import com.localcollab.platform.persistence.RoomLogRecord.TaskAssigned;
+import com.localcollab.platform.persistence.RoomLogRecord.TaskLaneAdded;
+import com.localcollab.platform.persistence.RoomLogRecord.TaskLaneStateChanged;
+
+import java.util.UUID;
+
+/**
+ * Binary encoding of {@link RoomLogRecord}s. Enums are stored by ordinal, so constants must only ever be appended.
+ */
+final class RoomLogCodec {
+
+    static final byte ROOM_CREATED = 1;
+    static final byte PARTICIPANT_ADDED = 2;
+    static final byte PROVIDER_ADAPTER_ADDED = 3;
+    static final byte ARTIFACT_ADDED = 4;
+    static final byte MESSAGE_ADDED = 5;
+    static final byte TASK_LANE_ADDED = 6;
+    static final byte TASK_ASSIGNED = 7;
+    static final byte TASK_LANE_STATE_CHANGED = 8;
+    static final byte ROOM_STATE_CHANGED = 9;
+    static final byte EVENT_RECORDED = 10;
+
+    private RoomLogCodec() {
+    }
+
+    static byte typeOf(RoomLogRecord record) {
+        return switch (record) {
+            case RoomCreated r -> ROOM_CREATED;
+            case ParticipantAdded r -> PARTICIPANT_ADDED;
+            case ProviderAdapterAdded r -> PROVIDER_ADAPTER_ADDED;
+            case ArtifactAdded r -> ARTIFACT_ADDED;
+            case MessageAdded r -> MESSAGE_ADDED;
+            case TaskLaneAdded r -> TASK_LANE_ADDED;
+            case TaskAssigned r -> TASK_ASSIGNED;
+            case TaskLaneStateChanged r -> TASK_LANE_STATE_CHANGED;
+            case RoomStateChanged r -> ROOM_STATE_CHANGED;
+            case EventRecorded r -> EVENT_RECORDED;
+        };
+    }
+
+    static void encode(RoomLogRecord record, BinaryEncoder out) {
+        out.writeUuid(record.roomId());
+        switch (record) {
+            case RoomCreated r -> out.writeString(r.name()).writeInstant(r.createdAt());
+            case ParticipantAdded r -> writeParticipant(r.participant(), out);
+            case ProviderAdapterAdded r -> writeProviderAdapter(r.adapter(), out);
+            case ArtifactAdded r -> writeArtifact(r.artifact(), out);
+            case MessageAdded r -> writeMessage(r.message(), out);
+            case TaskLaneAdded r -> writeTaskLane(r.lane(), out);
+            case TaskAssigned r -> out.writeUuid(r.laneId()).writeUuid(r.taskArtifactId());
+            case TaskLaneStateChanged r -> out.writeUuid(r.laneId()).writeEnum(r.state());
+            case RoomStateChanged r -> {
+                out.writeBoolean(r.paused());
+                writeDriverStatus(r.driverStatus(), out);
+            }
+            case EventRecorded r -> writeEvent(r.event(), out);
+        }
+    }
+
+    static RoomLogRecord decode(byte type, BinaryDecoder in) {
+        UUID roomId = in.readUuid();
+        return switch (type) {
+            case ROOM_CREATED -> new RoomCreated(roomId, in.readString(), in.readInstant());
+            case PARTICIPANT_ADDED -> new ParticipantAdded(roomId, readParticipant(in));
+            case PROVIDER_ADAPTER_ADDED -> new ProviderAdapterAdded(roomId, readProviderAdapter(in));
+            case ARTIFACT_ADDED -> new ArtifactAdded(roomId, readArtifact(in));
+            case MESSAGE_ADDED -> new MessageAdded(roomId, readMessage(in));
+            case TASK_LANE_ADDED -> new TaskLaneAdded(roomId, readTaskLane(in));
+            case TASK_ASSIGNED -> new TaskAssigned(roomId, in.readUuid(), in.readUuid());
+            case TASK_LANE_STATE_CHANGED -> new TaskLaneStateChanged(roomId, in.readUuid(), in.readEnum(TaskLaneState.class));
+            case ROOM_STATE_CHANGED -> new RoomStateChanged(roomId, in.readBoolean(), readDriverStatus(in));
+            case EVENT_RECORDED -> new EventRecorded(roomId, readEvent(roomId, in));
+            default -> throw new IllegalStateException("Unknown room log record type: " + type);
+        };
+    }
+
+    static void writeParticipant(Participant participant, BinaryEncoder out) {
+        out.writeUuid(participant.getId())
+                .writeString(participant.getDisplayName())
+                .writeEnum(participant.getType())
+                .writeEnum(participant.getRole())
+                .writeString(participant.getProvider())
+                .writeStrings(participant.getCapabilities());
+    }
+
+    static Participant readParticipant(BinaryDecoder in) {
+        return new Participant(
+                in.readUuid(),
+                in.readString(),
+                in.readEnum(ParticipantType.class),
+                in.readEnum(ParticipantRole.class),
+                in.readString(),
+                in.readStrings());
+    }
+
+    static void writeProviderAdapter(ProviderAdapter adapter, BinaryEncoder out) {
+        out.writeUuid(adapter.getId())
+                .writeString(adapter.getProviderName())
+                .writeEnum(adapter.getAccessMode())
+                .writeStrings(adapter.getCapabilities())
+                .writeString(adapter.getEndpoint())
+                .writeBoolean(adapter.isAvailable());
+    }
+
+    static ProviderAdapter readProviderAdapter(BinaryDecoder in) {
+        return new ProviderAdapter(
+                in.readUuid(),
+                in.readString(),
+                in.readEnum(ProviderAccessMode.class),
+                in.readStrings(),
+                in.readString(),
+                in.readBoolean());
+    }
+
+    static void writeArtifact(Artifact artifact, BinaryEncoder out) {
+        out.writeUuid(artifact.getId())
+                .writeEnum(artifact.getType())
+                .writeString(artifact.getTitle())
+                .writeString(artifact.getContent())
+                .writeInt(artifact.getVersion())
+                .writeInstant(artifact.getCreatedAt())
+                .writeUuid(artifact.getParentArtifactId());
+    }
+
+    static Artifact readArtifact(BinaryDecoder in) {
+        return new Artifact(
+                in.readUuid(),
+                in.readEnum(ArtifactType.class),
+                in.readString(),
+                in.readString(),
+                in.readInt(),
+                in.readInstant(),
+                in.readUuid());
+    }
+
+    static void writeMessage(ChatMessage message, BinaryEncoder out) {
+        out.writeUuid(message.getId())
+                .writeUuid(message.getParticipantId())
+                .writeString(message.getParticipantName())
+                .writeString(message.getContent())
+                .writeInstant(message.getCreatedAt());
+    }
+
+    static ChatMessage readMessage(BinaryDecoder in) {
+        return new ChatMessage(
+                in.readUuid(),
+                in.readUuid(),
+                in.readString(),
+                in.readString(),
+                in.readInstant());
+    }
+
+    static void writeTaskLane(TaskLane lane, BinaryEncoder out) {
+        out.writeUuid(lane.getId())
+                .writeString(lane.getName())
+                .writeUuid(lane.getImplementorId())
+                .writeEnum(lane.getState())
+                .writeUuids(lane.getTaskArtifactIds());
+    }
+
+    static TaskLane readTaskLane(BinaryDecoder in) {
+        return new TaskLane(
+                in.readUuid(),
+                in.readString(),
+                in.readUuid(),
+                in.readEnum(TaskLaneState.class),
+                in.readUuids());
+    }
+
+    static void writeDriverStatus(DriverStatus status, BinaryEncoder out) {
+        out.writeInt(status.getMaxRetries())
+                .writeInt(status.getConsecutiveFailures())
+                .writeInstant(status.getLastFailureAt())
+                .writeString(status.getLastFailureReason())
+                .writeEnum(status.getState());
+    }
+
+    static DriverStatus readDriverStatus(BinaryDecoder in) {
+        return new DriverStatus(
+                in.readInt(),
+                in.readInt(),
+                in.readInstant(),
+                in.readString(),
+                in.readEnum(DriverStatus.State.class));
+    }
+
+    static void writeEvent(RoomEvent event, BinaryEncoder out) {
+        out.writeUuid(event.getId())
+                .writeEnum(event.getType())
+                .writeString(event.getDescription())
+                .writeInstant(event.getOccurredAt())
+                .writeUuid(event.getParticipantId())
+                .writeUuid(event.getArtifactId())
+                .writeUuid(event.getTaskLaneId());
+    }
+
+    static RoomEvent readEvent(UUID roomId, BinaryDecoder in) {
+        return new RoomEvent(
+                in.readUuid(),
+                roomId,
+                in.readEnum(RoomEventType.class),
+                in.readString(),
+                in.readInstant(),
+                in.readUuid(),
+                in.readUuid(),
+                in.readUuid());
+    }
+}
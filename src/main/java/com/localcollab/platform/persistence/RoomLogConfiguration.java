@@ -0,0 +1,32 @@
+package com.localcollab.platform.persistence;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(RoomLogProperties.class)
+public class RoomLogConfiguration {
+
+    @Bean(destroyMethod = "close")
+    public RoomLog roomLog(RoomLogProperties properties, MeterRegistry meterRegistry) {
+        if (!properties.isEnabled()) {
+            return RoomLog.disabled();
+        }
+        return SegmentedRoomLog.open(
+                properties.getDirectory(),
+                properties.getDurability(),
+                properties.getGroupCommitInterval(),
+                properties.getSegmentSize().toBytes(),
+                meterRegistry);
+    }
+
+    @Bean
+    public RoomSnapshotStore roomSnapshotStore(RoomLogProperties properties) {
+        if (!properties.isEnabled()) {
+            return RoomSnapshotStore.disabled();
+        }
+        return new FileRoomSnapshotStore(properties.getSnapshotDirectory());
+    }
+}
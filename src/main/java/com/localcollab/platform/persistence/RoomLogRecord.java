@@ -0,0 +1,52 @@
+package com.localcollab.platform.persistence;
+
+import com.localcollab.platform.domain.Artifact;
+import com.localcollab.platform.domain.ChatMessage;
+import com.localcollab.platform.domain.DriverStatus;
+import com.localcollab.platform.domain.Participant;
+import com.localcollab.platform.domain.ProviderAdapter;
+import com.localcollab.platform.domain.RoomEvent;
+import com.localcollab.platform.domain.TaskLane;
+import com.localcollab.platform.domain.TaskLaneState;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * A single room mutation as written to the room log. Records carry the fully resolved result of a mutation
+ * (generated ids, versions, timestamps) so replaying them reproduces the in-memory model exactly.
+ */
+public sealed interface RoomLogRecord {
+
+    UUID roomId();
+
+    record RoomCreated(UUID roomId, String name, Instant createdAt) implements RoomLogRecord {
+    }
+
+    record ParticipantAdded(UUID roomId, Participant participant) implements RoomLogRecord {
+    }
+
+    record ProviderAdapterAdded(UUID roomId, ProviderAdapter adapter) implements RoomLogRecord {
+    }
+
+    record ArtifactAdded(UUID roomId, Artifact artifact) implements RoomLogRecord {
+    }
+
+    record MessageAdded(UUID roomId, ChatMessage message) implements RoomLogRecord {
+    }
+
+    record TaskLaneAdded(UUID roomId, TaskLane lane) implements RoomLogRecord {
+    }
+
+    record TaskAssigned(UUID roomId, UUID laneId, UUID taskArtifactId) implements RoomLogRecord {
+    }
+
+    record TaskLaneStateChanged(UUID roomId, UUID laneId, TaskLaneState state) implements RoomLogRecord {
+    }
+
+    record RoomStateChanged(UUID roomId, boolean paused, DriverStatus driverStatus) implements RoomLogRecord {
+    }
+
+    record EventRecorded(UUID roomId, RoomEvent event) implements RoomLogRecord {
+    }
+}
@@ -0,0 +1,178 @@
+package com.localcollab.platform.persistence;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32C;
+
+/**
+ * One memory-mapped, preallocated file of the room log.
+ * <p>
+ * Layout: a 16 byte header ({@code magic, formatVersion, baseLsn}) followed by frames of
+ * {@code length:int, crc32c:int, lsn:long, type:byte, payload[length]}. The CRC covers lsn, type and payload, and the
+ * length is written last so a torn frame reads as the end of the segment.
+ */
+final class RoomLogSegment {
+
+    static final int MAGIC = 0x524C4F47;
+    static final int FORMAT_VERSION = 1;
+    static final int HEADER_SIZE = 16;
+    static final int FRAME_HEADER_SIZE = 17;
+    static final String SUFFIX = ".seg";
+
+    private final Path path;
+    private final long baseLsn;
+    private final MappedByteBuffer buffer;
+    private int position;
+    private int flushedPosition;
+
+    private RoomLogSegment(Path path, long baseLsn, MappedByteBuffer buffer, int position) {
+        this.path = path;
+        this.baseLsn = baseLsn;
+        this.buffer = buffer;
+        this.position = position;
+        this.flushedPosition = position;
+    }
+
+    static Path pathFor(Path directory, long baseLsn) {
+        return directory.resolve(String.format("%020d%s", baseLsn, SUFFIX));
+    }
+
+    static long baseLsnOf(Path path) {
+        String fileName = path.getFileName().toString();
+        return Long.parseLong(fileName.substring(0, fileName.length() - SUFFIX.length()));
+    }
+
+    static RoomLogSegment create(Path directory, long baseLsn, int capacity) throws IOException {
+        Path path = pathFor(directory, baseLsn);
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+        }
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(4, FORMAT_VERSION);
+        buffer.putLong(8, baseLsn);
+        buffer.force(0, HEADER_SIZE);
+        return new RoomLogSegment(path, baseLsn, buffer, HEADER_SIZE);
+    }
+
+    /**
+     * Maps an existing segment for appending, positioned after its last valid frame.
+     */
+    static RoomLogSegment openForAppend(Path path) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+        }
+        long baseLsn = readHeader(path, buffer);
+        ScanResult result = scan(buffer, baseLsn, Long.MAX_VALUE, null);
+        return new RoomLogSegment(path, baseLsn, buffer, result.endPosition());
+    }
+
+    static ScanResult scanFile(Path path, long afterLsn, RoomLog.RecordVisitor visitor) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        long baseLsn = readHeader(path, buffer);
+        return scan(buffer, baseLsn, afterLsn, visitor);
+    }
+
+    private static long readHeader(Path path, ByteBuffer buffer) throws IOException {
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a room log segment: " + path);
+        }
+        if (buffer.getInt(4) != FORMAT_VERSION) {
+            throw new IOException("Unsupported room log format " + buffer.getInt(4) + " in " + path);
+        }
+        return buffer.getLong(8);
+    }
+
+    /**
+     * Walks the frames of a segment, stopping at the first empty, torn, corrupt or out-of-sequence frame. Frames with
+     * an LSN above {@code afterLsn} are decoded and handed to the visitor when one is given.
+     */
+    private static ScanResult scan(ByteBuffer buffer, long baseLsn, long afterLsn, RoomLog.RecordVisitor visitor) {
+        int position = HEADER_SIZE;
+        long expectedLsn = baseLsn;
+        CRC32C crc = new CRC32C();
+        while (position + FRAME_HEADER_SIZE <= buffer.capacity()) {
+            int length = buffer.getInt(position);
+            if (length <= 0 || position + FRAME_HEADER_SIZE + length > buffer.capacity()) {
+                break;
+            }
+            long lsn = buffer.getLong(position + 8);
+            if (lsn != expectedLsn) {
+                break;
+            }
+            crc.reset();
+            crc.update(buffer.slice(position + 8, 9 + length));
+            if ((int) crc.getValue() != buffer.getInt(position + 4)) {
+                break;
+            }
+            if (visitor != null && lsn > afterLsn) {
+                byte type = buffer.get(position + 16);
+                ByteBuffer payload = buffer.slice(position + FRAME_HEADER_SIZE, length);
+                visitor.visit(lsn, RoomLogCodec.decode(type, new BinaryDecoder(payload)));
+            }
+            position += FRAME_HEADER_SIZE + length;
+            expectedLsn++;
+        }
+        return new ScanResult(position, expectedLsn - 1);
+    }
+
+    boolean hasRoomFor(int payloadLength) {
+        return position + FRAME_HEADER_SIZE + payloadLength <= buffer.capacity();
+    }
+
+    /**
+     * Writes one frame at the current position. Callers serialize appends.
+     */
+    void write(long lsn, byte type, byte[] payload, int length) {
+        int frame = position;
+        buffer.putLong(frame + 8, lsn);
+        buffer.put(frame + 16, type);
+        buffer.put(frame + FRAME_HEADER_SIZE, payload, 0, length);
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.slice(frame + 8, 9 + length));
+        buffer.putInt(frame + 4, (int) crc.getValue());
+        buffer.putInt(frame, length);
+        position = frame + FRAME_HEADER_SIZE + length;
+    }
+
+    /**
+     * Returns the [from, to) range written since the last call and marks it as flushed.
+     */
+    DirtyRange takeDirtyRange() {
+        DirtyRange range = new DirtyRange(flushedPosition, position);
+        flushedPosition = position;
+        return range;
+    }
+
+    void force(DirtyRange range) {
+        if (range.to() > range.from()) {
+            buffer.force(range.from(), range.to() - range.from());
+        }
+    }
+
+    Path path() {
+        return path;
+    }
+
+    long baseLsn() {
+        return baseLsn;
+    }
+
+    int position() {
+        return position;
+    }
+
+    record DirtyRange(int from, int to) {
+    }
+
+    record ScanResult(int endPosition, long lastLsn) {
+    }
+}
@@ -0,0 +1,53 @@
+package com.localcollab.platform.persistence;
+
+import com.localcollab.platform.domain.Artifact;
+import com.localcollab.platform.domain.ChatMessage;
+import com.localcollab.platform.domain.DriverStatus;
+import com.localcollab.platform.domain.Participant;
+import com.localcollab.platform.domain.ProviderAdapter;
+import com.localcollab.platform.domain.Room;
+import com.localcollab.platform.domain.RoomEvent;
+import com.localcollab.platform.domain.TaskLane;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Point-in-time copy of a room that covers every room log record up to and including {@code lsn}.
+ */
+public record RoomSnapshot(long lsn,
+                           long version,
+                           UUID id,
+                           String name,
+                           Instant createdAt,
+                           boolean paused,
+                           DriverStatus driverStatus,
+                           List<Participant> participants,
+                           List<ProviderAdapter> providerAdapters,
+                           List<Artifact> artifacts,
+                           List<ChatMessage> messages,
+                           List<TaskLane> taskLanes,
+                           List<RoomEvent> events) {
+
+    /**
+     * Captures a published room view. Views are immutable, so the snapshot shares their collections and can be encoded
+     * without holding the room lock; the caller only needs the lock to pair the view with {@code lsn}.
+     */
+    public static RoomSnapshot capture(Room view, long lsn) {
+        return new RoomSnapshot(
+                lsn,
+                view.getVersion(),
+                view.getId(),
+                view.getName(),
+                view.getCreatedAt(),
+                view.isPaused(),
+                view.getDriverStatus(),
+                view.getParticipants(),
+                view.getProviderAdapters(),
+                view.getArtifacts(),
+                view.getMessages(),
+                view.getTaskLanes(),
+                view.getEvents());
+    }
+}
@@ -0,0 +1,316 @@
+package com.localcollab.platform.persistence;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * {@link RoomLog} stored as a directory of preallocated, memory-mapped segment files named after the LSN of their
+ * first record. Appends are serialized by a single lock; forcing pages to disk happens either inline
+ * ({@link DurabilityMode#SYNC}) or on a background flusher shared by all writers.
+ */
+public final class SegmentedRoomLog implements RoomLog {
+
+    private static final Logger log = LoggerFactory.getLogger(SegmentedRoomLog.class);
+
+    private final Path directory;
+    private final DurabilityMode durability;
+    private final int segmentSize;
+    private final NavigableMap<Long, Path> segments = new ConcurrentSkipListMap<>();
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final ReentrantLock durableLock = new ReentrantLock();
+    private final Condition durableAdvanced = durableLock.newCondition();
+    private final BinaryEncoder encoder = new BinaryEncoder(4096);
+    private final ScheduledExecutorService flusher;
+    private final Timer appendTimer;
+    private final Counter forceCounter;
+    private RoomLogSegment active;
+    private volatile long lastLsn;
+    private volatile long durableLsn;
+    private volatile boolean closed;
+
+    private SegmentedRoomLog(Path directory, DurabilityMode durability, Duration groupCommitInterval, int segmentSize, MeterRegistry meterRegistry) throws IOException {
+        this.directory = directory;
+        this.durability = durability;
+        this.segmentSize = segmentSize;
+        Files.createDirectories(directory);
+        recover();
+        this.durableLsn = lastLsn;
+
+        String mode = durability.name().toLowerCase(Locale.ROOT);
+        this.appendTimer = Timer.builder("room.log.append")
+                .description("Time to append a record, including the inline force in sync mode")
+                .tag("durability", mode)
+                .register(meterRegistry);
+        this.forceCounter = Counter.builder("room.log.forces")
+                .description("Number of times log pages were forced to disk")
+                .tag("durability", mode)
+                .register(meterRegistry);
+        Gauge.builder("room.log.unflushed", this, l -> l.lastLsn - l.durableLsn)
+                .description("Records appended but not yet forced to disk")
+                .register(meterRegistry);
+        Gauge.builder("room.log.segments", segments, NavigableMap::size)
+                .register(meterRegistry);
+
+        if (durability == DurabilityMode.SYNC) {
+            this.flusher = null;
+        } else {
+            long intervalNanos = Math.max(1, groupCommitInterval.toNanos());
+            this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "room-log-flusher");
+                thread.setDaemon(true);
+                return thread;
+            });
+            flusher.scheduleWithFixedDelay(this::flushQuietly, intervalNanos, intervalNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    public static SegmentedRoomLog open(Path directory, DurabilityMode durability, Duration groupCommitInterval, long segmentSize, MeterRegistry meterRegistry) {
+        if (segmentSize < 1024 || segmentSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Room log segment size must be between 1 KB and 2 GB");
+        }
+        try {
+            return new SegmentedRoomLog(directory, durability, groupCommitInterval, (int) segmentSize, meterRegistry);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Unable to open room log in " + directory, ex);
+        }
+    }
+
+    @Override
+    public long append(RoomLogRecord record) {
+        long start = System.nanoTime();
+        appendLock.lock();
+        try {
+            ensureOpen();
+            encoder.reset();
+            RoomLogCodec.encode(record, encoder);
+            if (!active.hasRoomFor(encoder.size())) {
+                roll(encoder.size());
+            }
+            long lsn = lastLsn + 1;
+            active.write(lsn, RoomLogCodec.typeOf(record), encoder.array(), encoder.size());
+            lastLsn = lsn;
+            if (durability == DurabilityMode.SYNC) {
+                active.force(active.takeDirtyRange());
+                forceCounter.increment();
+                markDurable(lsn);
+            }
+            return lsn;
+        } finally {
+            appendLock.unlock();
+            appendTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @Override
+    public long lastLsn() {
+        return lastLsn;
+    }
+
+    @Override
+    public void awaitDurable(long lsn) {
+        if (durability != DurabilityMode.GROUP_COMMIT || durableLsn >= lsn) {
+            return;
+        }
+        durableLock.lock();
+        try {
+            while (durableLsn < lsn && !closed) {
+                durableAdvanced.await();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for room log group commit", ex);
+        } finally {
+            durableLock.unlock();
+        }
+    }
+
+    @Override
+    public void replay(long afterLsn, RecordVisitor visitor) {
+        List<Path> paths = new ArrayList<>(segments.values());
+        for (int i = 0; i < paths.size(); i++) {
+            boolean lastSegment = i == paths.size() - 1;
+            if (!lastSegment && RoomLogSegment.baseLsnOf(paths.get(i + 1)) <= afterLsn + 1) {
+                continue;
+            }
+            try {
+                RoomLogSegment.scanFile(paths.get(i), afterLsn, visitor);
+            } catch (IOException ex) {
+                throw new UncheckedIOException("Unable to replay room log segment " + paths.get(i), ex);
+            }
+        }
+    }
+
+    @Override
+    public void truncateBefore(long lsn) {
+        List<Path> removable = new ArrayList<>();
+        appendLock.lock();
+        try {
+            Long base = segments.firstKey();
+            Long next = segments.higherKey(base);
+            // A segment can go once the segment after it starts at or below the truncation point; the active
+            // segment is never removed.
+            while (next != null && next <= lsn) {
+                removable.add(segments.remove(base));
+                base = next;
+                next = segments.higherKey(base);
+            }
+        } finally {
+            appendLock.unlock();
+        }
+        for (Path path : removable) {
+            try {
+                Files.deleteIfExists(path);
+            } catch (IOException ex) {
+                log.warn("Unable to delete truncated room log segment {}", path, ex);
+            }
+        }
+        if (!removable.isEmpty()) {
+            log.info("Truncated {} room log segments below LSN {}", removable.size(), lsn);
+        }
+    }
+
+    @Override
+    public void flush() {
+        flushLock.lock();
+        try {
+            RoomLogSegment segment;
+            RoomLogSegment.DirtyRange range;
+            long lsn;
+            appendLock.lock();
+            try {
+                segment = active;
+                range = segment.takeDirtyRange();
+                lsn = lastLsn;
+            } finally {
+                appendLock.unlock();
+            }
+            if (range.to() > range.from()) {
+                segment.force(range);
+                forceCounter.increment();
+            }
+            markDurable(lsn);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    public DurabilityMode durability() {
+        return durability;
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        if (flusher != null) {
+            flusher.shutdownNow();
+        }
+        flush();
+        closed = true;
+        durableLock.lock();
+        try {
+            durableAdvanced.signalAll();
+        } finally {
+            durableLock.unlock();
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException ex) {
+            log.error("Room log flush failed", ex);
+        }
+    }
+
+    private void recover() throws IOException {
+        List<Path> found;
+        try (Stream<Path> files = Files.list(directory)) {
+            found = files.filter(path -> path.getFileName().toString().endsWith(RoomLogSegment.SUFFIX))
+                    .sorted()
+                    .toList();
+        }
+
+        long expectedBase = found.isEmpty() ? 1 : RoomLogSegment.baseLsnOf(found.getFirst());
+        for (int i = 0; i < found.size(); i++) {
+            Path path = found.get(i);
+            if (RoomLogSegment.baseLsnOf(path) != expectedBase) {
+                log.warn("Room log segment {} does not continue at LSN {}; discarding it and later segments", path, expectedBase);
+                for (Path orphan : found.subList(i, found.size())) {
+                    Files.delete(orphan);
+                }
+                break;
+            }
+            RoomLogSegment.ScanResult result = RoomLogSegment.scanFile(path, Long.MAX_VALUE, null);
+            segments.put(expectedBase, path);
+            lastLsn = result.lastLsn();
+            expectedBase = result.lastLsn() + 1;
+        }
+
+        if (segments.isEmpty()) {
+            active = RoomLogSegment.create(directory, expectedBase, segmentSize);
+            segments.put(active.baseLsn(), active.path());
+            lastLsn = expectedBase - 1;
+        } else {
+            active = RoomLogSegment.openForAppend(segments.lastEntry().getValue());
+        }
+        log.info("Room log opened in {} at LSN {} ({} segments, {} durability)", directory, lastLsn, segments.size(), durability);
+    }
+
+    private void roll(int payloadLength) {
+        try {
+            // Force the whole segment rather than the dirty range: a concurrent flush may still be forcing an
+            // earlier range, and the LSN marked durable here covers it.
+            active.takeDirtyRange();
+            active.force(new RoomLogSegment.DirtyRange(RoomLogSegment.HEADER_SIZE, active.position()));
+            forceCounter.increment();
+            markDurable(lastLsn);
+            int capacity = Math.max(segmentSize, RoomLogSegment.HEADER_SIZE + RoomLogSegment.FRAME_HEADER_SIZE + payloadLength);
+            active = RoomLogSegment.create(directory, lastLsn + 1, capacity);
+            segments.put(active.baseLsn(), active.path());
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Unable to roll room log segment", ex);
+        }
+    }
+
+    private void markDurable(long lsn) {
+        durableLock.lock();
+        try {
+            if (lsn > durableLsn) {
+                durableLsn = lsn;
+                durableAdvanced.signalAll();
+            }
+        } finally {
+            durableLock.unlock();
+        }
+    }
+
+    private void ensureOpen() {
+        if (closed) {
+            throw new IllegalStateException("Room log is closed");
+        }
+    }
+}
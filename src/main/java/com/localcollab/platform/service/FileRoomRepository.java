@@ -0,0 +1,113 @@
+package com.localcollab.platform.service;
+
+import com.localcollab.platform.domain.Artifact;
+import com.localcollab.platform.domain.ChatMessage;
+import com.localcollab.platform.domain.Room;
+import com.localcollab.platform.domain.RoomEvent;
+import com.localcollab.platform.persistence.FileBackedList;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
+
+/**
+ * Embedded engine that keeps artifacts, messages and events in per-room files under
+ * {@code directory/room-spill/<roomId>/}; participants, adapters and lanes stay on the heap because they are small and
+ * mutable.
+ * <p>
+ * The files are a spill area, not a source of truth: durability comes from the room log and snapshots, which rebuild
+ * them on start. The {@code room-spill} subdirectory is therefore cleared when the repository is created, but only if
+ * it is empty or carries the marker file this engine writes into it; nothing else under {@code directory} is touched.
+ */
+public class FileRoomRepository implements RoomRepository, Closeable {
+
+    static final String SPILL_DIRECTORY = "room-spill";
+    static final String MARKER = ".room-spill";
+
+    private final Path directory;
+    private final Map<UUID, Room> rooms = new ConcurrentHashMap<>();
+    private final List<FileBackedList<?>> openLists = new CopyOnWriteArrayList<>();
+
+    public FileRoomRepository(Path directory) {
+        this.directory = directory.resolve(SPILL_DIRECTORY);
+        try {
+            clearSpillArea(this.directory);
+            Files.createDirectories(this.directory);
+            Files.createFile(this.directory.resolve(MARKER));
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Unable to prepare room storage directory " + this.directory, ex);
+        }
+    }
+
+    @Override
+    public Room newRoom(UUID id, String name, Instant createdAt) {
+        Path roomDirectory = directory.resolve(id.toString());
+        try {
+            Files.createDirectories(roomDirectory);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Unable to create room storage for " + id, ex);
+        }
+        FileBackedList<Artifact> artifacts = FileBackedList.artifacts(roomDirectory.resolve("artifacts.bin"));
+        FileBackedList<ChatMessage> messages = FileBackedList.messages(roomDirectory.resolve("messages.bin"));
+        FileBackedList<RoomEvent> events = FileBackedList.events(roomDirectory.resolve("events.bin"), id);
+        openLists.addAll(List.of(artifacts, messages, events));
+        return new Room(id, name, createdAt, artifacts, messages, events);
+    }
+
+    @Override
+    public void save(Room room) {
+        rooms.put(room.getId(), room);
+    }
+
+    @Override
+    public Optional<Room> findById(UUID id) {
+        return Optional.ofNullable(rooms.get(id));
+    }
+
+    @Override
+    public Collection<Room> findAll() {
+        return Collections.unmodifiableCollection(rooms.values());
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return rooms.isEmpty();
+    }
+
+    @Override
+    public void close() {
+        openLists.forEach(FileBackedList::close);
+        openLists.clear();
+    }
+
+    private static void clearSpillArea(Path path) throws IOException {
+        if (!Files.exists(path)) {
+            return;
+        }
+        if (!Files.exists(path.resolve(MARKER))) {
+            try (Stream<Path> entries = Files.list(path)) {
+                if (entries.findAny().isPresent()) {
+                    throw new IllegalStateException("Refusing to clear " + path + ": it is not empty and was not created by the file storage engine");
+                }
+            }
+        }
+        try (Stream<Path> paths = Files.walk(path)) {
+            for (Path entry : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(entry);
+            }
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.localcollab.platform.service;
+
+import com.localcollab.platform.domain.Room;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Default engine that keeps every room entirely on the heap.
+ */
+public class InMemoryRoomRepository implements RoomRepository {
+
+    private final Map<UUID, Room> rooms = new ConcurrentHashMap<>();
+
+    @Override
+    public Room newRoom(UUID id, String name, Instant createdAt) {
+        return new Room(id, name, createdAt);
+    }
+
+    @Override
+    public void save(Room room) {
+        rooms.put(room.getId(), room);
+    }
+
+    @Override
+    public Optional<Room> findById(UUID id) {
+        return Optional.ofNullable(rooms.get(id));
+    }
+
+    @Override
+    public Collection<Room> findAll() {
+        return Collections.unmodifiableCollection(rooms.values());
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return rooms.isEmpty();
+    }
+}
@@ -0,0 +1,14 @@
+package com.localcollab.platform.service;
+
+import java.util.UUID;
+
+/**
+ * A piece of a chat message that is still being streamed into the room, delivered to
+ * {@link RoomEventListener#onMessageChunk} as it arrives. Chunks are not persisted: once the stream finishes, the whole
+ * message is posted under {@code messageId}; a stream that is abandoned ends with a {@code cancelled} chunk instead.
+ *
+ * @param index the chunk's 0-based position within the message
+ * @param text  the appended text, or {@code null} on the cancelling chunk
+ */
+public record MessageChunk(UUID messageId, UUID participantId, int index, String text, boolean cancelled) {
+}
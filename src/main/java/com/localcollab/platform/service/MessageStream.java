@@ -0,0 +1,144 @@
+package com.localcollab.platform.service;
+
+import com.localcollab.platform.domain.ChatMessage;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A chat message that is still being written, opened with {@link RoomService#openMessageStream}.
+ * <p>
+ * Appending never takes the room lock: each chunk is kept as received and handed straight to the event pipeline, so
+ * subscribers see it at once. The text is joined a single time, when {@link #finish()} posts the message under the id
+ * reserved at open; until then the room's history is untouched and nothing is written to the room log.
+ */
+public final class MessageStream {
+
+    /**
+     * Upper bound on a streamed message's length, so a runaway provider cannot grow a buffer without limit.
+     */
+    public static final int MAX_CONTENT_LENGTH = 1 << 20;
+
+    private final RoomService roomService;
+    private final RoomEventPipeline eventPipeline;
+    private final UUID roomId;
+    private final UUID messageId = UUID.randomUUID();
+    private final UUID participantId;
+    private final String participantName;
+    private final Instant startedAt = Instant.now();
+    private final List<String> chunks = new ArrayList<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private int count;
+    private int length;
+    private boolean closed;
+
+    MessageStream(RoomService roomService, RoomEventPipeline eventPipeline, UUID roomId, UUID participantId, String participantName) {
+        this.roomService = roomService;
+        this.eventPipeline = eventPipeline;
+        this.roomId = roomId;
+        this.participantId = participantId;
+        this.participantName = participantName;
+    }
+
+    public UUID getRoomId() {
+        return roomId;
+    }
+
+    public UUID getMessageId() {
+        return messageId;
+    }
+
+    /**
+     * Appends a chunk and delivers it to subscribers. Empty chunks are ignored.
+     *
+     * @throws IllegalStateException if the stream is finished or cancelled, or the message would exceed
+     *                               {@link #MAX_CONTENT_LENGTH}
+     */
+    public void append(String text) {
+        if (text == null || text.isEmpty()) {
+            return;
+        }
+        lock.lock();
+        try {
+            ensureOpen();
+            if (length + text.length() > MAX_CONTENT_LENGTH) {
+                throw new IllegalStateException("Streamed message exceeds " + MAX_CONTENT_LENGTH + " characters");
+            }
+            int index = count++;
+            chunks.add(text);
+            length += text.length();
+            // Published under the stream lock, so chunks reach the pipeline in index order.
+            eventPipeline.publishChunk(roomId, new MessageChunk(messageId, participantId, index, text, false));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Posts the streamed text as one chat message. The future fails with the room's usual validation exceptions, for
+     * example when nothing but whitespace was streamed or the room was paused meanwhile; subscribers are then sent a
+     * cancelling chunk.
+     */
+    public CompletableFuture<RoomUpdate<ChatMessage>> finish() {
+        String content;
+        lock.lock();
+        try {
+            ensureOpen();
+            closed = true;
+            content = String.join("", chunks);
+            chunks.clear();
+        } finally {
+            lock.unlock();
+        }
+        return roomService.finishMessageStream(this, new RoomCommand.PostMessage(participantId, content, messageId));
+    }
+
+    /**
+     * Abandons the message: nothing is posted and subscribers are sent a cancelling chunk. Does nothing if the stream
+     * is already closed.
+     */
+    public void cancel() {
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            chunks.clear();
+        } finally {
+            lock.unlock();
+        }
+        roomService.cancelMessageStream(this);
+    }
+
+    /**
+     * The message as streamed so far, under its reserved id and with its start time.
+     */
+    public ChatMessage toMessage() {
+        lock.lock();
+        try {
+            return new ChatMessage(messageId, participantId, participantName, String.join("", chunks), startedAt);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void publishCancelled() {
+        lock.lock();
+        try {
+            eventPipeline.publishChunk(roomId, new MessageChunk(messageId, participantId, count, null, true));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void ensureOpen() {
+        if (closed) {
+            throw new IllegalStateException("Message stream is closed: " + messageId);
+        }
+    }
+}
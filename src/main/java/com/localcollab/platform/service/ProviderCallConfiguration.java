@@ -0,0 +1,51 @@
+package com.localcollab.platform.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.net.http.HttpClient;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Executor for outbound provider I/O. Provider round trips take seconds, so with {@code spring.threads.virtual.enabled}
+ * every call gets its own virtual thread; otherwise calls share a bounded platform-thread pool.
+ */
+@Configuration
+@EnableConfigurationProperties(ProviderCallProperties.class)
+public class ProviderCallConfiguration {
+
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService providerCallExecutor(ProviderCallProperties properties,
+                                                @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        return providerCallExecutor(virtualThreads, properties.getCallThreads());
+    }
+
+    /**
+     * Shared client for provider endpoints: pools connections per host, prefers HTTP/2 and falls back to HTTP/1.1, and
+     * runs its completion handlers on the provider call executor. Spring closes it through {@link AutoCloseable} on
+     * shutdown, before the executor it depends on.
+     */
+    @Bean
+    public HttpClient providerHttpClient(ProviderCallProperties properties, ExecutorService providerCallExecutor) {
+        return httpClient(properties, providerCallExecutor);
+    }
+
+    static HttpClient httpClient(ProviderCallProperties properties, Executor executor) {
+        return HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(properties.getConnectTimeout())
+                .executor(executor)
+                .build();
+    }
+
+    static ExecutorService providerCallExecutor(boolean virtualThreads, int platformThreads) {
+        if (virtualThreads) {
+            return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("provider-call-", 0).factory());
+        }
+        return Executors.newFixedThreadPool(platformThreads, Thread.ofPlatform().name("provider-call-", 0).daemon().factory());
+    }
+}
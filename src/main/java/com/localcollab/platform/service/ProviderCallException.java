@@ -0,0 +1,18 @@
+package com.localcollab.platform.service;
+
+/**
+ * A provider endpoint could not be reached, timed out or answered with something other than a completion.
+ */
+public class ProviderCallException extends RuntimeException {
+
+    private final String providerName;
+
+    public ProviderCallException(String providerName, String message, Throwable cause) {
+        super(message, cause);
+        this.providerName = providerName;
+    }
+
+    public String getProviderName() {
+        return providerName;
+    }
+}
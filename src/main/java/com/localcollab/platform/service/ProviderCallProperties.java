@@ -0,0 +1,312 @@
+package com.localcollab.platform.service;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+@ConfigurationProperties(prefix = "platform.providers")
+public class ProviderCallProperties {
+
+    /**
+     * Size of the platform-thread pool for outbound provider calls; ignored when virtual threads are enabled.
+     */
+    private int callThreads = 200;
+
+    /**
+     * Model requested from API providers when a prompt does not name one.
+     */
+    private String defaultModel = "llama3";
+
+    private Duration connectTimeout = Duration.ofSeconds(5);
+
+    /**
+     * Time a provider has to answer a prompt, from sending the request to the end of the response.
+     */
+    private Duration requestTimeout = Duration.ofMinutes(2);
+
+    private final Cache cache = new Cache();
+
+    private final CircuitBreaker circuitBreaker = new CircuitBreaker();
+
+    private final Limits limits = new Limits();
+
+    public int getCallThreads() {
+        return callThreads;
+    }
+
+    public void setCallThreads(int callThreads) {
+        this.callThreads = callThreads;
+    }
+
+    public String getDefaultModel() {
+        return defaultModel;
+    }
+
+    public void setDefaultModel(String defaultModel) {
+        this.defaultModel = defaultModel;
+    }
+
+    public Duration getConnectTimeout() {
+        return connectTimeout;
+    }
+
+    public void setConnectTimeout(Duration connectTimeout) {
+        this.connectTimeout = connectTimeout;
+    }
+
+    public Duration getRequestTimeout() {
+        return requestTimeout;
+    }
+
+    public void setRequestTimeout(Duration requestTimeout) {
+        this.requestTimeout = requestTimeout;
+    }
+
+    public Cache getCache() {
+        return cache;
+    }
+
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    public Limits getLimits() {
+        return limits;
+    }
+
+    public static class Cache {
+
+        /**
+         * Completions kept, least recently used evicted first; 0 disables the cache.
+         */
+        private int maxEntries = 1000;
+
+        /**
+         * How long a completion is reused after the provider returned it.
+         */
+        private Duration ttl = Duration.ofSeconds(30);
+
+        public int getMaxEntries() {
+            return maxEntries;
+        }
+
+        public void setMaxEntries(int maxEntries) {
+            this.maxEntries = maxEntries;
+        }
+
+        public Duration getTtl() {
+            return ttl;
+        }
+
+        public void setTtl(Duration ttl) {
+            this.ttl = ttl;
+        }
+    }
+
+    public static class CircuitBreaker {
+
+        /**
+         * Number of most recent calls whose outcomes decide whether the circuit opens.
+         */
+        private int windowSize = 20;
+
+        /**
+         * Calls needed in the window before its rates are trusted.
+         */
+        private int minimumCalls = 5;
+
+        /**
+         * Percentage of failed calls that opens the circuit.
+         */
+        private float failureRateThreshold = 50;
+
+        /**
+         * Successful calls at least this long count as slow.
+         */
+        private Duration slowCallDuration = Duration.ofSeconds(60);
+
+        /**
+         * Percentage of slow calls that opens the circuit.
+         */
+        private float slowCallRateThreshold = 80;
+
+        /**
+         * Backoff after the first opening; it doubles with each consecutive one, up to {@code maxOpenWait}.
+         */
+        private Duration openWait = Duration.ofSeconds(5);
+
+        private Duration maxOpenWait = Duration.ofMinutes(5);
+
+        /**
+         * Calls let through while half-open; all must succeed for the circuit to close.
+         */
+        private int halfOpenProbes = 2;
+
+        public int getWindowSize() {
+            return windowSize;
+        }
+
+        public void setWindowSize(int windowSize) {
+            this.windowSize = windowSize;
+        }
+
+        public int getMinimumCalls() {
+            return minimumCalls;
+        }
+
+        public void setMinimumCalls(int minimumCalls) {
+            this.minimumCalls = minimumCalls;
+        }
+
+        public float getFailureRateThreshold() {
+            return failureRateThreshold;
+        }
+
+        public void setFailureRateThreshold(float failureRateThreshold) {
+            this.failureRateThreshold = failureRateThreshold;
+        }
+
+        public Duration getSlowCallDuration() {
+            return slowCallDuration;
+        }
+
+        public void setSlowCallDuration(Duration slowCallDuration) {
+            this.slowCallDuration = slowCallDuration;
+        }
+
+        public float getSlowCallRateThreshold() {
+            return slowCallRateThreshold;
+        }
+
+        public void setSlowCallRateThreshold(float slowCallRateThreshold) {
+            this.slowCallRateThreshold = slowCallRateThreshold;
+        }
+
+        public Duration getOpenWait() {
+            return openWait;
+        }
+
+        public void setOpenWait(Duration openWait) {
+            this.openWait = openWait;
+        }
+
+        public Duration getMaxOpenWait() {
+            return maxOpenWait;
+        }
+
+        public void setMaxOpenWait(Duration maxOpenWait) {
+            this.maxOpenWait = maxOpenWait;
+        }
+
+        public int getHalfOpenProbes() {
+            return halfOpenProbes;
+        }
+
+        public void setHalfOpenProbes(int halfOpenProbes) {
+            this.halfOpenProbes = halfOpenProbes;
+        }
+    }
+
+    /**
+     * Rate limits and concurrency bulkheads for provider calls, applied per adapter and per provider name (across all
+     * rooms). A call waits until both admit it.
+     */
+    public static class Limits {
+
+        private final Limit adapter = new Limit(8);
+
+        private final Limit provider = new Limit(16);
+
+        /**
+         * Per-provider-name overrides of {@code provider}, keyed by provider name (case-insensitive).
+         */
+        private final Map<String, Limit> providers = new HashMap<>();
+
+        public Limit getAdapter() {
+            return adapter;
+        }
+
+        public Limit getProvider() {
+            return provider;
+        }
+
+        public Map<String, Limit> getProviders() {
+            return providers;
+        }
+
+        /**
+         * The limit for calls to {@code providerName} across rooms.
+         */
+        public Limit forProvider(String providerName) {
+            return providers.entrySet().stream()
+                    .filter(entry -> entry.getKey().equalsIgnoreCase(providerName))
+                    .map(Map.Entry::getValue)
+                    .findFirst()
+                    .orElse(provider);
+        }
+    }
+
+    public static class Limit {
+
+        /**
+         * Calls allowed in flight at once; 0 for no limit.
+         */
+        private int maxInFlight;
+
+        /**
+         * Calls started per second, refilled continuously (token bucket); 0 for no limit.
+         */
+        private double rate;
+
+        /**
+         * Calls that may start back to back after an idle period; defaults to one second's worth of {@code rate}.
+         */
+        private int burst;
+
+        /**
+         * Calls allowed to wait for admission; further calls fail at once. 0 for no limit.
+         */
+        private int maxQueued = 1000;
+
+        public Limit() {
+        }
+
+        Limit(int maxInFlight) {
+            this.maxInFlight = maxInFlight;
+        }
+
+        public int getMaxInFlight() {
+            return maxInFlight;
+        }
+
+        public void setMaxInFlight(int maxInFlight) {
+            this.maxInFlight = maxInFlight;
+        }
+
+        public double getRate() {
+            return rate;
+        }
+
+        public void setRate(double rate) {
+            this.rate = rate;
+        }
+
+        public int getBurst() {
+            return burst;
+        }
+
+        public void setBurst(int burst) {
+            this.burst = burst;
+        }
+
+        public int getMaxQueued() {
+            return maxQueued;
+        }
+
+        public void setMaxQueued(int maxQueued) {
+            this.maxQueued = maxQueued;
+        }
+    }
+}
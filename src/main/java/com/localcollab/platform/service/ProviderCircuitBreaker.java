@@ -0,0 +1,195 @@
+package com.localcollab.platform.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+import java.util.random.RandomGenerator;
+
+/**
+ * Circuit breaker for one provider adapter, so a failing provider is given time to recover instead of being called
+ * (and stalling its callers) over and over.
+ * <p>
+ * While {@code CLOSED}, the outcomes of the last {@code windowSize} calls are kept; once at least
+ * {@code minimumCalls} are recorded and the failure rate or the slow-call rate reaches its threshold, the circuit
+ * opens. An open circuit rejects calls for a backoff that doubles with every consecutive opening, up to a maximum, and
+ * is randomized to between half and all of that time so adapters that failed together do not retry in lockstep. It
+ * then lets {@code halfOpenProbes} calls through: if they all succeed in time the circuit closes, otherwise it opens
+ * again with the next backoff.
+ */
+public final class ProviderCircuitBreaker {
+
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private final ProviderCallProperties.CircuitBreaker settings;
+    private final LongSupplier nanoClock;
+    private final RandomGenerator random;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final boolean[] failed;
+    private final boolean[] slow;
+    private int recorded;
+    private int next;
+    private State state = State.CLOSED;
+    private int openings;
+    private long openUntilNanos;
+    private Instant retryAt;
+    private int probesInFlight;
+    private int probeSuccesses;
+    private String lastFailureReason;
+
+    ProviderCircuitBreaker(ProviderCallProperties.CircuitBreaker settings, LongSupplier nanoClock, RandomGenerator random) {
+        if (settings.getWindowSize() < 1 || settings.getHalfOpenProbes() < 1) {
+            throw new IllegalArgumentException("Circuit breaker window size and half-open probes must be positive");
+        }
+        this.settings = settings;
+        this.nanoClock = nanoClock;
+        this.random = random;
+        this.failed = new boolean[settings.getWindowSize()];
+        this.slow = new boolean[settings.getWindowSize()];
+    }
+
+    /**
+     * Asks to make a call. Every permitted call must be followed by {@link #onSuccess} or {@link #onFailure}.
+     *
+     * @return {@code false} if the circuit is open, or half-open with all probes taken
+     */
+    public boolean tryAcquire() {
+        lock.lock();
+        try {
+            if (state == State.OPEN && nanoClock.getAsLong() - openUntilNanos >= 0) {
+                transition(State.HALF_OPEN);
+            }
+            return switch (state) {
+                case CLOSED -> true;
+                case OPEN -> false;
+                case HALF_OPEN -> {
+                    if (probesInFlight >= settings.getHalfOpenProbes()) {
+                        yield false;
+                    }
+                    probesInFlight++;
+                    yield true;
+                }
+            };
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void onSuccess(Duration elapsed) {
+        record(false, elapsed.compareTo(settings.getSlowCallDuration()) >= 0, null);
+    }
+
+    public void onFailure(String reason) {
+        record(true, false, reason == null ? "" : reason.trim());
+    }
+
+    /**
+     * Closes the circuit whatever its state, with an empty window and the backoff back at its first step; for an
+     * operator or driver reporting that the provider has recovered. The last failure reason is kept.
+     */
+    public void reset() {
+        lock.lock();
+        try {
+            openings = 0;
+            transition(State.CLOSED);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public ProviderCircuitStatus status() {
+        lock.lock();
+        try {
+            if (state == State.OPEN && nanoClock.getAsLong() - openUntilNanos >= 0) {
+                transition(State.HALF_OPEN);
+            }
+            return new ProviderCircuitStatus(state, recorded, rate(count(failed)), rate(count(slow)), openings,
+                    state == State.OPEN ? retryAt : null, lastFailureReason);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public State state() {
+        lock.lock();
+        try {
+            return state;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void record(boolean failure, boolean slowCall, String reason) {
+        lock.lock();
+        try {
+            if (failure) {
+                lastFailureReason = reason;
+            }
+            switch (state) {
+                case CLOSED -> {
+                    failed[next] = failure;
+                    slow[next] = slowCall;
+                    next = (next + 1) % failed.length;
+                    recorded = Math.min(recorded + 1, failed.length);
+                    if (recorded >= settings.getMinimumCalls() && exceedsThresholds()) {
+                        open();
+                    }
+                }
+                case HALF_OPEN -> {
+                    // Outcomes reported without a permit (for example by a room driver) count as probes too.
+                    probesInFlight = Math.max(0, probesInFlight - 1);
+                    if (failure || slowCall) {
+                        open();
+                    } else if (++probeSuccesses >= settings.getHalfOpenProbes()) {
+                        openings = 0;
+                        transition(State.CLOSED);
+                    }
+                }
+                case OPEN -> {
+                    // A call that started before the circuit opened; its outcome no longer matters.
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean exceedsThresholds() {
+        return rate(count(failed)) >= settings.getFailureRateThreshold() || rate(count(slow)) >= settings.getSlowCallRateThreshold();
+    }
+
+    private void open() {
+        openings++;
+        long base = settings.getOpenWait().toNanos();
+        long max = settings.getMaxOpenWait().toNanos();
+        long backoff = openings > 62 || base > max >> (openings - 1) ? max : base << (openings - 1);
+        long wait = backoff / 2 + random.nextLong(backoff / 2 + 1);
+        openUntilNanos = nanoClock.getAsLong() + wait;
+        retryAt = Instant.now().plusNanos(wait);
+        transition(State.OPEN);
+    }
+
+    private void transition(State target) {
+        state = target;
+        recorded = 0;
+        next = 0;
+        probesInFlight = 0;
+        probeSuccesses = 0;
+    }
+
+    private float rate(int count) {
+        return recorded == 0 ? 0 : count * 100f / recorded;
+    }
+
+    private int count(boolean[] outcomes) {
+        int count = 0;
+        for (int i = 0; i < recorded; i++) {
+            count += outcomes[i] ? 1 : 0;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,50 @@
+package com.localcollab.platform.service;
+
+import com.localcollab.platform.domain.ProviderAdapter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * The {@link ProviderCircuitBreaker} of every provider adapter, created on first use with the
+ * {@code platform.providers.circuit-breaker} settings. Each breaker's state is exported as
+ * {@code provider.circuit.state{provider,adapter}} (0 closed, 1 open, 2 half-open).
+ */
+@Component
+public class ProviderCircuitBreakers {
+
+    private final Map<UUID, ProviderCircuitBreaker> breakers = new ConcurrentHashMap<>();
+    private final ProviderCallProperties.CircuitBreaker settings;
+    private final MeterRegistry meterRegistry;
+
+    public ProviderCircuitBreakers(ProviderCallProperties properties, MeterRegistry meterRegistry) {
+        this.settings = properties.getCircuitBreaker();
+        this.meterRegistry = meterRegistry;
+    }
+
+    public ProviderCircuitBreaker forAdapter(ProviderAdapter adapter) {
+        return breakers.computeIfAbsent(adapter.getId(), id -> {
+            ProviderCircuitBreaker breaker = new ProviderCircuitBreaker(settings, System::nanoTime, () -> ThreadLocalRandom.current().nextLong());
+            Gauge.builder("provider.circuit.state", breaker, b -> b.state().ordinal())
+                    .tag("provider", adapter.getProviderName())
+                    .tag("adapter", id.toString())
+                    .register(meterRegistry);
+            return breaker;
+        });
+    }
+
+    /**
+     * Status of the adapter's breaker; a closed, empty one if the adapter was never called.
+     */
+    public ProviderCircuitStatus status(ProviderAdapter adapter) {
+        return Optional.ofNullable(breakers.get(adapter.getId()))
+                .map(ProviderCircuitBreaker::status)
+                .orElseGet(() -> new ProviderCircuitStatus(ProviderCircuitBreaker.State.CLOSED, 0, 0, 0, 0, null, null));
+    }
+}
@@ -0,0 +1,23 @@
+package com.localcollab.platform.service;
+
+import java.time.Instant;
+
+/**
+ * A provider call was not attempted because the adapter's circuit breaker is open.
+ */
+public class ProviderCircuitOpenException extends ProviderCallException {
+
+    private final Instant retryAt;
+
+    public ProviderCircuitOpenException(String providerName, Instant retryAt) {
+        super(providerName, providerName + " is failing; calls are suspended" + (retryAt == null ? "" : " until " + retryAt), null);
+        this.retryAt = retryAt;
+    }
+
+    /**
+     * When the breaker lets probes through again, or {@code null} if it is half-open with all probes taken.
+     */
+    public Instant getRetryAt() {
+        return retryAt;
+    }
+}
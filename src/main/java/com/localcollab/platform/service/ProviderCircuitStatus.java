@@ -0,0 +1,21 @@
+package com.localcollab.platform.service;
+
+import java.time.Instant;
+
+/**
+ * Point-in-time view of a {@link ProviderCircuitBreaker}.
+ *
+ * @param calls        outcomes in the current window; the window starts empty whenever the state changes
+ * @param failureRate  percentage of those calls that failed
+ * @param slowCallRate percentage of those calls that succeeded but took at least the slow-call duration
+ * @param openings     consecutive openings, which set the current backoff
+ * @param retryAt      when an open circuit starts letting probes through; {@code null} unless open
+ */
+public record ProviderCircuitStatus(ProviderCircuitBreaker.State state,
+                                    int calls,
+                                    float failureRate,
+                                    float slowCallRate,
+                                    int openings,
+                                    Instant retryAt,
+                                    String lastFailureReason) {
+}
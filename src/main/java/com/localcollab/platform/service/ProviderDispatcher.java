@@ -0,0 +1,352 @@
+package com.localcollab.platform.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.localcollab.platform.domain.ChatMessage;
+import com.localcollab.platform.domain.ProviderAccessMode;
+import com.localcollab.platform.domain.ProviderAdapter;
+import com.localcollab.platform.domain.Room;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Sends prompts to API-mode provider adapters and writes their completions back into the room.
+ * <p>
+ * Calls go out through the shared {@link HttpClient}, which pools connections and negotiates HTTP/2 where the
+ * provider supports it. No thread waits for a provider: the request is sent asynchronously and the completion is
+ * handed to the provider call executor to be written back, so any number of prompts can be in flight per adapter.
+ * Each adapter's calls pass its {@link ProviderCircuitBreaker}: while a provider keeps failing, prompts to it fail
+ * fast with {@link ProviderCircuitOpenException} instead of waiting on it, and it is probed again after a backoff.
+ * Before that, calls wait for admission by {@link ProviderLimits}, which caps their rate and concurrency per adapter
+ * and per provider name, queueing rooms fairly.
+ * <p>
+ * Providers speak the {@code Local API} wire format: {@code POST <endpoint>/generate} with
+ * {@code {"model", "prompt", "stream": false}}, answered by {@code {"response": "..."}}. Streamed prompts send
+ * {@code "stream": true} and read the answer as newline-delimited JSON objects of the same shape, one per chunk.
+ */
+@Service
+public class ProviderDispatcher {
+
+    private static final String GENERATE_PATH = "/generate";
+
+    private final RoomService roomService;
+    private final HttpClient httpClient;
+    private final Executor callExecutor;
+    private final ObjectMapper objectMapper;
+    private final ProviderCallProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final ProviderResponseCache cache;
+    private final ProviderCircuitBreakers circuitBreakers;
+    private final ProviderLimits limits;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    public ProviderDispatcher(RoomService roomService,
+                              HttpClient providerHttpClient,
+                              @Qualifier("providerCallExecutor") Executor providerCallExecutor,
+                              ObjectMapper objectMapper,
+                              ProviderCallProperties properties,
+                              ProviderCircuitBreakers circuitBreakers,
+                              ProviderLimits limits,
+                              MeterRegistry meterRegistry) {
+        this.roomService = roomService;
+        this.httpClient = providerHttpClient;
+        this.callExecutor = providerCallExecutor;
+        this.objectMapper = objectMapper;
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.circuitBreakers = circuitBreakers;
+        this.limits = limits;
+        this.cache = new ProviderResponseCache(properties.getCache().getMaxEntries(), properties.getCache().getTtl(), meterRegistry);
+        Gauge.builder("provider.calls.in.flight", inFlight, AtomicInteger::get).register(meterRegistry);
+    }
+
+    /**
+     * Prompts one of the room's API adapters and applies {@code reply} to its completion, for example to post it as a
+     * chat message or an artifact. The future fails with {@link ProviderCallException} when the provider fails, or
+     * with the room's usual validation exceptions when the write-back is rejected.
+     *
+     * @throws IllegalArgumentException if the room or adapter does not exist
+     * @throws IllegalStateException    if the adapter cannot be called over HTTP
+     */
+    public <T> CompletableFuture<RoomUpdate<T>> dispatch(UUID roomId, UUID adapterId, ProviderPrompt prompt, Function<String, RoomCommand<T>> reply) {
+        Room room = roomService.getRoom(roomId);
+        if (room == null) {
+            throw new IllegalArgumentException("Room not found: " + roomId);
+        }
+        ProviderAdapter adapter = room.findProviderAdapter(adapterId)
+                .orElseThrow(() -> new IllegalArgumentException("Provider adapter not found: " + adapterId));
+        return call(roomId, adapter, prompt)
+                .thenComposeAsync(completion -> roomService.submit(roomId, reply.apply(completion)), callExecutor);
+    }
+
+    /**
+     * Prompts one of the room's API adapters and streams the completion into a chat message by {@code participantId}:
+     * subscribers receive each chunk as the provider produces it, and the message is posted once the provider is done.
+     * If the provider fails part-way the message is cancelled and the future fails with {@link ProviderCallException}.
+     *
+     * @throws IllegalArgumentException if the room, adapter or participant does not exist
+     * @throws IllegalStateException    if the adapter cannot be called over HTTP or the room is paused
+     */
+    public CompletableFuture<RoomUpdate<ChatMessage>> stream(UUID roomId, UUID adapterId, ProviderPrompt prompt, UUID participantId) {
+        Room room = roomService.getRoom(roomId);
+        if (room == null) {
+            throw new IllegalArgumentException("Room not found: " + roomId);
+        }
+        ProviderAdapter adapter = room.findProviderAdapter(adapterId)
+                .orElseThrow(() -> new IllegalArgumentException("Provider adapter not found: " + adapterId));
+        HttpRequest request = generateRequest(adapter, prompt, true);
+        MessageStream message = roomService.openMessageStream(roomId, participantId);
+        ChunkSubscriber chunks = new ChunkSubscriber(adapter, message);
+        HttpResponse.BodyHandler<Void> handler = info -> info.statusCode() / 100 == 2
+                ? HttpResponse.BodySubscribers.fromLineSubscriber(chunks)
+                : HttpResponse.BodySubscribers.replacing(null);
+        CompletableFuture<ProviderLimits.Permit> admission;
+        try {
+            admission = limits.acquire(roomId, adapter);
+        } catch (RuntimeException ex) {
+            message.cancel();
+            throw ex;
+        }
+        return admission
+                .thenCompose(permit -> {
+                    ProviderCircuitBreaker breaker = circuitBreakers.forAdapter(adapter);
+                    if (!breaker.tryAcquire()) {
+                        permit.release();
+                        message.cancel();
+                        return CompletableFuture.<MessageStream>failedFuture(rejected(adapter, breaker));
+                    }
+                    Timer.Sample sample = Timer.start(meterRegistry);
+                    long started = System.nanoTime();
+                    inFlight.incrementAndGet();
+                    return exchange(request, handler)
+                            .handle((response, failure) -> {
+                                permit.release();
+                                inFlight.decrementAndGet();
+                                try {
+                                    chunks.ensureComplete(response, failure);
+                                    breaker.onSuccess(Duration.ofNanos(System.nanoTime() - started));
+                                    sample.stop(callTimer(adapter, "success"));
+                                    return message;
+                                } catch (ProviderCallException ex) {
+                                    breaker.onFailure(ex.getMessage());
+                                    sample.stop(callTimer(adapter, "error"));
+                                    message.cancel();
+                                    throw ex;
+                                }
+                            });
+                })
+                .thenComposeAsync(MessageStream::finish, callExecutor)
+                // Covers failures before the call too, such as a rejected admission: the message must not stay open.
+                .whenComplete((update, failure) -> {
+                    if (failure != null) {
+                        message.cancel();
+                    }
+                });
+    }
+
+    /**
+     * Completes with the provider's completion text for one prompt sent on behalf of {@code roomId}. A prompt repeated
+     * while its completion is cached, or while the same prompt is still in flight, is answered without another
+     * provider call.
+     */
+    public CompletableFuture<String> call(UUID roomId, ProviderAdapter adapter, ProviderPrompt prompt) {
+        HttpRequest request = generateRequest(adapter, prompt, false);
+        return cache.get(ProviderResponseCache.Key.of(adapter, model(prompt), prompt.prompt()), () -> send(roomId, adapter, request));
+    }
+
+    private CompletableFuture<String> send(UUID roomId, ProviderAdapter adapter, HttpRequest request) {
+        return limits.acquire(roomId, adapter).thenCompose(permit -> {
+            ProviderCircuitBreaker breaker = circuitBreakers.forAdapter(adapter);
+            if (!breaker.tryAcquire()) {
+                permit.release();
+                return CompletableFuture.failedFuture(rejected(adapter, breaker));
+            }
+            Timer.Sample sample = Timer.start(meterRegistry);
+            long started = System.nanoTime();
+            inFlight.incrementAndGet();
+            return exchange(request, HttpResponse.BodyHandlers.ofByteArray())
+                    .handle((response, failure) -> {
+                        permit.release();
+                        inFlight.decrementAndGet();
+                        try {
+                            String completion = decode(adapter, response, failure);
+                            breaker.onSuccess(Duration.ofNanos(System.nanoTime() - started));
+                            sample.stop(callTimer(adapter, "success"));
+                            return completion;
+                        } catch (ProviderCallException ex) {
+                            breaker.onFailure(ex.getMessage());
+                            sample.stop(callTimer(adapter, "error"));
+                            throw ex;
+                        }
+                    });
+        });
+    }
+
+    private ProviderCircuitOpenException rejected(ProviderAdapter adapter, ProviderCircuitBreaker breaker) {
+        Counter.builder("provider.calls.rejected")
+                .description("Provider calls refused by an open circuit breaker")
+                .tag("provider", adapter.getProviderName())
+                .register(meterRegistry)
+                .increment();
+        return new ProviderCircuitOpenException(adapter.getProviderName(), breaker.status().retryAt());
+    }
+
+    private String model(ProviderPrompt prompt) {
+        return prompt.model() == null || prompt.model().isBlank() ? properties.getDefaultModel() : prompt.model();
+    }
+
+    private HttpRequest generateRequest(ProviderAdapter adapter, ProviderPrompt prompt, boolean stream) {
+        return HttpRequest.newBuilder(generateUri(adapter))
+                .timeout(properties.getRequestTimeout())
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(encode(adapter, prompt, stream)))
+                .build();
+    }
+
+    private URI generateUri(ProviderAdapter adapter) {
+        if (adapter.getAccessMode() != ProviderAccessMode.API) {
+            throw new IllegalStateException(adapter.getProviderName() + " is not an API provider");
+        }
+        if (!adapter.isAvailable()) {
+            throw new IllegalStateException(adapter.getProviderName() + " is not available");
+        }
+        String endpoint = adapter.getEndpoint();
+        if (endpoint == null || endpoint.isBlank()) {
+            throw new IllegalStateException(adapter.getProviderName() + " has no endpoint");
+        }
+        try {
+            String base = endpoint.endsWith("/") ? endpoint.substring(0, endpoint.length() - 1) : endpoint;
+            return URI.create(base + GENERATE_PATH);
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalStateException(adapter.getProviderName() + " has an invalid endpoint: " + endpoint, ex);
+        }
+    }
+
+    private byte[] encode(ProviderAdapter adapter, ProviderPrompt prompt, boolean stream) {
+        try {
+            return objectMapper.writeValueAsBytes(Map.of("model", model(prompt), "prompt", prompt.prompt(), "stream", stream));
+        } catch (JsonProcessingException ex) {
+            throw new IllegalArgumentException("Unable to encode prompt for " + adapter.getProviderName(), ex);
+        }
+    }
+
+    /**
+     * Sends the request, turning a synchronous rejection by the client into a failed exchange, so callers settle the
+     * permit, the in-flight count and the circuit breaker on one path.
+     */
+    private <T> CompletableFuture<HttpResponse<T>> exchange(HttpRequest request, HttpResponse.BodyHandler<T> handler) {
+        try {
+            return httpClient.sendAsync(request, handler);
+        } catch (RuntimeException ex) {
+            return CompletableFuture.failedFuture(ex);
+        }
+    }
+
+    private String decode(ProviderAdapter adapter, HttpResponse<byte[]> response, Throwable failure) {
+        ensureSuccessful(adapter, response, failure);
+        try {
+            return responseText(adapter, objectMapper.readTree(response.body()));
+        } catch (IOException ex) {
+            throw new ProviderCallException(adapter.getProviderName(), adapter.getProviderName() + " answered malformed JSON", ex);
+        }
+    }
+
+    private static void ensureSuccessful(ProviderAdapter adapter, HttpResponse<?> response, Throwable failure) {
+        String provider = adapter.getProviderName();
+        if (failure != null) {
+            Throwable cause = failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure;
+            throw new ProviderCallException(provider, provider + " call failed: " + cause, cause);
+        }
+        if (response.statusCode() / 100 != 2) {
+            throw new ProviderCallException(provider, provider + " answered HTTP " + response.statusCode(), null);
+        }
+    }
+
+    private static String responseText(ProviderAdapter adapter, JsonNode answer) {
+        JsonNode completion = answer.get("response");
+        if (completion == null || !completion.isTextual()) {
+            String provider = adapter.getProviderName();
+            throw new ProviderCallException(provider, provider + " answered without a response text", null);
+        }
+        return completion.asText();
+    }
+
+    private Timer callTimer(ProviderAdapter adapter, String outcome) {
+        return Timer.builder("provider.calls")
+                .tag("provider", adapter.getProviderName())
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Appends each line of a streamed answer to the message as it arrives, on the HTTP client's executor. After the
+     * first malformed line the rest of the body is skipped; the failure is reported once the exchange completes.
+     */
+    private final class ChunkSubscriber implements Flow.Subscriber<String> {
+
+        private final ProviderAdapter adapter;
+        private final MessageStream message;
+        private volatile RuntimeException failure;
+
+        private ChunkSubscriber(ProviderAdapter adapter, MessageStream message) {
+            this.adapter = adapter;
+            this.message = message;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            subscription.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(String line) {
+            if (failure != null || line.isBlank()) {
+                return;
+            }
+            try {
+                message.append(responseText(adapter, objectMapper.readTree(line)));
+            } catch (IOException ex) {
+                failure = new ProviderCallException(adapter.getProviderName(), adapter.getProviderName() + " answered malformed JSON", ex);
+            } catch (RuntimeException ex) {
+                failure = ex;
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            // Also fails the exchange's future, which reports it.
+        }
+
+        @Override
+        public void onComplete() {
+        }
+
+        void ensureComplete(HttpResponse<?> response, Throwable exchangeFailure) {
+            if (failure != null) {
+                throw failure instanceof ProviderCallException call ? call
+                        : new ProviderCallException(adapter.getProviderName(), adapter.getProviderName() + " stream failed: " + failure.getMessage(), failure);
+            }
+            ensureSuccessful(adapter, response, exchangeFailure);
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package com.localcollab.platform.service;
+
+import io.micrometer.core.instrument.Timer;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Admission gate for provider calls: a token bucket bounding the start rate and a bulkhead bounding the calls in
+ * flight. Callers that cannot start at once wait in per-room queues that are served round-robin, so a room that fans
+ * out many prompts delays its own work rather than every other room's. Waiting never holds a thread. At most
+ * {@code maxQueued} callers wait; beyond that admission fails at once with {@link ProviderQueueFullException}.
+ */
+final class ProviderLimiter {
+
+    private final String providerName;
+    private final int maxInFlight;
+    private final int maxQueued;
+    private final double permitsPerNano;
+    private final double burst;
+    private final ScheduledExecutorService scheduler;
+    private final LongSupplier nanoClock;
+    private final Timer queueWait;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LinkedHashMap<UUID, ArrayDeque<Waiter>> queues = new LinkedHashMap<>();
+    private int inFlight;
+    private int queued;
+    private double tokens;
+    private long refilledAt;
+    private boolean wakeUpScheduled;
+
+    ProviderLimiter(String providerName, ProviderCallProperties.Limit limit, ScheduledExecutorService scheduler, LongSupplier nanoClock, Timer queueWait) {
+        if (limit.getMaxInFlight() < 0 || limit.getRate() < 0 || limit.getBurst() < 0 || limit.getMaxQueued() < 0) {
+            throw new IllegalArgumentException("Provider limits must not be negative");
+        }
+        this.providerName = providerName;
+        this.maxInFlight = limit.getMaxInFlight();
+        this.maxQueued = limit.getMaxQueued();
+        this.permitsPerNano = limit.getRate() / TimeUnit.SECONDS.toNanos(1);
+        this.burst = limit.getBurst() > 0 ? limit.getBurst() : Math.max(1, Math.ceil(limit.getRate()));
+        this.scheduler = scheduler;
+        this.nanoClock = nanoClock;
+        this.queueWait = queueWait;
+        this.tokens = burst;
+        this.refilledAt = nanoClock.getAsLong();
+    }
+
+    boolean isUnlimited() {
+        return maxInFlight == 0 && permitsPerNano == 0;
+    }
+
+    /**
+     * Completes once the call may start; the caller must then {@link #release()} when it ends. Cancelling the future
+     * gives up the place in the queue. Fails with {@link ProviderQueueFullException} if {@code maxQueued} callers are
+     * already waiting.
+     */
+    CompletableFuture<Void> acquire(UUID roomId) {
+        Waiter waiter = new Waiter(nanoClock.getAsLong());
+        List<Waiter> admitted;
+        lock.lock();
+        try {
+            if (maxQueued > 0 && queued >= maxQueued) {
+                return CompletableFuture.failedFuture(new ProviderQueueFullException(providerName, maxQueued));
+            }
+            queues.computeIfAbsent(roomId, id -> new ArrayDeque<>()).add(waiter);
+            queued++;
+            admitted = admit();
+        } finally {
+            lock.unlock();
+        }
+        complete(admitted);
+        waiter.admitted.whenComplete((ignored, failure) -> {
+            if (waiter.admitted.isCancelled()) {
+                remove(roomId, waiter);
+            }
+        });
+        return waiter.admitted;
+    }
+
+    void release() {
+        List<Waiter> admitted;
+        lock.lock();
+        try {
+            inFlight--;
+            admitted = admit();
+        } finally {
+            lock.unlock();
+        }
+        complete(admitted);
+    }
+
+    int queued() {
+        lock.lock();
+        try {
+            return queued;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void remove(UUID roomId, Waiter waiter) {
+        lock.lock();
+        try {
+            ArrayDeque<Waiter> queue = queues.get(roomId);
+            // Not found if admit() took it first; it then skips the cancelled waiter or complete() hands its slot on.
+            if (queue != null && queue.remove(waiter)) {
+                queued--;
+                if (queue.isEmpty()) {
+                    queues.remove(roomId);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private List<Waiter> admit() {
+        List<Waiter> admitted = new ArrayList<>();
+        refill();
+        while (!queues.isEmpty()) {
+            if (maxInFlight > 0 && inFlight >= maxInFlight) {
+                break;
+            }
+            if (permitsPerNano > 0 && tokens < 1) {
+                scheduleWakeUp();
+                break;
+            }
+            // The room at the head is served one call, then moves to the back of the rotation.
+            Iterator<Map.Entry<UUID, ArrayDeque<Waiter>>> head = queues.entrySet().iterator();
+            Map.Entry<UUID, ArrayDeque<Waiter>> room = head.next();
+            head.remove();
+            Waiter waiter = room.getValue().poll();
+            queued--;
+            if (!room.getValue().isEmpty()) {
+                queues.put(room.getKey(), room.getValue());
+            }
+            if (waiter.admitted.isDone()) {
+                continue;
+            }
+            inFlight++;
+            if (permitsPerNano > 0) {
+                tokens -= 1;
+            }
+            admitted.add(waiter);
+        }
+        return admitted;
+    }
+
+    private void refill() {
+        long now = nanoClock.getAsLong();
+        if (permitsPerNano > 0) {
+            tokens = Math.min(burst, tokens + (now - refilledAt) * permitsPerNano);
+        }
+        refilledAt = now;
+    }
+
+    private void scheduleWakeUp() {
+        if (wakeUpScheduled) {
+            return;
+        }
+        wakeUpScheduled = true;
+        long delay = (long) Math.ceil((1 - tokens) / permitsPerNano);
+        scheduler.schedule(this::wakeUp, delay, TimeUnit.NANOSECONDS);
+    }
+
+    private void wakeUp() {
+        List<Waiter> admitted;
+        lock.lock();
+        try {
+            wakeUpScheduled = false;
+            admitted = admit();
+        } finally {
+            lock.unlock();
+        }
+        complete(admitted);
+    }
+
+    private void complete(List<Waiter> admitted) {
+        long now = nanoClock.getAsLong();
+        for (Waiter waiter : admitted) {
+            queueWait.record(now - waiter.enqueuedAt, TimeUnit.NANOSECONDS);
+            if (!waiter.admitted.complete(null)) {
+                // Cancelled after it was admitted; hand the slot on.
+                release();
+            }
+        }
+    }
+
+    private static final class Waiter {
+
+        private final long enqueuedAt;
+        private final CompletableFuture<Void> admitted = new CompletableFuture<>();
+
+        private Waiter(long enqueuedAt) {
+            this.enqueuedAt = enqueuedAt;
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.localcollab.platform.service;
+
+import com.localcollab.platform.domain.ProviderAdapter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.io.Closeable;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Admits provider calls through two {@link ProviderLimiter}s: the adapter's own, then the one shared by every adapter
+ * with the same provider name, whichever room it belongs to. Limits come from {@code platform.providers.limits}.
+ * Queue wait is reported as {@code provider.queue.wait{scope,provider}}, with {@code scope} {@code adapter} or
+ * {@code provider}, and the queue length as {@code provider.queue.depth{provider}}.
+ */
+@Component
+public class ProviderLimits implements Closeable {
+
+    private static final Permit UNLIMITED = () -> {
+    };
+
+    private final ProviderCallProperties.Limits limits;
+    private final MeterRegistry meterRegistry;
+    private final Map<UUID, ProviderLimiter> adapterLimiters = new ConcurrentHashMap<>();
+    private final Map<String, ProviderLimiter> providerLimiters = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("provider-limits").daemon().factory());
+
+    public ProviderLimits(ProviderCallProperties properties, MeterRegistry meterRegistry) {
+        this.limits = properties.getLimits();
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Completes with a permit once a call to {@code adapter} on behalf of {@code roomId} may start. The permit must be
+     * released when the call ends. Cancelling the future leaves both queues, and a slot granted after the caller has
+     * gone is handed back. Fails with {@link ProviderQueueFullException} if either queue is full.
+     */
+    public CompletableFuture<Permit> acquire(UUID roomId, ProviderAdapter adapter) {
+        ProviderLimiter own = adapterLimiters.computeIfAbsent(adapter.getId(),
+                id -> limiter(limits.getAdapter(), "adapter", adapter.getProviderName()));
+        ProviderLimiter shared = providerLimiters.computeIfAbsent(adapter.getProviderName().toLowerCase(Locale.ROOT),
+                name -> limiter(limits.forProvider(adapter.getProviderName()), "provider", adapter.getProviderName()));
+        if (own.isUnlimited() && shared.isUnlimited()) {
+            return CompletableFuture.completedFuture(UNLIMITED);
+        }
+        CompletableFuture<Permit> permit = new CompletableFuture<>();
+        AtomicReference<CompletableFuture<Void>> sharedAdmission = new AtomicReference<>();
+        // Always adapter first, then provider: the adapter slot is held while waiting for the shared one, never the
+        // other way round.
+        CompletableFuture<Void> ownAdmission = admit(own, roomId);
+        ownAdmission.whenComplete((ignored, ownFailure) -> {
+            if (ownFailure != null) {
+                permit.completeExceptionally(ownFailure);
+                return;
+            }
+            if (permit.isDone()) {
+                release(own);
+                return;
+            }
+            CompletableFuture<Void> next = admit(shared, roomId);
+            sharedAdmission.set(next);
+            if (permit.isDone()) {
+                next.cancel(false);
+            }
+            next.whenComplete((ignoredToo, sharedFailure) -> {
+                if (sharedFailure != null) {
+                    release(own);
+                    permit.completeExceptionally(sharedFailure);
+                    return;
+                }
+                Permit both = both(own, shared);
+                if (!permit.complete(both)) {
+                    both.release();
+                }
+            });
+        });
+        permit.whenComplete((ignored, failure) -> {
+            if (permit.isCancelled()) {
+                ownAdmission.cancel(false);
+                CompletableFuture<Void> next = sharedAdmission.get();
+                if (next != null) {
+                    next.cancel(false);
+                }
+            }
+        });
+        return permit;
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+
+    private static CompletableFuture<Void> admit(ProviderLimiter limiter, UUID roomId) {
+        return limiter.isUnlimited() ? CompletableFuture.completedFuture(null) : limiter.acquire(roomId);
+    }
+
+    private static void release(ProviderLimiter limiter) {
+        if (!limiter.isUnlimited()) {
+            limiter.release();
+        }
+    }
+
+    private static Permit both(ProviderLimiter own, ProviderLimiter shared) {
+        AtomicBoolean released = new AtomicBoolean();
+        return () -> {
+            if (released.compareAndSet(false, true)) {
+                release(shared);
+                release(own);
+            }
+        };
+    }
+
+    private ProviderLimiter limiter(ProviderCallProperties.Limit limit, String scope, String providerName) {
+        Timer queueWait = Timer.builder("provider.queue.wait")
+                .description("Time provider calls waited for a rate limit or concurrency slot")
+                .tag("scope", scope)
+                .tag("provider", providerName)
+                .register(meterRegistry);
+        ProviderLimiter limiter = new ProviderLimiter(providerName, limit, scheduler, System::nanoTime, queueWait);
+        if ("provider".equals(scope)) {
+            Gauge.builder("provider.queue.depth", limiter, ProviderLimiter::queued)
+                    .tag("provider", providerName)
+                    .register(meterRegistry);
+        }
+        return limiter;
+    }
+
+    /**
+     * Permission for one provider call; release it exactly once when the call has ended.
+     */
+    @FunctionalInterface
+    public interface Permit {
+        void release();
+    }
+}
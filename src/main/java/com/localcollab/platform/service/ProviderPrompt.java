@@ -0,0 +1,13 @@
+package com.localcollab.platform.service;
+
+/**
+ * A prompt for an API-mode provider. {@code model} may be {@code null} to use {@code platform.providers.default-model}.
+ */
+public record ProviderPrompt(String model, String prompt) {
+
+    public ProviderPrompt {
+        if (prompt == null || prompt.isBlank()) {
+            throw new IllegalArgumentException("Prompt must not be blank");
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.localcollab.platform.service;
+
+/**
+ * A provider call was not attempted because too many calls are already waiting for admission to the provider.
+ */
+public class ProviderQueueFullException extends ProviderCallException {
+
+    public ProviderQueueFullException(String providerName, int maxQueued) {
+        super(providerName, providerName + " already has " + maxQueued + " calls waiting; try again later", null);
+    }
+}
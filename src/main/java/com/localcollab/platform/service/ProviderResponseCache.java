@@ -0,0 +1,176 @@
+package com.localcollab.platform.service;
+
+import com.localcollab.platform.domain.ProviderAdapter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * Completions of recent provider prompts, so that a prompt repeated within the time-to-live is answered without
+ * calling the provider again.
+ * <p>
+ * Entries are keyed by adapter, model and a SHA-256 of the whitespace-normalized prompt, and evicted
+ * least-recently-used once there are more than {@code maxEntries}. A prompt that is already in flight is not sent
+ * again: later callers share the pending call (single flight). Failed calls are never cached.
+ */
+final class ProviderResponseCache {
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final MeterRegistry meterRegistry;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    ProviderResponseCache(int maxEntries, Duration ttl, MeterRegistry meterRegistry) {
+        if (maxEntries < 0) {
+            throw new IllegalArgumentException("Provider cache size must not be negative, got " + maxEntries);
+        }
+        this.maxEntries = maxEntries;
+        this.ttlNanos = ttl.toNanos();
+        this.meterRegistry = meterRegistry;
+        Gauge.builder("provider.cache.size", this, ProviderResponseCache::size)
+                .description("Provider completions cached or in flight")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Returns the cached or pending completion for {@code key}, or calls {@code upstream} and caches its result. With a
+     * size of 0 every call goes upstream.
+     */
+    CompletableFuture<String> get(Key key, Supplier<CompletableFuture<String>> upstream) {
+        if (maxEntries == 0) {
+            return upstream.get();
+        }
+        Entry entry;
+        boolean miss = false;
+        lock.lock();
+        try {
+            entry = entries.get(key);
+            if (entry != null && entry.isExpired(System.nanoTime())) {
+                entries.remove(key);
+                evicted(key, "expired");
+                entry = null;
+            }
+            if (entry == null) {
+                entry = new Entry();
+                entries.put(key, entry);
+                miss = true;
+                evictEldest();
+            }
+        } finally {
+            lock.unlock();
+        }
+        counter("provider.cache.gets", key, "result", miss ? "miss" : "hit").increment();
+        if (miss) {
+            load(key, entry, upstream);
+        }
+        // A copy, so a caller cancelling its future does not cancel it for the others.
+        return entry.result.copy();
+    }
+
+    int size() {
+        lock.lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void load(Key key, Entry entry, Supplier<CompletableFuture<String>> upstream) {
+        CompletableFuture<String> call;
+        try {
+            call = upstream.get();
+        } catch (RuntimeException ex) {
+            remove(key, entry);
+            entry.result.completeExceptionally(ex);
+            throw ex;
+        }
+        call.whenComplete((completion, failure) -> {
+            if (failure != null) {
+                remove(key, entry);
+                entry.result.completeExceptionally(failure);
+            } else {
+                entry.expiresAt = System.nanoTime() + ttlNanos;
+                entry.result.complete(completion);
+            }
+        });
+    }
+
+    private void evictEldest() {
+        Iterator<Map.Entry<Key, Entry>> eldest = entries.entrySet().iterator();
+        while (entries.size() > maxEntries) {
+            Key key = eldest.next().getKey();
+            eldest.remove();
+            evicted(key, "size");
+        }
+    }
+
+    private void remove(Key key, Entry entry) {
+        lock.lock();
+        try {
+            entries.remove(key, entry);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void evicted(Key key, String cause) {
+        counter("provider.cache.evictions", key, "cause", cause).increment();
+    }
+
+    private Counter counter(String name, Key key, String tag, String value) {
+        return Counter.builder(name)
+                .tag("provider", key.provider())
+                .tag("adapter", key.adapterId().toString())
+                .tag(tag, value)
+                .register(meterRegistry);
+    }
+
+    /**
+     * @param adapterId  the adapter called; adapters of the same provider may differ in endpoint, so they never share
+     *                   entries
+     * @param provider   the adapter's provider name, for metric tags only
+     * @param promptHash hex SHA-256 of the prompt with surrounding whitespace trimmed and inner runs collapsed to one
+     *                   space, so prompts differing only in layout share an entry
+     */
+    record Key(UUID adapterId, String provider, String model, String promptHash) {
+
+        static Key of(ProviderAdapter adapter, String model, String prompt) {
+            String normalized = WHITESPACE.matcher(prompt.strip()).replaceAll(" ");
+            try {
+                byte[] digest = MessageDigest.getInstance("SHA-256").digest(normalized.getBytes(StandardCharsets.UTF_8));
+                return new Key(adapter.getId(), adapter.getProviderName(), model, HexFormat.of().formatHex(digest));
+            } catch (NoSuchAlgorithmException ex) {
+                throw new IllegalStateException("SHA-256 is not available", ex);
+            }
+        }
+    }
+
+    private static final class Entry {
+
+        private final CompletableFuture<String> result = new CompletableFuture<>();
+        private volatile long expiresAt;
+
+        boolean isExpired(long now) {
+            // expiresAt is written before the result completes, so a done result always has it set.
+            return result.isDone() && now - expiresAt > 0;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.localcollab.platform.service;
+
+import com.localcollab.platform.persistence.RoomLogProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodically snapshots rooms and compacts the room log while it is enabled, plus one final checkpoint on shutdown
+ * so the next start restores from snapshots instead of replaying the tail of the log.
+ */
+@Component
+public class RoomCheckpointScheduler implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(RoomCheckpointScheduler.class);
+
+    private final RoomService roomService;
+    private final RoomLogProperties properties;
+    private ScheduledExecutorService executor;
+
+    public RoomCheckpointScheduler(RoomService roomService, RoomLogProperties properties) {
+        this.roomService = roomService;
+        this.properties = properties;
+    }
+
+    @Override
+    public void start() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        long intervalMillis = Math.max(1, properties.getSnapshotInterval().toMillis());
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "room-checkpoint");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::checkpointQuietly, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void stop() {
+        if (executor == null) {
+            return;
+        }
+        executor.shutdown();
+        try {
+            executor.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        executor = null;
+        checkpointQuietly();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return executor != null;
+    }
+
+    private void checkpointQuietly() {
+        try {
+            long start = System.nanoTime();
+            int written = roomService.checkpoint();
+            if (written > 0) {
+                log.info("Checkpointed {} rooms in {} ms", written, (System.nanoTime() - start) / 1_000_000);
+            }
+        } catch (RuntimeException ex) {
+            log.error("Room checkpoint failed", ex);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.localcollab.platform.service;
+
+import com.localcollab.platform.domain.Artifact;
+import com.localcollab.platform.domain.ArtifactType;
+import com.localcollab.platform.domain.ChatMessage;
+import com.localcollab.platform.domain.DriverStatus;
+import com.localcollab.platform.domain.Participant;
+import com.localcollab.platform.domain.ProviderAccessMode;
+import com.localcollab.platform.domain.ProviderAdapter;
+import com.localcollab.platform.domain.TaskLane;
+import com.localcollab.platform.domain.TaskLaneState;
+
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * A mutation of one room, executed by {@link RoomService#execute(UUID, RoomCommand)} under the room lock.
+ *
+ * @param <T> the entity the command creates or changes
+ */
+public sealed interface RoomCommand<T> {
+
+    record AddParticipant(Participant participant) implements RoomCommand<Participant> {
+    }
+
+    record RegisterProvider(String providerName,
+                            ProviderAccessMode accessMode,
+                            List<String> capabilities,
+                            String endpoint,
+                            boolean available) implements RoomCommand<ProviderAdapter> {
+    }
+
+    record AddArtifact(ArtifactType type, String title, String content, UUID parentArtifactId) implements RoomCommand<Artifact> {
+    }
+
+    record CreateTaskLane(String name, UUID implementorId) implements RoomCommand<TaskLane> {
+    }
+
+    record AssignTask(UUID laneId, UUID taskArtifactId) implements RoomCommand<TaskLane> {
+    }
+
+    record UpdateTaskLaneState(UUID laneId, TaskLaneState state) implements RoomCommand<TaskLane> {
+    }
+
+    /**
+     * @param messageId the id to post the message under, reserved when a {@link MessageStream} was opened; {@code null}
+     *                  to assign a new one
+     */
+    record PostMessage(UUID participantId, String content, UUID messageId) implements RoomCommand<ChatMessage> {
+
+        public PostMessage(UUID participantId, String content) {
+            this(participantId, content, null);
+        }
+    }
+
+    record PauseRoom() implements RoomCommand<DriverStatus> {
+    }
+
+    record ResumeRoom() implements RoomCommand<DriverStatus> {
+    }
+
+    record RecordDriverFailure(String reason) implements RoomCommand<DriverStatus> {
+    }
+
+    record RecordDriverRecovery() implements RoomCommand<DriverStatus> {
+    }
+
+    /**
+     * Runs {@code command} only if the room is still at one of {@code expectedVersions}, the versions the caller based
+     * its change on; otherwise fails with {@link RoomVersionConflictException} and changes nothing. With no expected
+     * versions the command never runs.
+     */
+    record Conditional<T>(Set<Long> expectedVersions, RoomCommand<T> command) implements RoomCommand<T> {
+
+        public Conditional {
+            if (command instanceof Conditional<?>) {
+                throw new IllegalArgumentException("Conditional commands cannot be nested");
+            }
+            expectedVersions = Set.copyOf(expectedVersions);
+        }
+
+        public Conditional(long expectedVersion, RoomCommand<T> command) {
+            this(Set.of(expectedVersion), command);
+        }
+    }
+
+    /**
+     * Runs its steps in order and all-or-nothing: if any step fails, none of them leaves a trace. Each step builds its
+     * command from the results of the steps before it, so later steps can refer to entities created earlier in the
+     * batch. The result lists each step's entity in step order.
+     */
+    record Batch(List<Function<List<Object>, RoomCommand<?>>> steps) implements RoomCommand<List<Object>> {
+
+        public Batch {
+            steps = List.copyOf(steps);
+        }
+    }
+}
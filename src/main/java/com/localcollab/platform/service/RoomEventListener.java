@@ -0,0 +1,36 @@
+package com.localcollab.platform.service;
+
+import com.localcollab.platform.domain.ChatMessage;
+import com.localcollab.platform.domain.RoomEvent;
+
+import java.util.UUID;
+
+/**
+ * A stage of the {@link RoomEventPipeline}: receives room events and chat messages after {@link RoomService} records
+ * them.
+ * <p>
+ * Called on the stage's own thread, in {@code seq} order per room, once the change is published, so
+ * {@link RoomService#getRoom} already returns the entry. A stage that falls a full ring behind makes writers wait, so
+ * implementations should hand slow work off. Entries restored from the room log on startup are not delivered.
+ */
+@FunctionalInterface
+public interface RoomEventListener {
+
+    /**
+     * @param seq the event's 1-based position in the room's event history
+     */
+    void onEvent(long seq, RoomEvent event);
+
+    /**
+     * @param seq the message's 1-based position in the room's chat history
+     */
+    default void onMessage(UUID roomId, long seq, ChatMessage message) {
+    }
+
+    /**
+     * Receives a chunk of a message still being streamed. Chunks carry no {@code seq}; those of one message arrive in
+     * {@link MessageChunk#index() index} order and before the finished message itself.
+     */
+    default void onMessageChunk(UUID roomId, MessageChunk chunk) {
+    }
+}
@@ -0,0 +1,40 @@
+package com.localcollab.platform.service;
+
+import com.localcollab.platform.domain.ChatMessage;
+import com.localcollab.platform.domain.RoomEvent;
+import com.localcollab.platform.domain.RoomEventType;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Event pipeline stage that counts recorded room events by type and posted chat messages.
+ */
+@Component
+public class RoomEventMetrics implements RoomEventListener {
+
+    private final Map<RoomEventType, Counter> events = new EnumMap<>(RoomEventType.class);
+    private final Counter messages;
+
+    public RoomEventMetrics(RoomService roomService, MeterRegistry meterRegistry) {
+        for (RoomEventType type : RoomEventType.values()) {
+            events.put(type, Counter.builder("room.events.recorded").tag("type", type.name()).register(meterRegistry));
+        }
+        this.messages = Counter.builder("room.messages.posted").register(meterRegistry);
+        roomService.addEventListener("metrics", this);
+    }
+
+    @Override
+    public void onEvent(long seq, RoomEvent event) {
+        events.get(event.getType()).increment();
+    }
+
+    @Override
+    public void onMessage(UUID roomId, long seq, ChatMessage message) {
+        messages.increment();
+    }
+}
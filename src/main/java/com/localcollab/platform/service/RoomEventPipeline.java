@@ -0,0 +1,246 @@
+package com.localcollab.platform.service;
+
+import com.localcollab.platform.domain.ChatMessage;
+import com.localcollab.platform.domain.RoomEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Bounded, preallocated ring buffer that carries committed room events and chat messages, as well as the chunks of
+ * messages still being streamed, from the writer path to {@link RoomEventListener} stages.
+ * <p>
+ * A writer claims a slot with one atomic increment, fills the preallocated entry and marks it available: no allocation
+ * and no lock. Every stage runs on its own thread, sees every entry in order and handles whatever is available as one
+ * batch, so a burst costs each stage a single wake-up. Entries are never dropped: if the slowest stage falls a full
+ * ring behind, publishers wait for it (counted as {@code room.events.pipeline.stalls}). {@link RoomService} therefore
+ * publishes only after releasing the room lock.
+ */
+public final class RoomEventPipeline implements Closeable {
+
+    public static final int DEFAULT_CAPACITY = 4096;
+
+    private static final Logger log = LoggerFactory.getLogger(RoomEventPipeline.class);
+    private static final long MAX_IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final Entry[] ring;
+    private final AtomicLongArray available;
+    private final int mask;
+    private final AtomicLong claimed = new AtomicLong(-1);
+    private final List<Stage> stages = new CopyOnWriteArrayList<>();
+    private final MeterRegistry meterRegistry;
+    private final Counter stalls;
+
+    public RoomEventPipeline(int capacity, MeterRegistry meterRegistry) {
+        if (capacity < 2 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Event pipeline capacity must be a power of two, got " + capacity);
+        }
+        this.ring = new Entry[capacity];
+        for (int i = 0; i < capacity; i++) {
+            ring[i] = new Entry();
+        }
+        this.available = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            available.set(i, -1);
+        }
+        this.mask = capacity - 1;
+        this.meterRegistry = meterRegistry;
+        this.stalls = Counter.builder("room.events.pipeline.stalls")
+                .description("Writes that waited for the slowest event pipeline stage")
+                .register(meterRegistry);
+        meterRegistry.gauge("room.events.pipeline.depth", this, RoomEventPipeline::depth);
+    }
+
+    /**
+     * Pipeline without external metrics, for services created outside Spring.
+     */
+    static RoomEventPipeline standalone() {
+        return new RoomEventPipeline(DEFAULT_CAPACITY, new SimpleMeterRegistry());
+    }
+
+    /**
+     * Starts a stage that receives every entry published from now on, on its own thread.
+     */
+    public void addStage(String name, RoomEventListener listener) {
+        Stage stage = new Stage(name, listener, claimed.get());
+        stages.add(stage);
+        stage.thread.start();
+    }
+
+    public void publishEvent(long seq, RoomEvent event) {
+        publish(event.getRoomId(), seq, event, null, null);
+    }
+
+    public void publishMessage(UUID roomId, long seq, ChatMessage message) {
+        publish(roomId, seq, null, message, null);
+    }
+
+    public void publishChunk(UUID roomId, MessageChunk chunk) {
+        publish(roomId, 0, null, null, chunk);
+    }
+
+    /**
+     * Entries published but not yet handled by the slowest stage.
+     */
+    public long depth() {
+        return stages.isEmpty() ? 0 : claimed.get() - minimumStageSequence();
+    }
+
+    @Override
+    public void close() {
+        for (Stage stage : stages) {
+            stage.running = false;
+            LockSupport.unpark(stage.thread);
+        }
+        for (Stage stage : stages) {
+            try {
+                stage.thread.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void publish(UUID roomId, long seq, RoomEvent event, ChatMessage message, MessageChunk chunk) {
+        if (stages.isEmpty()) {
+            return;
+        }
+        long sequence = claimed.incrementAndGet();
+        awaitCapacity(sequence);
+        Entry entry = ring[index(sequence)];
+        entry.roomId = roomId;
+        entry.seq = seq;
+        entry.event = event;
+        entry.message = message;
+        entry.chunk = chunk;
+        entry.publishedNanos = System.nanoTime();
+        // The volatile write publishes the entry's fields to the stages.
+        available.set(index(sequence), sequence);
+        for (Stage stage : stages) {
+            if (stage.waiting) {
+                LockSupport.unpark(stage.thread);
+            }
+        }
+    }
+
+    private void awaitCapacity(long sequence) {
+        long wrapPoint = sequence - ring.length;
+        if (wrapPoint <= minimumStageSequence()) {
+            return;
+        }
+        stalls.increment();
+        while (wrapPoint > minimumStageSequence()) {
+            LockSupport.parkNanos(1_000);
+        }
+    }
+
+    private long minimumStageSequence() {
+        long minimum = Long.MAX_VALUE;
+        for (Stage stage : stages) {
+            if (stage.running) {
+                minimum = Math.min(minimum, stage.sequence.get());
+            }
+        }
+        return minimum;
+    }
+
+    private int index(long sequence) {
+        return (int) (sequence & mask);
+    }
+
+    private static final class Entry {
+        private UUID roomId;
+        private long seq;
+        private RoomEvent event;
+        private ChatMessage message;
+        private MessageChunk chunk;
+        private long publishedNanos;
+    }
+
+    private final class Stage implements Runnable {
+
+        private final String name;
+        private final RoomEventListener listener;
+        private final AtomicLong sequence;
+        private final Timer lag;
+        private final Thread thread;
+        private volatile boolean waiting;
+        private volatile boolean running = true;
+
+        private Stage(String name, RoomEventListener listener, long start) {
+            this.name = name;
+            this.listener = listener;
+            this.sequence = new AtomicLong(start);
+            this.lag = Timer.builder("room.events.pipeline.lag")
+                    .description("Time from publishing an entry to the end of the stage batch that handled it")
+                    .tag("stage", name)
+                    .register(meterRegistry);
+            this.thread = new Thread(this, "room-events-" + name);
+            this.thread.setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            long next = sequence.get() + 1;
+            while (running) {
+                long last = highestAvailable(next);
+                if (last < next) {
+                    idle(next);
+                    continue;
+                }
+                long oldestPublished = ring[index(next)].publishedNanos;
+                for (long current = next; current <= last; current++) {
+                    deliver(ring[index(current)]);
+                }
+                lag.record(System.nanoTime() - oldestPublished, TimeUnit.NANOSECONDS);
+                sequence.set(last);
+                next = last + 1;
+            }
+        }
+
+        private long highestAvailable(long from) {
+            long limit = Math.min(claimed.get(), from + ring.length - 1);
+            long current = from;
+            while (current <= limit && available.get(index(current)) == current) {
+                current++;
+            }
+            return current - 1;
+        }
+
+        private void idle(long next) {
+            waiting = true;
+            // Re-check after announcing the wait, so a publish that missed the flag is still seen.
+            if (running && highestAvailable(next) < next) {
+                LockSupport.parkNanos(this, MAX_IDLE_PARK_NANOS);
+            }
+            waiting = false;
+        }
+
+        private void deliver(Entry entry) {
+            try {
+                if (entry.event != null) {
+                    listener.onEvent(entry.seq, entry.event);
+                } else if (entry.message != null) {
+                    listener.onMessage(entry.roomId, entry.seq, entry.message);
+                } else {
+                    listener.onMessageChunk(entry.roomId, entry.chunk);
+                }
+            } catch (RuntimeException ex) {
+                log.warn("Event pipeline stage {} failed for room {}", name, entry.roomId, ex);
+            }
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.localcollab.platform.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(RoomEventPipelineProperties.class)
+public class RoomEventPipelineConfiguration {
+
+    @Bean(destroyMethod = "close")
+    public RoomEventPipeline roomEventPipeline(RoomEventPipelineProperties properties, MeterRegistry meterRegistry) {
+        return new RoomEventPipeline(properties.getCapacity(), meterRegistry);
+    }
+}
@@ -0,0 +1,17 @@
+package com.localcollab.platform.service;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "platform.event-pipeline")
+public class RoomEventPipelineProperties {
+
+    private int capacity = RoomEventPipeline.DEFAULT_CAPACITY;
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public void setCapacity(int capacity) {
+        this.capacity = capacity;
+    }
+}
@@ -0,0 +1,58 @@
+package com.localcollab.platform.service;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "platform.rooms")
+public class RoomExecutionProperties {
+
+    public enum Execution {
+        /** Callers apply their own commands under a per-room lock. */
+        LOCK,
+        /** Callers enqueue commands into a per-room mailbox that a single worker applies in batches. */
+        ACTOR
+    }
+
+    public enum Mode {
+        /** One shared workspace: creating a room returns the existing one. */
+        SINGLE,
+        /** Any number of independent rooms, spread across {@code shards} executors in actor mode. */
+        MULTI
+    }
+
+    private Execution execution = Execution.LOCK;
+    private int mailboxBatchSize = 256;
+    private Mode mode = Mode.SINGLE;
+    private int shards = Runtime.getRuntime().availableProcessors();
+
+    public Execution getExecution() {
+        return execution;
+    }
+
+    public void setExecution(Execution execution) {
+        this.execution = execution;
+    }
+
+    public int getMailboxBatchSize() {
+        return mailboxBatchSize;
+    }
+
+    public void setMailboxBatchSize(int mailboxBatchSize) {
+        this.mailboxBatchSize = mailboxBatchSize;
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public void setMode(Mode mode) {
+        this.mode = mode;
+    }
+
+    public int getShards() {
+        return shards;
+    }
+
+    public void setShards(int shards) {
+        this.shards = shards;
+    }
+}
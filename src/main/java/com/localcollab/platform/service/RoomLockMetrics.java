@@ -0,0 +1,23 @@
+package com.localcollab.platform.service;
+
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publishes the room lock registry: {@code room.locks} counts registered locks (one per room) and
+ * {@code room.lock.contended} times the acquisitions that had to wait for another writer.
+ */
+@Component
+public class RoomLockMetrics {
+
+    public RoomLockMetrics(RoomService roomService, MeterRegistry meterRegistry) {
+        RoomLocks locks = roomService.roomLocks();
+        Gauge.builder("room.locks", locks, RoomLocks::size).register(meterRegistry);
+        FunctionTimer.builder("room.lock.contended", locks, RoomLocks::contendedAcquisitions, RoomLocks::waitSeconds, TimeUnit.SECONDS)
+                .register(meterRegistry);
+    }
+}
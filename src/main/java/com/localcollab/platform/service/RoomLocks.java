@@ -0,0 +1,54 @@
+package com.localcollab.platform.service;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Write locks of the rooms that exist. A lock is registered when its room is created or recovered, before the room
+ * becomes visible, so acquiring never allocates: ids of unknown rooms are turned away with a lookup. Contention is
+ * counted for {@link RoomLockMetrics}.
+ */
+final class RoomLocks {
+
+    private final Map<UUID, ReentrantLock> locks = new ConcurrentHashMap<>();
+    private final LongAdder contended = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+
+    void register(UUID roomId) {
+        locks.putIfAbsent(roomId, new ReentrantLock());
+    }
+
+    /**
+     * Locks the room, recording how long the caller waited if another writer held it.
+     *
+     * @throws IllegalArgumentException if no such room exists
+     */
+    ReentrantLock acquire(UUID roomId) {
+        ReentrantLock lock = locks.get(roomId);
+        if (lock == null) {
+            throw new IllegalArgumentException("Room not found: " + roomId);
+        }
+        if (!lock.tryLock()) {
+            long start = System.nanoTime();
+            lock.lock();
+            waitNanos.add(System.nanoTime() - start);
+            contended.increment();
+        }
+        return lock;
+    }
+
+    int size() {
+        return locks.size();
+    }
+
+    long contendedAcquisitions() {
+        return contended.sum();
+    }
+
+    double waitSeconds() {
+        return waitNanos.sum() / 1e9;
+    }
+}
@@ -0,0 +1,71 @@
+package com.localcollab.platform.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Command queue of one room in {@link RoomExecutionProperties.Execution#ACTOR actor} mode.
+ * <p>
+ * Any thread may enqueue; at most one worker drains at a time and hands the commands it finds to the room service in
+ * batches of up to {@code batchSize}, so a hot room takes its lock and waits for durability once per batch instead of
+ * once per caller.
+ */
+final class RoomMailbox {
+
+    record Pending<T>(RoomCommand<T> command, CompletableFuture<RoomUpdate<T>> result) {
+    }
+
+    private final Queue<Pending<?>> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingSignals = new AtomicInteger();
+    private final Executor executor;
+    private final int batchSize;
+    private final Consumer<List<Pending<?>>> worker;
+
+    RoomMailbox(Executor executor, int batchSize, Consumer<List<Pending<?>>> worker) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Mailbox batch size must be positive");
+        }
+        this.executor = executor;
+        this.batchSize = batchSize;
+        this.worker = worker;
+    }
+
+    <T> CompletableFuture<RoomUpdate<T>> enqueue(RoomCommand<T> command) {
+        CompletableFuture<RoomUpdate<T>> result = new CompletableFuture<>();
+        queue.add(new Pending<>(command, result));
+        if (pendingSignals.getAndIncrement() == 0) {
+            executor.execute(this::drain);
+        }
+        return result;
+    }
+
+    private void drain() {
+        int missed = 1;
+        do {
+            List<Pending<?>> batch;
+            while (!(batch = nextBatch()).isEmpty()) {
+                try {
+                    worker.accept(batch);
+                } catch (RuntimeException ex) {
+                    batch.forEach(pending -> pending.result().completeExceptionally(ex));
+                }
+            }
+            missed = pendingSignals.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    private List<Pending<?>> nextBatch() {
+        List<Pending<?>> batch = new ArrayList<>();
+        Pending<?> pending;
+        while (batch.size() < batchSize && (pending = queue.poll()) != null) {
+            batch.add(pending);
+        }
+        return batch;
+    }
+}
@@ -0,0 +1,29 @@
+package com.localcollab.platform.service;
+
+import com.localcollab.platform.domain.Room;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Storage engine for rooms. {@link RoomService} owns locking and the room log; a repository only decides where a
+ * room's state lives, so engines can keep large append-only collections off the heap.
+ */
+public interface RoomRepository {
+
+    /**
+     * Creates an empty room whose append-only collections are backed by this engine. The room is not visible to
+     * {@link #findById(UUID)} until it is {@linkplain #save(Room) saved}.
+     */
+    Room newRoom(UUID id, String name, Instant createdAt);
+
+    void save(Room room);
+
+    Optional<Room> findById(UUID id);
+
+    Collection<Room> findAll();
+
+    boolean isEmpty();
+}
@@ -0,0 +1,903 @@
+package com.localcollab.platform.service;
+
+import com.localcollab.platform.domain.Artifact;
+import com.localcollab.platform.domain.ArtifactType;
+import com.localcollab.platform.domain.ChatMessage;
+import com.localcollab.platform.domain.Participant;
+import com.localcollab.platform.domain.DriverStatus;
+import com.localcollab.platform.domain.ParticipantRole;
+import com.localcollab.platform.domain.ParticipantType;
+import com.localcollab.platform.domain.ProviderAccessMode;
+import com.localcollab.platform.domain.ProviderAdapter;
+import com.localcollab.platform.domain.Room;
+import com.localcollab.platform.domain.RoomEvent;
+import com.localcollab.platform.domain.RoomEventType;
+import com.localcollab.platform.domain.RoomSummary;
+import com.localcollab.platform.domain.TaskLane;
+import com.localcollab.platform.domain.TaskLaneState;
+import com.localcollab.platform.persistence.RoomLog;
+import com.localcollab.platform.persistence.RoomLogRecord;
+import com.localcollab.platform.persistence.RoomLogRecord.ArtifactAdded;
+import com.localcollab.platform.persistence.RoomLogRecord.EventRecorded;
+import com.localcollab.platform.persistence.RoomLogRecord.MessageAdded;
+import com.localcollab.platform.persistence.RoomLogRecord.ParticipantAdded;
+import com.localcollab.platform.persistence.RoomLogRecord.ProviderAdapterAdded;
+import com.localcollab.platform.persistence.RoomLogRecord.RoomCreated;
+import com.localcollab.platform.persistence.RoomLogRecord.RoomStateChanged;
+import com.localcollab.platform.persistence.RoomLogRecord.TaskAssigned;
+import com.localcollab.platform.persistence.RoomLogRecord.TaskLaneAdded;
+import com.localcollab.platform.persistence.RoomLogRecord.TaskLaneStateChanged;
+import com.localcollab.platform.persistence.RoomSnapshot;
+import com.localcollab.platform.persistence.RoomSnapshotStore;
+import com.localcollab.platform.service.RoomCommand.AddArtifact;
+import com.localcollab.platform.service.RoomCommand.AddParticipant;
+import com.localcollab.platform.service.RoomCommand.AssignTask;
+import com.localcollab.platform.service.RoomCommand.Batch;
+import com.localcollab.platform.service.RoomCommand.Conditional;
+import com.localcollab.platform.service.RoomCommand.CreateTaskLane;
+import com.localcollab.platform.service.RoomCommand.PauseRoom;
+import com.localcollab.platform.service.RoomCommand.PostMessage;
+import com.localcollab.platform.service.RoomCommand.RecordDriverFailure;
+import com.localcollab.platform.service.RoomCommand.RecordDriverRecovery;
+import com.localcollab.platform.service.RoomCommand.RegisterProvider;
+import com.localcollab.platform.service.RoomCommand.ResumeRoom;
+import com.localcollab.platform.service.RoomCommand.UpdateTaskLaneState;
+import com.localcollab.platform.validation.ProviderIdentityValidator;
+import com.localcollab.platform.validation.ProviderIdentityValidator.ProviderIdentity;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+@Service
+public class RoomService {
+
+    private static final Logger log = LoggerFactory.getLogger(RoomService.class);
+
+    private final List<ProviderAdapter> providerCatalog = new CopyOnWriteArrayList<>();
+    // Membership index of the catalog, so rooms registering providers concurrently neither scan it nor add twice.
+    private final Set<String> providerCatalogKeys = ConcurrentHashMap.newKeySet();
+    private final Map<UUID, List<Runnable>> pendingPublications = new ConcurrentHashMap<>();
+    private final Map<UUID, PublicationQueue> publicationQueues = new ConcurrentHashMap<>();
+    private final RoomLocks roomLocks = new RoomLocks();
+    private final Map<UUID, Long> lastRecordLsns = new ConcurrentHashMap<>();
+    // Records of a batch in progress, held back from the room log until every step has succeeded.
+    private final Map<UUID, List<RoomLogRecord>> stagedRecords = new ConcurrentHashMap<>();
+    private final Map<UUID, Long> snapshotLsns = new ConcurrentHashMap<>();
+    private final Map<UUID, MessageStream> messageStreams = new ConcurrentHashMap<>();
+    private final ReentrantLock creationLock = new ReentrantLock();
+    private final ProviderIdentityValidator providerIdentityValidator;
+    private final RoomRepository rooms;
+    private final RoomLog roomLog;
+    private final RoomSnapshotStore snapshotStore;
+    private final RoomEventPipeline eventPipeline;
+    // Non-null in actor mode only.
+    private final Map<UUID, RoomMailbox> mailboxes;
+    private final ExecutorService mailboxExecutor;
+    // Non-null in multi-room actor mode only: mailboxes drain on their room's shard instead of mailboxExecutor.
+    private final RoomShards shards;
+    private final boolean multiRoom;
+    private final int mailboxBatchSize;
+
+    public RoomService(ProviderIdentityValidator providerIdentityValidator) {
+        this(providerIdentityValidator, RoomLog.disabled(), RoomSnapshotStore.disabled());
+    }
+
+    public RoomService(ProviderIdentityValidator providerIdentityValidator, RoomLog roomLog, RoomSnapshotStore snapshotStore) {
+        this(providerIdentityValidator, new InMemoryRoomRepository(), roomLog, snapshotStore);
+    }
+
+    public RoomService(ProviderIdentityValidator providerIdentityValidator, RoomRepository rooms, RoomLog roomLog, RoomSnapshotStore snapshotStore) {
+        this(providerIdentityValidator, rooms, roomLog, snapshotStore, RoomEventPipeline.standalone(), new RoomExecutionProperties());
+    }
+
+    @Autowired
+    public RoomService(ProviderIdentityValidator providerIdentityValidator,
+                       RoomRepository rooms,
+                       RoomLog roomLog,
+                       RoomSnapshotStore snapshotStore,
+                       RoomEventPipeline eventPipeline,
+                       RoomExecutionProperties execution) {
+        this.providerIdentityValidator = providerIdentityValidator;
+        this.rooms = rooms;
+        this.roomLog = roomLog;
+        this.snapshotStore = snapshotStore;
+        this.eventPipeline = eventPipeline;
+        boolean actor = execution.getExecution() == RoomExecutionProperties.Execution.ACTOR;
+        this.mailboxes = actor ? new ConcurrentHashMap<>() : null;
+        this.mailboxExecutor = actor ? Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("room-mailbox-", 0).factory()) : null;
+        this.multiRoom = execution.getMode() == RoomExecutionProperties.Mode.MULTI;
+        this.shards = actor && multiRoom ? new RoomShards(execution.getShards()) : null;
+        this.mailboxBatchSize = execution.getMailboxBatchSize();
+        bootstrapProviderCatalog();
+        recoverRooms();
+        bootstrapDefaultRoom();
+    }
+
+    /**
+     * Returns the latest published view of every room; views are immutable and safe to read without locking.
+     */
+    public List<Room> findAll() {
+        return rooms.findAll().stream()
+                .map(Room::snapshot)
+                .sorted(Comparator.comparing(Room::getCreatedAt))
+                .collect(java.util.stream.Collectors.toCollection(ArrayList::new));
+    }
+
+    public Room createRoom(String name) {
+        creationLock.lock();
+        try {
+            return createRoomInternal(name);
+        } finally {
+            creationLock.unlock();
+        }
+    }
+
+    private Room createRoomInternal(String name) {
+        if (!multiRoom && !rooms.isEmpty()) {
+            return rooms.findAll().stream().min(Comparator.comparing(Room::getCreatedAt)).orElseThrow().snapshot();
+        }
+
+        Room room = rooms.newRoom(UUID.randomUUID(), name, Instant.now());
+        lastRecordLsns.put(room.getId(), roomLog.append(new RoomCreated(room.getId(), room.getName(), room.getCreatedAt())));
+        cloneProvidersIntoRoom(room);
+        commit(room, new ParticipantAdded(room.getId(), new Participant(UUID.randomUUID(), "You", ParticipantType.HUMAN, ParticipantRole.OBSERVER, "local", List.of("dialog"))));
+        commit(room, new ParticipantAdded(room.getId(), new Participant(UUID.randomUUID(), "Planner", ParticipantType.AI, ParticipantRole.PLANNER, "ChatGPT", List.of("planning", "dialog"))));
+        commit(room, new ParticipantAdded(room.getId(), new Participant(UUID.randomUUID(), "Reviewer", ParticipantType.AI, ParticipantRole.REVIEWER, "Claude", List.of("review", "dialog"))));
+        commit(room, new ParticipantAdded(room.getId(), new Participant(UUID.randomUUID(), "Implementor", ParticipantType.AI, ParticipantRole.IMPLEMENTOR, "Claude Code", List.of("implementation", "patch", "dialog"))));
+
+        Artifact starterPlan = new Artifact(UUID.randomUUID(), ArtifactType.PLAN, "Starter Plan", "1) Clarify the request.\n2) Outline a structured plan.\n3) Deliver the plan artifact for review.", 1, Instant.now(), null);
+        commit(room, new ArtifactAdded(room.getId(), starterPlan));
+
+        commit(room, new ArtifactAdded(room.getId(), new Artifact(UUID.randomUUID(), ArtifactType.PATCH, "Patch Draft 1", "Initial patch stub aligned to the starter plan.", 1, Instant.now(), starterPlan.getId())));
+        TaskLane defaultLane = new TaskLane(UUID.randomUUID(), "Primary Lane", room.getParticipants().stream()
+                .filter(p -> p.getRole() == ParticipantRole.IMPLEMENTOR)
+                .findFirst()
+                .map(Participant::getId)
+                .orElseThrow(), TaskLaneState.ACTIVE, List.of());
+        commit(room, new TaskLaneAdded(room.getId(), defaultLane));
+        room.publish();
+        roomLocks.register(room.getId());
+        rooms.save(room);
+        roomLog.awaitDurable(roomLog.lastLsn());
+        return room.snapshot();
+    }
+
+    public Room addParticipant(UUID roomId, Participant participant) {
+        return execute(roomId, new AddParticipant(participant)).room();
+    }
+
+    public ProviderAdapter registerProvider(UUID roomId, String providerName, ProviderAccessMode accessMode, List<String> capabilities, String endpoint, boolean available) {
+        return execute(roomId, new RegisterProvider(providerName, accessMode, capabilities, endpoint, available)).value();
+    }
+
+    public Artifact addArtifact(UUID roomId, ArtifactType type, String title, String content, UUID parentArtifactId) {
+        return execute(roomId, new AddArtifact(type, title, content, parentArtifactId)).value();
+    }
+
+    public TaskLane createTaskLane(UUID roomId, String name, UUID implementorId) {
+        return execute(roomId, new CreateTaskLane(name, implementorId)).value();
+    }
+
+    public TaskLane assignTaskToLane(UUID roomId, UUID laneId, UUID taskArtifactId) {
+        return execute(roomId, new AssignTask(laneId, taskArtifactId)).value();
+    }
+
+    public TaskLane updateTaskLaneState(UUID roomId, UUID laneId, TaskLaneState state) {
+        return execute(roomId, new UpdateTaskLaneState(laneId, state)).value();
+    }
+
+    public ChatMessage addMessage(UUID roomId, UUID participantId, String content) {
+        return execute(roomId, new PostMessage(participantId, content)).value();
+    }
+
+    /**
+     * Returns the latest published view of the room, or {@code null} if it does not exist. Never blocks on writers.
+     */
+    public Room getRoom(UUID roomId) {
+        return rooms.findById(roomId).map(Room::snapshot).orElse(null);
+    }
+
+    public Room pauseRoom(UUID roomId) {
+        return execute(roomId, new PauseRoom()).room();
+    }
+
+    public Room resumeRoom(UUID roomId) {
+        return execute(roomId, new ResumeRoom()).room();
+    }
+
+    public Room recordDriverFailure(UUID roomId, String reason) {
+        return execute(roomId, new RecordDriverFailure(reason)).room();
+    }
+
+    public Room recordDriverRecovery(UUID roomId) {
+        return execute(roomId, new RecordDriverRecovery()).room();
+    }
+
+    /**
+     * Runs a command and returns its entity together with the room view it published, so callers learn the exact
+     * version their change produced. Validation failures surface as the same exceptions in either execution mode.
+     */
+    public <T> RoomUpdate<T> execute(UUID roomId, RoomCommand<T> command) {
+        checkVersion(roomId, command);
+        if (mailboxes == null) {
+            return withRoomLock(roomId, room -> apply(room, command));
+        }
+        try {
+            return submit(roomId, command).join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw ex;
+        }
+    }
+
+    /**
+     * Asynchronous {@link #execute}: in actor mode the command is queued in the room's mailbox and the future completes
+     * once its batch is durable; in lock mode it runs on the calling thread.
+     */
+    public <T> CompletableFuture<RoomUpdate<T>> submit(UUID roomId, RoomCommand<T> command) {
+        if (mailboxes == null) {
+            try {
+                return CompletableFuture.completedFuture(execute(roomId, command));
+            } catch (RuntimeException ex) {
+                return CompletableFuture.failedFuture(ex);
+            }
+        }
+        try {
+            checkVersion(roomId, command);
+        } catch (RuntimeException ex) {
+            return CompletableFuture.failedFuture(ex);
+        }
+        return mailboxes.computeIfAbsent(roomId, id -> new RoomMailbox(
+                        shards == null ? mailboxExecutor : shards.executor(id), mailboxBatchSize, batch -> applyBatch(id, batch)))
+                .enqueue(command);
+    }
+
+    /**
+     * Opens a streamed chat message by {@code participantId}. The message id is reserved now; the room lock is only
+     * taken once, when the stream is finished and the message is posted.
+     *
+     * @throws IllegalArgumentException if the room or participant does not exist
+     * @throws IllegalStateException    if the room is paused
+     */
+    public MessageStream openMessageStream(UUID roomId, UUID participantId) {
+        Room room = getRoomOrThrow(roomId).snapshot();
+        ensureRoomIsActive(room);
+        Participant author = room.findParticipant(participantId)
+                .orElseThrow(() -> new IllegalArgumentException("Participant not found in room: " + participantId));
+        MessageStream stream = new MessageStream(this, eventPipeline, roomId, participantId, author.getDisplayName());
+        messageStreams.put(stream.getMessageId(), stream);
+        return stream;
+    }
+
+    /**
+     * Messages of the room that are still being streamed, with the text received so far.
+     */
+    public List<ChatMessage> findStreamingMessages(UUID roomId) {
+        getRoomOrThrow(roomId);
+        return messageStreams.values().stream()
+                .filter(stream -> stream.getRoomId().equals(roomId))
+                .map(MessageStream::toMessage)
+                .sorted(Comparator.comparing(ChatMessage::getCreatedAt))
+                .toList();
+    }
+
+    CompletableFuture<RoomUpdate<ChatMessage>> finishMessageStream(MessageStream stream, PostMessage command) {
+        // The stream stays listed until the message is posted, so readers always find it in one place or the other.
+        return submit(stream.getRoomId(), command).whenComplete((update, failure) -> {
+            messageStreams.remove(stream.getMessageId());
+            if (failure != null) {
+                stream.publishCancelled();
+            }
+        });
+    }
+
+    void cancelMessageStream(MessageStream stream) {
+        messageStreams.remove(stream.getMessageId());
+        stream.publishCancelled();
+    }
+
+    /**
+     * Adds a consumer stage to the event pipeline; it receives entries recorded from now on, on its own thread.
+     */
+    public void addEventListener(String name, RoomEventListener listener) {
+        eventPipeline.addStage(name, listener);
+    }
+
+    public RoomSummary summarizeRoom(UUID roomId) {
+        return getRoomOrThrow(roomId).snapshot().summarize();
+    }
+
+    /**
+     * Writes a snapshot of every room changed since its previous snapshot, then truncates the room log behind the
+     * checkpoint. Rooms are captured one at a time under their own lock and encoded after the lock is released.
+     *
+     * @return the number of snapshots written
+     */
+    public int checkpoint() {
+        long checkpointLsn;
+        List<UUID> roomIds;
+        creationLock.lock();
+        try {
+            // Holding the creation lock means every room with a record at or below checkpointLsn is in the list.
+            checkpointLsn = roomLog.lastLsn();
+            roomIds = rooms.findAll().stream().map(Room::getId).toList();
+        } finally {
+            creationLock.unlock();
+        }
+
+        List<RoomSnapshot> snapshots = new ArrayList<>();
+        for (UUID roomId : roomIds) {
+            RoomSnapshot snapshot = withRoomLock(roomId, room -> {
+                if (lastRecordLsns.getOrDefault(roomId, 0L) <= snapshotLsns.getOrDefault(roomId, 0L)) {
+                    return null;
+                }
+                return RoomSnapshot.capture(room.publish(), roomLog.lastLsn());
+            });
+            if (snapshot != null) {
+                snapshots.add(snapshot);
+            }
+        }
+
+        // A snapshot must never be ahead of the durable log, or a crash could reuse LSNs it already covers.
+        roomLog.flush();
+        for (RoomSnapshot snapshot : snapshots) {
+            snapshotStore.write(snapshot);
+            snapshotLsns.put(snapshot.id(), snapshot.lsn());
+        }
+        roomLog.truncateBefore(checkpointLsn + 1);
+        return snapshots.size();
+    }
+
+    private Room getRoomOrThrow(UUID roomId) {
+        return rooms.findById(roomId).orElseThrow(() -> new IllegalArgumentException("Room not found: " + roomId));
+    }
+
+    RoomLocks roomLocks() {
+        return roomLocks;
+    }
+
+    /**
+     * Lock-free pre-check of a conditional command against the published view. Versions only grow, so a mismatch
+     * here is final and the caller is turned away without queueing for the room; a match is confirmed again when the
+     * command runs. Also fails fast for unknown rooms.
+     */
+    private void checkVersion(UUID roomId, RoomCommand<?> command) {
+        Room room = getRoomOrThrow(roomId);
+        if (command instanceof Conditional<?> conditional) {
+            ensureVersion(room.snapshot(), conditional.expectedVersions());
+        }
+    }
+
+    private static void ensureVersion(Room room, Set<Long> expectedVersions) {
+        if (!expectedVersions.contains(room.getVersion())) {
+            throw new RoomVersionConflictException(room.getId(), expectedVersions, room.getVersion());
+        }
+    }
+
+    private <T> T withRoomLock(UUID roomId, Function<Room, T> action) {
+        ReentrantLock lock = roomLocks.acquire(roomId);
+        T result;
+        long lsn;
+        try {
+            Room room = getRoomOrThrow(roomId);
+            try {
+                result = action.apply(room);
+            } finally {
+                publish(room);
+            }
+            lsn = roomLog.lastLsn();
+        } finally {
+            lock.unlock();
+        }
+        flushPublications(roomId);
+        // Wait for durability outside the room lock so group commit batches writers instead of serializing them.
+        roomLog.awaitDurable(lsn);
+        return result;
+    }
+
+    /**
+     * Publishes the room and then queues its newly recorded entries for the event pipeline. Called once per command, so
+     * readers never observe half of a multi-record change.
+     */
+    private void publish(Room room) {
+        room.publish();
+        List<Runnable> publications = pendingPublications.remove(room.getId());
+        if (publications != null) {
+            publicationQueues.computeIfAbsent(room.getId(), id -> new PublicationQueue()).entries.addAll(publications);
+        }
+    }
+
+    /**
+     * Hands the room's queued entries to the event pipeline. Called after the room lock is released, because the
+     * pipeline makes writers wait while its slowest stage is a full ring behind. Entries are queued under the lock in
+     * order and only one caller drains a room's queue at a time, so stages still see them in order.
+     */
+    private void flushPublications(UUID roomId) {
+        PublicationQueue queue = publicationQueues.get(roomId);
+        if (queue == null || queue.draining.getAndIncrement() != 0) {
+            return;
+        }
+        int missed = 1;
+        do {
+            Runnable publication;
+            while ((publication = queue.entries.poll()) != null) {
+                publication.run();
+            }
+            missed = queue.draining.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    private <T> RoomUpdate<T> apply(Room room, RoomCommand<T> command) {
+        T value = dispatch(room, command);
+        return new RoomUpdate<>(value, room.publish());
+    }
+
+    /**
+     * Actor-mode worker: applies a mailbox batch under one lock acquisition, waits once for the whole batch to become
+     * durable and only then completes the callers' futures. Each command still publishes its own view, and a failing
+     * command fails only its own future.
+     */
+    private void applyBatch(UUID roomId, List<RoomMailbox.Pending<?>> batch) {
+        ReentrantLock lock = roomLocks.acquire(roomId);
+        List<Runnable> completions = new ArrayList<>(batch.size());
+        long lsn;
+        try {
+            Room room = getRoomOrThrow(roomId);
+            for (RoomMailbox.Pending<?> pending : batch) {
+                completions.add(applyPending(room, pending));
+            }
+            lsn = roomLog.lastLsn();
+        } finally {
+            lock.unlock();
+        }
+        flushPublications(roomId);
+        if (shards == null) {
+            completeWhenDurable(lsn, batch, completions);
+            return;
+        }
+        // A shard thread serves many rooms, so it hands the durability wait off and moves on to the next mailbox.
+        mailboxExecutor.execute(() -> completeWhenDurable(lsn, batch, completions));
+    }
+
+    /**
+     * Completes a mailbox batch once its records are durable, or fails every caller of the batch if they cannot be made
+     * durable.
+     */
+    private void completeWhenDurable(long lsn, List<RoomMailbox.Pending<?>> batch, List<Runnable> completions) {
+        try {
+            roomLog.awaitDurable(lsn);
+        } catch (RuntimeException ex) {
+            batch.forEach(pending -> pending.result().completeExceptionally(ex));
+            return;
+        }
+        completions.forEach(Runnable::run);
+    }
+
+    private <T> Runnable applyPending(Room room, RoomMailbox.Pending<T> pending) {
+        try {
+            RoomUpdate<T> update;
+            try {
+                update = apply(room, pending.command());
+            } finally {
+                publish(room);
+            }
+            return () -> pending.result().complete(update);
+        } catch (RuntimeException ex) {
+            return () -> pending.result().completeExceptionally(ex);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T dispatch(Room room, RoomCommand<T> command) {
+        Object value = switch (command) {
+            case AddParticipant c -> execute(room, c);
+            case RegisterProvider c -> registerProviderInternal(room, c.providerName(), c.accessMode(), c.capabilities(), c.endpoint(), c.available());
+            case AddArtifact c -> execute(room, c);
+            case CreateTaskLane c -> execute(room, c);
+            case AssignTask c -> execute(room, c);
+            case UpdateTaskLaneState c -> execute(room, c);
+            case PostMessage c -> execute(room, c);
+            case PauseRoom c -> changeState(room, true, room.getDriverStatus().copy().asPaused(), "Room paused");
+            case ResumeRoom c -> changeState(room, false, room.getDriverStatus().copy().reset(), "Room resumed");
+            case RecordDriverFailure c -> {
+                DriverStatus driverStatus = room.getDriverStatus().copy().recordFailure(c.reason());
+                boolean paused = room.isPaused() || driverStatus.getState() == DriverStatus.State.PAUSED;
+                yield changeState(room, paused, driverStatus, "Driver failure recorded: " + c.reason());
+            }
+            case RecordDriverRecovery c -> changeState(room, false, room.getDriverStatus().copy().recordRecovery(), "Driver recovered");
+            case Batch c -> execute(room, c);
+            case Conditional<?> c -> {
+                ensureVersion(room, c.expectedVersions());
+                yield dispatch(room, c.command());
+            }
+        };
+        return (T) value;
+    }
+
+    private Participant execute(Room room, AddParticipant command) {
+        Participant participant = command.participant();
+        ensureRoomIsActive(room);
+        ensureProviderIsRegistered(room, participant.getProvider(), ProviderAccessMode.WEB_UI, participant.getCapabilities(), null);
+        commit(room, new ParticipantAdded(room.getId(), participant));
+        return participant;
+    }
+
+    private Artifact execute(Room room, AddArtifact command) {
+        ensureRoomIsActive(room);
+
+        ArtifactType artifactType = command.type() == null ? ArtifactType.NOTE : command.type();
+
+        validateArtifactRequest(command.title(), command.content(), artifactType, command.parentArtifactId(), room);
+
+        int nextVersion = room.nextArtifactVersion(artifactType);
+
+        Artifact artifact = new Artifact(
+                UUID.randomUUID(),
+                artifactType,
+                command.title().trim(),
+                command.content().trim(),
+                nextVersion,
+                Instant.now(),
+                command.parentArtifactId());
+
+        commit(room, new ArtifactAdded(room.getId(), artifact));
+        recordEvent(room, RoomEventType.ARTIFACT_CREATED, "Artifact created: " + artifact.getTitle(), null, artifact.getId(), null);
+        return artifact;
+    }
+
+    private TaskLane execute(Room room, CreateTaskLane command) {
+        ensureRoomIsActive(room);
+        Participant implementor = room.findParticipant(command.implementorId())
+                .orElseThrow(() -> new IllegalArgumentException("Implementor not found for lane"));
+        if (implementor.getRole() != ParticipantRole.IMPLEMENTOR) {
+            throw new IllegalArgumentException("Task lanes must be owned by an implementor");
+        }
+
+        TaskLane lane = new TaskLane(UUID.randomUUID(), command.name().trim(), command.implementorId(), TaskLaneState.ACTIVE, List.of());
+        commit(room, new TaskLaneAdded(room.getId(), lane));
+        recordEvent(room, RoomEventType.TASK_UPDATED, "Task lane created: " + command.name(), command.implementorId(), null, lane.getId());
+        return lane;
+    }
+
+    private TaskLane execute(Room room, AssignTask command) {
+        ensureRoomIsActive(room);
+        Artifact task = room.findArtifact(command.taskArtifactId())
+                .orElseThrow(() -> new IllegalArgumentException("Task artifact not found"));
+        if (task.getType() != ArtifactType.TASK) {
+            throw new IllegalArgumentException("Only task artifacts can be scheduled into a lane");
+        }
+
+        TaskLane lane = findTaskLane(room, command.laneId());
+
+        if (lane.getState() != TaskLaneState.ACTIVE) {
+            throw new IllegalStateException("Tasks can only be assigned to active lanes");
+        }
+
+        commit(room, new TaskAssigned(room.getId(), lane.getId(), command.taskArtifactId()));
+        recordEvent(room, RoomEventType.TASK_UPDATED, "Task assigned to lane: " + task.getTitle(), null, command.taskArtifactId(), lane.getId());
+        return findTaskLane(room, lane.getId());
+    }
+
+    private TaskLane execute(Room room, UpdateTaskLaneState command) {
+        ensureRoomIsActive(room);
+
+        if (command.state() == null) {
+            throw new IllegalArgumentException("Task lane state is required");
+        }
+
+        TaskLane lane = findTaskLane(room, command.laneId());
+
+        commit(room, new TaskLaneStateChanged(room.getId(), lane.getId(), command.state()));
+        recordEvent(room, RoomEventType.TASK_UPDATED, "Lane state updated to " + command.state(), null, null, lane.getId());
+        return findTaskLane(room, lane.getId());
+    }
+
+    private ChatMessage execute(Room room, PostMessage command) {
+        ensureRoomIsActive(room);
+        UUID participantId = command.participantId();
+        Participant author = room.findParticipant(participantId)
+                .orElseThrow(() -> new IllegalArgumentException("Participant not found in room: " + participantId));
+
+        if (command.content() == null || command.content().isBlank()) {
+            throw new IllegalArgumentException("Message content must not be blank");
+        }
+
+        ChatMessage message = new ChatMessage(
+                command.messageId() == null ? UUID.randomUUID() : command.messageId(),
+                participantId,
+                author.getDisplayName(),
+                command.content().trim(),
+                Instant.now());
+
+        commit(room, new MessageAdded(room.getId(), message));
+        long seq = room.getMessages().size();
+        afterPublish(room, () -> eventPipeline.publishMessage(room.getId(), seq, message));
+        recordEvent(room, RoomEventType.MESSAGE_POSTED, "Message posted by " + author.getDisplayName(), participantId, null, null);
+        return message;
+    }
+
+    /**
+     * Applies the steps to the live room while holding their log records back. If a step fails the room is rolled back
+     * to its last published view and nothing reaches the log; otherwise the records are appended in order.
+     */
+    private List<Object> execute(Room room, Batch command) {
+        Room before = room.publish();
+        List<RoomLogRecord> staged = new ArrayList<>();
+        List<Object> results = new ArrayList<>(command.steps().size());
+        List<Object> resultsView = Collections.unmodifiableList(results);
+        stagedRecords.put(room.getId(), staged);
+        try {
+            for (Function<List<Object>, RoomCommand<?>> step : command.steps()) {
+                RoomCommand<?> next = step.apply(resultsView);
+                if (next instanceof Batch) {
+                    throw new IllegalArgumentException("Batches cannot be nested");
+                }
+                results.add(dispatch(room, next));
+            }
+        } catch (RuntimeException ex) {
+            room.rollback(before);
+            pendingPublications.remove(room.getId());
+            throw ex;
+        } finally {
+            stagedRecords.remove(room.getId());
+        }
+        for (RoomLogRecord record : staged) {
+            lastRecordLsns.put(room.getId(), roomLog.append(record));
+            if (record instanceof ProviderAdapterAdded added) {
+                syncProviderCatalog(added.adapter());
+            }
+        }
+        return resultsView;
+    }
+
+    private DriverStatus changeState(Room room, boolean paused, DriverStatus driverStatus, String description) {
+        commit(room, new RoomStateChanged(room.getId(), paused, driverStatus));
+        recordEvent(room, RoomEventType.STATE_CHANGED, description, null, null, null);
+        return driverStatus;
+    }
+
+    private void ensureRoomIsActive(Room room) {
+        if (room.isPaused()) {
+            throw new IllegalStateException("Room is paused; resume before making changes");
+        }
+    }
+
+    private void recoverRooms() {
+        int snapshots = snapshotStore.restoreAll(rooms::newRoom, (room, snapshotLsn) -> {
+            if (snapshotLsn > roomLog.lastLsn()) {
+                throw new IllegalStateException("Snapshot of room " + room.getId() + " covers LSN " + snapshotLsn
+                        + " but the room log ends at " + roomLog.lastLsn());
+            }
+            roomLocks.register(room.getId());
+            rooms.save(room);
+            room.getProviderAdapters().forEach(this::syncProviderCatalog);
+            snapshotLsns.put(room.getId(), snapshotLsn);
+            lastRecordLsns.put(room.getId(), snapshotLsn);
+        });
+
+        long[] replayed = new long[1];
+        roomLog.replay(0, (lsn, record) -> {
+            if (lsn <= snapshotLsns.getOrDefault(record.roomId(), 0L)) {
+                return;
+            }
+            if (record instanceof RoomCreated created) {
+                Room room = rooms.newRoom(created.roomId(), created.name(), created.createdAt());
+                roomLocks.register(room.getId());
+                rooms.save(room);
+            } else {
+                Room room = rooms.findById(record.roomId()).orElseThrow(() -> new IllegalStateException(
+                        "Room log record " + lsn + " references unknown room " + record.roomId()));
+                apply(room, record);
+            }
+            lastRecordLsns.put(record.roomId(), lsn);
+            replayed[0]++;
+        });
+        rooms.findAll().forEach(Room::publish);
+        if (!rooms.isEmpty()) {
+            log.info("Recovered {} rooms from {} snapshots and {} room log records", rooms.findAll().size(), snapshots, replayed[0]);
+        }
+    }
+
+    private void bootstrapDefaultRoom() {
+        if (!rooms.isEmpty()) {
+            return;
+        }
+
+        createRoom("Multi-Agent Planning Room");
+    }
+
+    private void bootstrapProviderCatalog() {
+        addToProviderCatalog(new ProviderAdapter(UUID.randomUUID(), "ChatGPT", ProviderAccessMode.WEB_UI, List.of("dialog", "planning"), null, true));
+        addToProviderCatalog(new ProviderAdapter(UUID.randomUUID(), "Claude", ProviderAccessMode.WEB_UI, List.of("dialog", "review"), null, true));
+        addToProviderCatalog(new ProviderAdapter(UUID.randomUUID(), "Claude Code", ProviderAccessMode.WEB_UI, List.of("implementation", "patch"), null, true));
+        addToProviderCatalog(new ProviderAdapter(UUID.randomUUID(), "Gemini", ProviderAccessMode.WEB_UI, List.of("dialog", "planning", "review"), null, true));
+        addToProviderCatalog(new ProviderAdapter(UUID.randomUUID(), "Local API", ProviderAccessMode.API, List.of("dialog", "implementation", "patch"), "http://localhost:11434/api", true));
+    }
+
+    private void cloneProvidersIntoRoom(Room room) {
+        providerCatalog.forEach(adapter -> commit(room, new ProviderAdapterAdded(room.getId(), new ProviderAdapter(
+                UUID.randomUUID(),
+                adapter.getProviderName(),
+                adapter.getAccessMode(),
+                adapter.getCapabilities(),
+                adapter.getEndpoint(),
+                adapter.isAvailable()))));
+    }
+
+    private void ensureProviderIsRegistered(Room room, String provider, ProviderAccessMode accessMode, List<String> capabilities, String endpoint) {
+        if (provider == null || provider.isBlank()) {
+            return;
+        }
+        ProviderIdentity identity = providerIdentityValidator.validate(provider, accessMode);
+        if (room.findProviderAdapter(identity.providerName(), identity.accessMode()).isEmpty()) {
+            registerProviderInternal(room, identity.providerName(), identity.accessMode(), capabilities, endpoint, true);
+        }
+    }
+
+    private void validateArtifactRequest(String title, String content, ArtifactType type, UUID parentArtifactId, Room room) {
+        if (title == null || title.isBlank()) {
+            throw new IllegalArgumentException("Artifact title must not be blank");
+        }
+        if (content == null || content.isBlank()) {
+            throw new IllegalArgumentException("Artifact content must not be blank");
+        }
+
+        if (type == ArtifactType.REVIEW) {
+            validateParentPresence(parentArtifactId, "Review artifacts must reference a plan or patch");
+        }
+
+        if (type == ArtifactType.PATCH) {
+            validateParentPresence(parentArtifactId, "Patch artifacts must reference a plan or prior patch");
+        }
+
+        if (parentArtifactId != null) {
+            Artifact parentArtifact = room.findArtifact(parentArtifactId)
+                    .orElseThrow(() -> new IllegalArgumentException("Parent artifact not found in room"));
+
+            if (type == ArtifactType.REVIEW && parentArtifact.getType() != ArtifactType.PLAN && parentArtifact.getType() != ArtifactType.PATCH) {
+                throw new IllegalArgumentException("Review artifacts must target an existing plan or patch");
+            }
+
+            if (type == ArtifactType.PLAN && parentArtifact.getType() != ArtifactType.PLAN) {
+                throw new IllegalArgumentException("Plan versions must reference a prior plan");
+            }
+
+            if (type == ArtifactType.PATCH && parentArtifact.getType() != ArtifactType.PLAN && parentArtifact.getType() != ArtifactType.PATCH && parentArtifact.getType() != ArtifactType.TASK) {
+                throw new IllegalArgumentException("Patch artifacts must reference a plan, task, or prior patch");
+            }
+        }
+    }
+
+    private void validateParentPresence(UUID parentArtifactId, String message) {
+        if (parentArtifactId == null) {
+            throw new IllegalArgumentException(message);
+        }
+    }
+
+    private ProviderAdapter registerProviderInternal(Room room, String providerName, ProviderAccessMode accessMode, List<String> capabilities, String endpoint, boolean available) {
+        ensureRoomIsActive(room);
+
+        ProviderIdentity identity = providerIdentityValidator.validate(providerName, accessMode);
+        Optional<ProviderAdapter> existing = room.findProviderAdapter(identity.providerName(), identity.accessMode());
+        if (existing.isPresent()) {
+            return existing.get();
+        }
+
+        ProviderAdapter adapter = new ProviderAdapter(UUID.randomUUID(), identity.providerName(), identity.accessMode(), capabilities, endpoint, available);
+        commit(room, new ProviderAdapterAdded(room.getId(), adapter));
+        return adapter;
+    }
+
+    private void syncProviderCatalog(ProviderAdapter adapter) {
+        if (providerCatalogKeys.add(catalogKey(adapter))) {
+            providerCatalog.add(new ProviderAdapter(UUID.randomUUID(), adapter.getProviderName(), adapter.getAccessMode(), adapter.getCapabilities(), adapter.getEndpoint(), adapter.isAvailable()));
+        }
+    }
+
+    private void addToProviderCatalog(ProviderAdapter adapter) {
+        if (providerCatalogKeys.add(catalogKey(adapter))) {
+            providerCatalog.add(adapter);
+        }
+    }
+
+    private static String catalogKey(ProviderAdapter adapter) {
+        return adapter.getProviderName().toLowerCase(Locale.ROOT) + '|' + adapter.getAccessMode();
+    }
+
+    private void recordEvent(Room room, RoomEventType type, String description, UUID participantId, UUID artifactId, UUID taskLaneId) {
+        RoomEvent event = new RoomEvent(newEventId(), room.getId(), type, description, Instant.now(), participantId, artifactId, taskLaneId);
+        commit(room, new EventRecorded(room.getId(), event));
+        long seq = room.getEvents().size();
+        afterPublish(room, () -> eventPipeline.publishEvent(seq, event));
+    }
+
+    /**
+     * Defers handing an entry to the event pipeline until the room is next published, so stages can read what they are
+     * told about.
+     */
+    private void afterPublish(Room room, Runnable publication) {
+        pendingPublications.computeIfAbsent(room.getId(), id -> new ArrayList<>()).add(publication);
+    }
+
+    /**
+     * Random (version 4) UUID from {@link ThreadLocalRandom}. Event ids need to be unique, not unpredictable, and
+     * {@link UUID#randomUUID()} draws from a shared {@code SecureRandom} while the room lock is held.
+     */
+    private static UUID newEventId() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long mostSignificant = (random.nextLong() & ~0xF000L) | 0x4000L;
+        long leastSignificant = (random.nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+        return new UUID(mostSignificant, leastSignificant);
+    }
+
+    /**
+     * Writes the record ahead to the room log, then applies it. Live mutations and crash recovery share
+     * {@link #apply(Room, RoomLogRecord)}, so replay rebuilds exactly the state that was acknowledged.
+     */
+    private void commit(Room room, RoomLogRecord record) {
+        List<RoomLogRecord> staged = stagedRecords.get(room.getId());
+        if (staged != null) {
+            staged.add(record);
+        } else {
+            lastRecordLsns.put(room.getId(), roomLog.append(record));
+        }
+        apply(room, record);
+    }
+
+    private void apply(Room room, RoomLogRecord record) {
+        switch (record) {
+            case RoomCreated created -> throw new IllegalStateException("Room already exists: " + created.roomId());
+            case ParticipantAdded added -> room.addParticipant(added.participant());
+            case ProviderAdapterAdded added -> {
+                room.addProviderAdapter(added.adapter());
+                // The catalog outlives a rollback, so a batch adds to it only once it succeeds.
+                if (!stagedRecords.containsKey(room.getId())) {
+                    syncProviderCatalog(added.adapter());
+                }
+            }
+            case ArtifactAdded added -> room.addArtifact(added.artifact());
+            case MessageAdded added -> room.addMessage(added.message());
+            case TaskLaneAdded added -> room.addTaskLane(added.lane());
+            case TaskAssigned assigned -> room.assignTask(assigned.laneId(), assigned.taskArtifactId());
+            case TaskLaneStateChanged changed -> room.updateTaskLaneState(changed.laneId(), changed.state());
+            case RoomStateChanged changed -> room.restoreState(changed.paused(), changed.driverStatus());
+            case EventRecorded recorded -> room.addEvent(recorded.event());
+        }
+    }
+
+    private TaskLane findTaskLane(Room room, UUID laneId) {
+        return room.findTaskLane(laneId)
+                .orElseThrow(() -> new IllegalArgumentException("Task lane not found"));
+    }
+
+    private static final class PublicationQueue {
+        private final Queue<Runnable> entries = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger draining = new AtomicInteger();
+    }
+}
@@ -0,0 +1,34 @@
+package com.localcollab.platform.service;
+
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Fixed set of single-threaded executors that own rooms in multi-room actor mode. A room always maps to the same
+ * shard, so its commands run in order on one thread while rooms on other shards run in parallel on other cores.
+ * Shard threads are daemons, like the rest of the room workers.
+ */
+final class RoomShards {
+
+    private final ExecutorService[] executors;
+
+    RoomShards(int count) {
+        if (count < 1) {
+            throw new IllegalArgumentException("Room shard count must be positive");
+        }
+        executors = new ExecutorService[count];
+        for (int i = 0; i < count; i++) {
+            executors[i] = Executors.newSingleThreadExecutor(Thread.ofPlatform().name("room-shard-" + i).daemon().factory());
+        }
+    }
+
+    static int shardOf(UUID roomId, int count) {
+        int hash = roomId.hashCode();
+        return ((hash ^ (hash >>> 16)) & Integer.MAX_VALUE) % count;
+    }
+
+    ExecutorService executor(UUID roomId) {
+        return executors[shardOf(roomId, executors.length)];
+    }
+}
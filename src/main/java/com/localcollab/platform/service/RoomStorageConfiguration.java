@@ -0,0 +1,18 @@
+package com.localcollab.platform.service;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties({RoomStorageProperties.class, RoomExecutionProperties.class})
+public class RoomStorageConfiguration {
+
+    @Bean
+    public RoomRepository roomRepository(RoomStorageProperties properties) {
+        return switch (properties.getEngine()) {
+            case MEMORY -> new InMemoryRoomRepository();
+            case FILE -> new FileRoomRepository(properties.getDirectory());
+        };
+    }
+}
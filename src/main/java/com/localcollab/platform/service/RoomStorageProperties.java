@@ -0,0 +1,35 @@
+package com.localcollab.platform.service;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.nio.file.Path;
+
+@ConfigurationProperties(prefix = "platform.storage")
+public class RoomStorageProperties {
+
+    public enum Engine {
+        /** Keeps every room on the heap. */
+        MEMORY,
+        /** Keeps artifacts, messages and events in per-room files; only their offsets stay on the heap. */
+        FILE
+    }
+
+    private Engine engine = Engine.MEMORY;
+    private Path directory = Path.of("data", "rooms");
+
+    public Engine getEngine() {
+        return engine;
+    }
+
+    public void setEngine(Engine engine) {
+        this.engine = engine;
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    public void setDirectory(Path directory) {
+        this.directory = directory;
+    }
+}
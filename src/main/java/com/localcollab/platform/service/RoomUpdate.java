@@ -0,0 +1,13 @@
+package com.localcollab.platform.service;
+
+import com.localcollab.platform.domain.Room;
+
+/**
+ * Result of a {@link RoomCommand}: the created or changed entity and the room view published by that command.
+ */
+public record RoomUpdate<T>(T value, Room room) {
+
+    public long version() {
+        return room.getVersion();
+    }
+}
@@ -0,0 +1,42 @@
+package com.localcollab.platform.service;
+
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Thrown when a {@link RoomCommand.Conditional} finds the room at a different version than the caller last read.
+ */
+public class RoomVersionConflictException extends RuntimeException {
+
+    private final UUID roomId;
+    private final Set<Long> expectedVersions;
+    private final long actualVersion;
+
+    public RoomVersionConflictException(UUID roomId, Set<Long> expectedVersions, long actualVersion) {
+        super("Room " + roomId + " is at version " + actualVersion + ", " + describe(expectedVersions));
+        this.roomId = roomId;
+        this.expectedVersions = expectedVersions;
+        this.actualVersion = actualVersion;
+    }
+
+    public UUID getRoomId() {
+        return roomId;
+    }
+
+    public Set<Long> getExpectedVersions() {
+        return expectedVersions;
+    }
+
+    public long getActualVersion() {
+        return actualVersion;
+    }
+
+    private static String describe(Set<Long> expectedVersions) {
+        return switch (expectedVersions.size()) {
+            case 0 -> "which the request's precondition does not name";
+            case 1 -> "expected " + expectedVersions.iterator().next();
+            default -> "expected one of " + expectedVersions.stream().sorted().map(String::valueOf).collect(Collectors.joining(", "));
+        };
+    }
+}
@@ -1,6 +1,6 @@
 package com.localcollab.platform.web;
 
-import com.localcollab.platform.service.InMemoryRoomService;
+import com.localcollab.platform.service.RoomService;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -8,9 +8,9 @@ import org.springframework.web.bind.annotation.GetMapping;
 @Controller
 public class HomeController {
 
-    private final InMemoryRoomService roomService;
+    private final RoomService roomService;
 
-    public HomeController(InMemoryRoomService roomService) {
+    public HomeController(RoomService roomService) {
         this.roomService = roomService;
     }
 
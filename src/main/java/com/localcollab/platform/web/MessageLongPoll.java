@@ -0,0 +1,106 @@
+package com.localcollab.platform.web;
+
+import com.localcollab.platform.domain.ChatMessage;
+import com.localcollab.platform.domain.Room;
+import com.localcollab.platform.domain.RoomEvent;
+import com.localcollab.platform.service.RoomEventListener;
+import com.localcollab.platform.service.RoomService;
+import com.localcollab.platform.web.dto.SequencedDTO;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Parks "messages since" requests until a newer chat message arrives or the wait expires.
+ * <p>
+ * A parked request is a {@link DeferredResult}, so it holds no servlet thread. As an event pipeline stage, a new message
+ * wakes every waiter of its room, which is answered from the published room view.
+ */
+@Component
+public class MessageLongPoll implements RoomEventListener {
+
+    static final long MAX_WAIT_MILLIS = 60_000;
+
+    private final RoomService roomService;
+    private final Map<UUID, Set<Waiter>> waiters = new ConcurrentHashMap<>();
+
+    public MessageLongPoll(RoomService roomService, MeterRegistry meterRegistry) {
+        this.roomService = roomService;
+        meterRegistry.gauge("room.messages.waiters", waiters, map -> map.values().stream().mapToInt(Set::size).sum());
+        roomService.addEventListener("long-poll", this);
+    }
+
+    /**
+     * Returns the messages after {@code after} (at most {@code limit}), waiting up to {@code waitMillis} for one to
+     * arrive when there are none yet. A wait that expires answers with an empty list.
+     */
+    public DeferredResult<List<SequencedDTO<ChatMessage>>> await(UUID roomId, long after, Integer limit, long waitMillis) {
+        long wait = Math.clamp(waitMillis, 0, MAX_WAIT_MILLIS);
+        DeferredResult<List<SequencedDTO<ChatMessage>>> result = new DeferredResult<>(wait, List::of);
+        Waiter waiter = new Waiter(roomId, after, limit, result);
+        // Register before looking, so a message published after the look is sure to wake the waiter. Adding inside
+        // compute keeps a concurrent remove() from dropping the room's set between lookup and add.
+        waiters.compute(roomId, (id, roomWaiters) -> {
+            Set<Waiter> registered = roomWaiters == null ? ConcurrentHashMap.newKeySet() : roomWaiters;
+            registered.add(waiter);
+            return registered;
+        });
+        result.onCompletion(() -> remove(waiter));
+        if (!waiter.tryComplete() && wait == 0) {
+            result.setResult(List.of());
+        }
+        return result;
+    }
+
+    @Override
+    public void onEvent(long seq, RoomEvent event) {
+    }
+
+    @Override
+    public void onMessage(UUID roomId, long seq, ChatMessage message) {
+        Set<Waiter> roomWaiters = waiters.get(roomId);
+        if (roomWaiters != null) {
+            roomWaiters.forEach(Waiter::tryComplete);
+        }
+    }
+
+    private void remove(Waiter waiter) {
+        waiters.computeIfPresent(waiter.roomId, (id, roomWaiters) -> {
+            roomWaiters.remove(waiter);
+            return roomWaiters.isEmpty() ? null : roomWaiters;
+        });
+    }
+
+    private final class Waiter {
+
+        private final UUID roomId;
+        private final long after;
+        private final Integer limit;
+        private final DeferredResult<List<SequencedDTO<ChatMessage>>> result;
+
+        private Waiter(UUID roomId, long after, Integer limit, DeferredResult<List<SequencedDTO<ChatMessage>>> result) {
+            this.roomId = roomId;
+            this.after = after;
+            this.limit = limit;
+            this.result = result;
+        }
+
+        boolean tryComplete() {
+            Room room = roomService.getRoom(roomId);
+            if (room == null || room.getMessages().size() <= after) {
+                return false;
+            }
+            if (!result.setResult(SequencePages.slice(room.getMessages(), after, null, limit))) {
+                return false;
+            }
+            remove(this);
+            return true;
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.localcollab.platform.web;
+
+import org.springframework.web.socket.TextMessage;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Bounded queue of frames waiting to be sent to one WebSocket connection.
+ * <p>
+ * When a frame arrives at a full queue, the queued frames are coalesced: they are replaced by a single {@code resync}
+ * marker per room they belonged to. Frames for a room with a marker still queued are dropped, since the client will
+ * reload that room anyway. The queue therefore never holds more than {@code limit} room frames or one per subscribed
+ * room, however slow the consumer is.
+ * <p>
+ * Frames without a room, such as errors, answer something the client sent and cannot be rebuilt by a resync, so they
+ * are kept in order through coalescing. At most {@code limit} of them are queued; further ones are dropped until the
+ * client reads.
+ */
+final class OutboundQueue {
+
+    record Frame(UUID roomId, TextMessage message, boolean resync) {
+    }
+
+    private final int limit;
+    private final Function<UUID, TextMessage> resyncFrames;
+    private final ArrayDeque<Frame> frames = new ArrayDeque<>();
+    private final Set<UUID> resyncPending = new HashSet<>();
+    private int connectionFrames;
+
+    OutboundQueue(int limit, Function<UUID, TextMessage> resyncFrames) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Outbound queue limit must be positive");
+        }
+        this.limit = limit;
+        this.resyncFrames = resyncFrames;
+    }
+
+    /**
+     * Queues a frame, or coalesces it into a resync marker.
+     *
+     * @return the number of resync markers this call added
+     */
+    synchronized int offer(UUID roomId, TextMessage message) {
+        if (roomId == null) {
+            if (connectionFrames < limit) {
+                frames.add(new Frame(null, message, false));
+                connectionFrames++;
+            }
+            return 0;
+        }
+        if (resyncPending.contains(roomId)) {
+            return 0;
+        }
+        if (frames.size() - connectionFrames < limit) {
+            frames.add(new Frame(roomId, message, false));
+            return 0;
+        }
+        Set<UUID> rooms = new LinkedHashSet<>();
+        List<Frame> kept = new ArrayList<>(connectionFrames);
+        for (Frame frame : frames) {
+            if (frame.roomId() == null) {
+                kept.add(frame);
+            } else {
+                rooms.add(frame.roomId());
+            }
+        }
+        rooms.add(roomId);
+        frames.clear();
+        frames.addAll(kept);
+        for (UUID room : rooms) {
+            frames.add(new Frame(room, resyncFrames.apply(room), true));
+        }
+        rooms.removeAll(resyncPending);
+        resyncPending.addAll(rooms);
+        return rooms.size();
+    }
+
+    synchronized Frame poll() {
+        Frame frame = frames.poll();
+        if (frame == null) {
+            return null;
+        }
+        if (frame.resync()) {
+            resyncPending.remove(frame.roomId());
+        } else if (frame.roomId() == null) {
+            connectionFrames--;
+        }
+        return frame;
+    }
+
+    synchronized int size() {
+        return frames.size();
+    }
+}
@@ -0,0 +1,110 @@
+package com.localcollab.platform.web;
+
+import com.localcollab.platform.domain.Artifact;
+import com.localcollab.platform.domain.ArtifactType;
+import com.localcollab.platform.domain.Participant;
+import com.localcollab.platform.domain.ProviderAdapter;
+import com.localcollab.platform.domain.Room;
+import com.localcollab.platform.service.ProviderCallException;
+import com.localcollab.platform.service.ProviderCircuitOpenException;
+import com.localcollab.platform.service.ProviderDispatcher;
+import com.localcollab.platform.service.ProviderPrompt;
+import com.localcollab.platform.service.ProviderQueueFullException;
+import com.localcollab.platform.service.RoomCommand;
+import com.localcollab.platform.service.RoomService;
+import com.localcollab.platform.service.RoomUpdate;
+import com.localcollab.platform.web.dto.ProviderPromptRequest;
+import com.localcollab.platform.web.dto.RoomDeltaDTO;
+import com.localcollab.platform.web.dto.RoomDtoMapper;
+import jakarta.validation.Valid;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Prompts a room's API provider adapters. The request is answered once the completion has been written back, also
+ * when it is streamed to subscribers meanwhile; no server thread is held while the provider works.
+ */
+@RestController
+@RequestMapping("/api/rooms/{roomId}/providers/{adapterId}/prompts")
+public class ProviderDispatchController {
+
+    private final RoomService roomService;
+    private final ProviderDispatcher dispatcher;
+
+    public ProviderDispatchController(RoomService roomService, ProviderDispatcher dispatcher) {
+        this.roomService = roomService;
+        this.dispatcher = dispatcher;
+    }
+
+    @PostMapping
+    public CompletableFuture<ResponseEntity<Object>> prompt(@PathVariable UUID roomId, @PathVariable UUID adapterId, @Valid @RequestBody ProviderPromptRequest request) {
+        Room room = roomService.getRoom(roomId);
+        if (room == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Room not found");
+        }
+        ProviderAdapter adapter = room.findProviderAdapter(adapterId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Provider adapter not found"));
+        ProviderPrompt prompt = new ProviderPrompt(request.getModel(), request.getPrompt());
+        try {
+            CompletableFuture<? extends RoomUpdate<?>> update;
+            if (request.getReply() == ProviderPromptRequest.Reply.ARTIFACT) {
+                if (request.isStream()) {
+                    throw new IllegalArgumentException("Only message replies can be streamed");
+                }
+                ArtifactType type = request.getArtifactType() == null ? ArtifactType.NOTE : request.getArtifactType();
+                String title = request.getTitle() == null || request.getTitle().isBlank() ? adapter.getProviderName() + " reply" : request.getTitle();
+                update = dispatcher.dispatch(roomId, adapterId, prompt,
+                        completion -> new RoomCommand.AddArtifact(type, title, completion, request.getParentArtifactId()));
+            } else {
+                UUID author = author(room, adapter, request);
+                update = request.isStream()
+                        ? dispatcher.stream(roomId, adapterId, prompt, author)
+                        : dispatcher.dispatch(roomId, adapterId, prompt, completion -> new RoomCommand.PostMessage(author, completion));
+            }
+            return update.handle((result, failure) -> {
+                if (failure != null) {
+                    throw toStatus(failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure);
+                }
+                Object entity = result.value() instanceof Artifact artifact ? RoomDtoMapper.toArtifactDTO(artifact) : result.value();
+                return ResponseEntity.status(HttpStatus.CREATED)
+                        .eTag(RoomResponseCache.etag(result.room()))
+                        .body(new RoomDeltaDTO<>(roomId, result.version(), entity));
+            });
+        } catch (RuntimeException ex) {
+            throw toStatus(ex);
+        }
+    }
+
+    private static UUID author(Room room, ProviderAdapter adapter, ProviderPromptRequest request) {
+        if (request.getParticipantId() != null) {
+            return request.getParticipantId();
+        }
+        return room.getParticipants().stream()
+                .filter(participant -> adapter.getProviderName().equalsIgnoreCase(participant.getProvider()))
+                .findFirst()
+                .map(Participant::getId)
+                .orElseThrow(() -> new IllegalArgumentException("No participant is backed by " + adapter.getProviderName() + "; pass participantId"));
+    }
+
+    private static ResponseStatusException toStatus(Throwable failure) {
+        return switch (failure) {
+            case ResponseStatusException status -> status;
+            case ProviderCircuitOpenException open -> new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, open.getMessage(), open);
+            case ProviderQueueFullException full -> new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, full.getMessage(), full);
+            case ProviderCallException call -> new ResponseStatusException(HttpStatus.BAD_GATEWAY, call.getMessage(), call);
+            case IllegalArgumentException invalid -> new ResponseStatusException(HttpStatus.BAD_REQUEST, invalid.getMessage(), invalid);
+            case IllegalStateException conflict -> new ResponseStatusException(HttpStatus.CONFLICT, conflict.getMessage(), conflict);
+            default -> new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, failure.getMessage(), failure);
+        };
+    }
+}
@@ -0,0 +1,130 @@
+package com.localcollab.platform.web;
+
+import com.localcollab.platform.domain.Artifact;
+import com.localcollab.platform.domain.ArtifactType;
+import com.localcollab.platform.domain.ChatMessage;
+import com.localcollab.platform.domain.TaskLane;
+import com.localcollab.platform.service.RoomCommand;
+import com.localcollab.platform.web.dto.RoomBatchOperationRequest;
+import com.localcollab.platform.web.dto.RoomBatchResultDTO;
+import com.localcollab.platform.web.dto.RoomDtoMapper;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Translates batch requests into a {@link RoomCommand.Batch}. An id field holding {@code $name} is resolved, when its
+ * step runs, to the id of the entity created by the earlier operation whose {@code ref} is {@code name}.
+ */
+final class RoomBatches {
+
+    private static final String REF_PREFIX = "$";
+
+    private RoomBatches() {
+    }
+
+    /**
+     * Builds the batch command; {@code defaultAuthor} posts messages that name no participant. References are checked
+     * up front, so a batch naming an unknown or later ref is rejected before it touches the room.
+     */
+    static RoomCommand.Batch toCommand(List<RoomBatchOperationRequest> operations, UUID defaultAuthor) {
+        Map<String, Integer> refs = new HashMap<>();
+        List<Function<List<Object>, RoomCommand<?>>> steps = new ArrayList<>(operations.size());
+        for (RoomBatchOperationRequest operation : operations) {
+            IdResolver ids = new IdResolver(Map.copyOf(refs));
+            steps.add(toStep(operation, ids, defaultAuthor));
+            if (operation.getRef() != null) {
+                if (operation.getRef().isBlank() || refs.putIfAbsent(operation.getRef(), steps.size() - 1) != null) {
+                    throw new IllegalArgumentException("Batch refs must be unique and non-blank: " + operation.getRef());
+                }
+            }
+        }
+        return new RoomCommand.Batch(steps);
+    }
+
+    static RoomBatchResultDTO.Entry toEntry(RoomBatchOperationRequest operation, Object result) {
+        Object entity = switch (result) {
+            case Artifact artifact -> RoomDtoMapper.toArtifactDTO(artifact);
+            case TaskLane lane -> RoomDtoMapper.toTaskLaneDTO(lane);
+            default -> result;
+        };
+        return new RoomBatchResultDTO.Entry(operation.getOp().name(), operation.getRef(), entity);
+    }
+
+    private static Function<List<Object>, RoomCommand<?>> toStep(RoomBatchOperationRequest operation, IdResolver ids, UUID defaultAuthor) {
+        ids.check(operation.getParentArtifactId(), operation.getParticipantId(), operation.getImplementorId(),
+                operation.getLaneId(), operation.getTaskArtifactId());
+        return switch (operation.getOp()) {
+            case ADD_ARTIFACT -> results -> new RoomCommand.AddArtifact(
+                    operation.getType() == null ? ArtifactType.NOTE : operation.getType(),
+                    operation.getTitle(),
+                    operation.getContent(),
+                    ids.resolve(operation.getParentArtifactId(), results));
+            case POST_MESSAGE -> results -> {
+                UUID author = ids.resolve(operation.getParticipantId(), results);
+                if (author == null && defaultAuthor == null) {
+                    throw new IllegalArgumentException("No human participant configured");
+                }
+                return new RoomCommand.PostMessage(author == null ? defaultAuthor : author, operation.getContent());
+            };
+            case CREATE_TASK_LANE -> results -> {
+                if (operation.getName() == null || operation.getName().isBlank()) {
+                    throw new IllegalArgumentException("Task lane name must not be blank");
+                }
+                return new RoomCommand.CreateTaskLane(operation.getName(), ids.resolve(operation.getImplementorId(), results));
+            };
+            case ASSIGN_TASK -> results -> new RoomCommand.AssignTask(
+                    ids.resolve(operation.getLaneId(), results),
+                    ids.resolve(operation.getTaskArtifactId(), results));
+            case UPDATE_TASK_LANE_STATE -> results -> new RoomCommand.UpdateTaskLaneState(
+                    ids.resolve(operation.getLaneId(), results),
+                    operation.getState());
+        };
+    }
+
+    private record IdResolver(Map<String, Integer> refs) {
+
+        void check(String... values) {
+            for (String value : values) {
+                if (value == null) {
+                    continue;
+                }
+                if (value.startsWith(REF_PREFIX)) {
+                    if (!refs.containsKey(value.substring(REF_PREFIX.length()))) {
+                        throw new IllegalArgumentException("Unknown batch ref " + value + "; refs must be defined by an earlier operation");
+                    }
+                } else {
+                    parse(value);
+                }
+            }
+        }
+
+        UUID resolve(String value, List<Object> results) {
+            if (value == null) {
+                return null;
+            }
+            if (!value.startsWith(REF_PREFIX)) {
+                return parse(value);
+            }
+            Object entity = results.get(refs.get(value.substring(REF_PREFIX.length())));
+            return switch (entity) {
+                case Artifact artifact -> artifact.getId();
+                case TaskLane lane -> lane.getId();
+                case ChatMessage message -> message.getId();
+                default -> throw new IllegalArgumentException("Batch ref " + value + " does not name an entity with an id");
+            };
+        }
+
+        private static UUID parse(String value) {
+            try {
+                return UUID.fromString(value);
+            } catch (IllegalArgumentException ex) {
+                throw new IllegalArgumentException("Invalid id: " + value, ex);
+            }
+        }
+    }
+}
@@ -1,46 +1,96 @@
 package com.localcollab.platform.web;
 
+import com.localcollab.platform.domain.Artifact;
 import com.localcollab.platform.domain.ArtifactType;
 import com.localcollab.platform.domain.ChatMessage;
+import com.localcollab.platform.domain.DriverStatus;
+import com.localcollab.platform.domain.ProviderAdapter;
 import com.localcollab.platform.domain.Room;
+import com.localcollab.platform.domain.RoomEvent;
 import com.localcollab.platform.domain.Participant;
 import com.localcollab.platform.domain.ParticipantRole;
 import com.localcollab.platform.domain.ParticipantType;
-import com.localcollab.platform.service.InMemoryRoomService;
+import com.localcollab.platform.domain.TaskLane;
+import com.localcollab.platform.service.ProviderCircuitBreaker;
+import com.localcollab.platform.service.ProviderCircuitBreakers;
+import com.localcollab.platform.service.ProviderCircuitStatus;
+import com.localcollab.platform.service.RoomCommand;
+import com.localcollab.platform.service.RoomService;
+import com.localcollab.platform.service.RoomUpdate;
+import com.localcollab.platform.service.RoomVersionConflictException;
+import com.localcollab.platform.web.dto.ArtifactDTO;
 import com.localcollab.platform.web.dto.ArtifactRequest;
 import com.localcollab.platform.web.dto.ChatMessageRequest;
 import com.localcollab.platform.web.dto.DriverFailureRequest;
 import com.localcollab.platform.web.dto.ParticipantRequest;
 import com.localcollab.platform.web.dto.ProviderAdapterRequest;
+import com.localcollab.platform.web.dto.RoomBatchOperationRequest;
+import com.localcollab.platform.web.dto.RoomBatchRequest;
+import com.localcollab.platform.web.dto.RoomBatchResultDTO;
+import com.localcollab.platform.web.dto.RoomDeltaDTO;
 import com.localcollab.platform.web.dto.RoomDetailDTO;
 import com.localcollab.platform.web.dto.RoomDtoMapper;
 import com.localcollab.platform.web.dto.RoomRequest;
 import com.localcollab.platform.web.dto.RoomSummaryDTO;
+import com.localcollab.platform.web.dto.SequencedDTO;
 import com.localcollab.platform.web.dto.TaskLaneRequest;
 import com.localcollab.platform.web.dto.TaskLaneTaskRequest;
 import com.localcollab.platform.web.dto.TaskLaneStateRequest;
 import jakarta.validation.Valid;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ProblemDetail;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 
 @RestController
 @RequestMapping("/api/rooms")
 public class RoomController {
 
-    private final InMemoryRoomService roomService;
+    private static final String PREFER = "Prefer";
+    private static final String PREFERENCE_APPLIED = "Preference-Applied";
+    private static final String RETURN_MINIMAL = "return=minimal";
+    private static final String RESPONSE_PARAMETER = "response";
+    private static final String RESPONSE_DELTA = "delta";
+    private static final String EXPECTED_VERSION_PARAMETER = "expectedVersion";
 
-    public RoomController(InMemoryRoomService roomService) {
+    private final RoomService roomService;
+    private final RoomResponseCache responseCache;
+    private final RoomEventStream eventStream;
+    private final MessageLongPoll messageLongPoll;
+    private final ProviderCircuitBreakers circuitBreakers;
+
+    public RoomController(RoomService roomService,
+                          RoomResponseCache responseCache,
+                          RoomEventStream eventStream,
+                          MessageLongPoll messageLongPoll,
+                          ProviderCircuitBreakers circuitBreakers) {
         this.roomService = roomService;
+        this.responseCache = responseCache;
+        this.eventStream = eventStream;
+        this.messageLongPoll = messageLongPoll;
+        this.circuitBreakers = circuitBreakers;
     }
 
     @GetMapping
@@ -52,6 +102,21 @@ public class RoomController {
         return summaries;
     }
 
+    /**
+     * Room detail with an {@code ETag} of the room version. A matching {@code If-None-Match} gets 304 without a body;
+     * otherwise the serialized response is served from {@link RoomResponseCache}.
+     */
+    @GetMapping("/{roomId}")
+    public ResponseEntity<byte[]> getRoom(@PathVariable UUID roomId, WebRequest webRequest) {
+        Room room = getRoomOrThrow(roomId);
+        if (webRequest.checkNotModified(RoomResponseCache.etag(room))) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(responseCache.roomDetail(room));
+    }
+
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
     public RoomDetailDTO createRoom(@Valid @RequestBody RoomRequest request) {
@@ -60,8 +125,7 @@ public class RoomController {
     }
 
     @PostMapping("/{roomId}/participants")
-    @ResponseStatus(HttpStatus.CREATED)
-    public RoomDetailDTO addParticipant(@PathVariable UUID roomId, @Valid @RequestBody ParticipantRequest request) {
+    public ResponseEntity<Object> addParticipant(@PathVariable UUID roomId, @Valid @RequestBody ParticipantRequest request, WebRequest webRequest) {
         Participant participant = new Participant(
                 UUID.randomUUID(),
                 request.getDisplayName(),
@@ -70,18 +134,19 @@ public class RoomController {
                 request.getProvider(),
                 request.getCapabilities());
         try {
-            return RoomDtoMapper.toRoomDetail(roomService.addParticipant(roomId, participant));
+            RoomUpdate<Participant> update = execute(roomId, webRequest, new RoomCommand.AddParticipant(participant));
+            return respond(HttpStatus.CREATED, update, RoomDtoMapper.toParticipantDTO(update.value()), webRequest);
         } catch (IllegalStateException ex) {
             throw new ResponseStatusException(HttpStatus.CONFLICT, ex.getMessage(), ex);
         }
     }
 
     @PostMapping("/{roomId}/providers")
-    @ResponseStatus(HttpStatus.CREATED)
-    public RoomDetailDTO registerProvider(@PathVariable UUID roomId, @Valid @RequestBody ProviderAdapterRequest request) {
+    public ResponseEntity<Object> registerProvider(@PathVariable UUID roomId, @Valid @RequestBody ProviderAdapterRequest request, WebRequest webRequest) {
         try {
-            roomService.registerProvider(roomId, request.getProviderName(), request.getAccessMode(), request.getCapabilities(), request.getEndpoint(), request.isAvailable());
-            return RoomDtoMapper.toRoomDetail(roomService.getRoom(roomId));
+            RoomUpdate<ProviderAdapter> update = execute(roomId, webRequest, new RoomCommand.RegisterProvider(
+                    request.getProviderName(), request.getAccessMode(), request.getCapabilities(), request.getEndpoint(), request.isAvailable()));
+            return respond(HttpStatus.CREATED, update, RoomDtoMapper.toProviderAdapterDTO(update.value()), webRequest);
         } catch (IllegalArgumentException ex) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage(), ex);
         } catch (IllegalStateException ex) {
@@ -90,12 +155,12 @@ public class RoomController {
     }
 
     @PostMapping("/{roomId}/artifacts")
-    @ResponseStatus(HttpStatus.CREATED)
-    public RoomDetailDTO addArtifact(@PathVariable UUID roomId, @Valid @RequestBody ArtifactRequest request) {
+    public ResponseEntity<Object> addArtifact(@PathVariable UUID roomId, @Valid @RequestBody ArtifactRequest request, WebRequest webRequest) {
         ArtifactType type = request.getType() == null ? ArtifactType.NOTE : request.getType();
         try {
-            roomService.addArtifact(roomId, type, request.getTitle(), request.getContent(), request.getParentArtifactId());
-            return RoomDtoMapper.toRoomDetail(roomService.getRoom(roomId));
+            RoomUpdate<Artifact> update = execute(roomId, webRequest, new RoomCommand.AddArtifact(
+                    type, request.getTitle(), request.getContent(), request.getParentArtifactId()));
+            return respond(HttpStatus.CREATED, update, RoomDtoMapper.toArtifactDTO(update.value()), webRequest);
         } catch (IllegalArgumentException ex) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage(), ex);
         } catch (IllegalStateException ex) {
@@ -104,11 +169,10 @@ public class RoomController {
     }
 
     @PostMapping("/{roomId}/task-lanes")
-    @ResponseStatus(HttpStatus.CREATED)
-    public RoomDetailDTO createTaskLane(@PathVariable UUID roomId, @Valid @RequestBody TaskLaneRequest request) {
+    public ResponseEntity<Object> createTaskLane(@PathVariable UUID roomId, @Valid @RequestBody TaskLaneRequest request, WebRequest webRequest) {
         try {
-            roomService.createTaskLane(roomId, request.getName(), request.getImplementorId());
-            return RoomDtoMapper.toRoomDetail(roomService.getRoom(roomId));
+            RoomUpdate<TaskLane> update = execute(roomId, webRequest, new RoomCommand.CreateTaskLane(request.getName(), request.getImplementorId()));
+            return respond(HttpStatus.CREATED, update, RoomDtoMapper.toTaskLaneDTO(update.value()), webRequest);
         } catch (IllegalArgumentException ex) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage(), ex);
         } catch (IllegalStateException ex) {
@@ -117,11 +181,10 @@ public class RoomController {
     }
 
     @PostMapping("/{roomId}/task-lanes/{laneId}/tasks")
-    @ResponseStatus(HttpStatus.CREATED)
-    public RoomDetailDTO assignTaskToLane(@PathVariable UUID roomId, @PathVariable UUID laneId, @Valid @RequestBody TaskLaneTaskRequest request) {
+    public ResponseEntity<Object> assignTaskToLane(@PathVariable UUID roomId, @PathVariable UUID laneId, @Valid @RequestBody TaskLaneTaskRequest request, WebRequest webRequest) {
         try {
-            roomService.assignTaskToLane(roomId, laneId, request.getTaskArtifactId());
-            return RoomDtoMapper.toRoomDetail(roomService.getRoom(roomId));
+            RoomUpdate<TaskLane> update = execute(roomId, webRequest, new RoomCommand.AssignTask(laneId, request.getTaskArtifactId()));
+            return respond(HttpStatus.CREATED, update, RoomDtoMapper.toTaskLaneDTO(update.value()), webRequest);
         } catch (IllegalArgumentException ex) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage(), ex);
         } catch (IllegalStateException ex) {
@@ -130,11 +193,10 @@ public class RoomController {
     }
 
     @PostMapping("/{roomId}/task-lanes/{laneId}/state")
-    @ResponseStatus(HttpStatus.CREATED)
-    public RoomDetailDTO updateTaskLaneState(@PathVariable UUID roomId, @PathVariable UUID laneId, @Valid @RequestBody TaskLaneStateRequest request) {
+    public ResponseEntity<Object> updateTaskLaneState(@PathVariable UUID roomId, @PathVariable UUID laneId, @Valid @RequestBody TaskLaneStateRequest request, WebRequest webRequest) {
         try {
-            roomService.updateTaskLaneState(roomId, laneId, request.getState());
-            return RoomDtoMapper.toRoomDetail(roomService.getRoom(roomId));
+            RoomUpdate<TaskLane> update = execute(roomId, webRequest, new RoomCommand.UpdateTaskLaneState(laneId, request.getState()));
+            return respond(HttpStatus.CREATED, update, RoomDtoMapper.toTaskLaneDTO(update.value()), webRequest);
         } catch (IllegalArgumentException ex) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage(), ex);
         } catch (IllegalStateException ex) {
@@ -142,22 +204,114 @@ public class RoomController {
         }
     }
 
-    @GetMapping("/{roomId}/messages")
-    public List<ChatMessage> listMessages(@PathVariable UUID roomId) {
-        Room room = roomService.getRoom(roomId);
-        if (room == null) {
-            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Room not found");
+    /**
+     * The room's full chat history, as a plain list. Sending {@code after}, {@code before} or {@code limit} selects
+     * {@link #pageMessages} instead.
+     */
+    @GetMapping(path = "/{roomId}/messages", params = {"!after", "!before", "!limit", "!waitMs"})
+    public List<ChatMessage> listMessages(@PathVariable UUID roomId, WebRequest webRequest) {
+        Room room = getRoomOrThrow(roomId);
+        if (webRequest.checkNotModified(RoomResponseCache.etag(room))) {
+            return null;
         }
         return room.getMessages();
     }
 
-    @PostMapping("/{roomId}/messages")
-    @ResponseStatus(HttpStatus.CREATED)
-    public ChatMessage postMessage(@PathVariable UUID roomId, @Valid @RequestBody ChatMessageRequest request) {
-        Room room = roomService.getRoom(roomId);
-        if (room == null) {
-            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Room not found");
+    /**
+     * A page of the chat history by sequence number; see {@link SequencePages#slice}.
+     */
+    @GetMapping("/{roomId}/messages")
+    public List<SequencedDTO<ChatMessage>> pageMessages(@PathVariable UUID roomId,
+                                                         @RequestParam(required = false) Long after,
+                                                         @RequestParam(required = false) Long before,
+                                                         @RequestParam(required = false) Integer limit,
+                                                         WebRequest webRequest) {
+        Room room = getRoomOrThrow(roomId);
+        if (webRequest.checkNotModified(RoomResponseCache.etag(room))) {
+            return null;
+        }
+        return page(room.getMessages(), after, before, limit);
+    }
+
+    /**
+     * Messages still being streamed into the room, with the text received so far. They join the history under the
+     * same id once finished; WebSocket subscribers receive their chunks as {@code chunk} frames.
+     */
+    @GetMapping("/{roomId}/messages/streaming")
+    public List<ChatMessage> listStreamingMessages(@PathVariable UUID roomId) {
+        try {
+            return roomService.findStreamingMessages(roomId);
+        } catch (IllegalArgumentException ex) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, ex.getMessage(), ex);
+        }
+    }
+
+    /**
+     * Long-poll variant of {@link #pageMessages}: answers at once with the messages after {@code after} (default: the
+     * newest message), or parks the request without holding a thread until one arrives or {@code waitMs} expires.
+     */
+    @GetMapping(path = "/{roomId}/messages", params = "waitMs")
+    public DeferredResult<List<SequencedDTO<ChatMessage>>> awaitMessages(@PathVariable UUID roomId,
+                                                                        @RequestParam(required = false) Long after,
+                                                                        @RequestParam(required = false) Integer limit,
+                                                                        @RequestParam long waitMs) {
+        if (waitMs < 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "waitMs must not be negative");
+        }
+        Room room = getRoomOrThrow(roomId);
+        long cursor = after != null ? after : room.getMessages().size();
+        List<SequencedDTO<ChatMessage>> available = page(room.getMessages(), cursor, null, limit);
+        if (!available.isEmpty()) {
+            DeferredResult<List<SequencedDTO<ChatMessage>>> result = new DeferredResult<>();
+            result.setResult(available);
+            return result;
+        }
+        return messageLongPoll.await(roomId, cursor, limit, waitMs);
+    }
+
+    @GetMapping("/{roomId}/artifacts")
+    public List<SequencedDTO<ArtifactDTO>> listArtifacts(@PathVariable UUID roomId,
+                                                         @RequestParam(required = false) Long after,
+                                                         @RequestParam(required = false) Long before,
+                                                         @RequestParam(required = false) Integer limit,
+                                                         WebRequest webRequest) {
+        Room room = getRoomOrThrow(roomId);
+        if (webRequest.checkNotModified(RoomResponseCache.etag(room))) {
+            return null;
+        }
+        return page(room.getArtifacts(), after, before, limit).stream()
+                .map(entry -> new SequencedDTO<>(entry.getSeq(), RoomDtoMapper.toArtifactDTO(entry.getItem())))
+                .toList();
+    }
+
+    @GetMapping("/{roomId}/events")
+    public List<SequencedDTO<RoomEvent>> listEvents(@PathVariable UUID roomId,
+                                                    @RequestParam(required = false) Long after,
+                                                    @RequestParam(required = false) Long before,
+                                                    @RequestParam(required = false) Integer limit,
+                                                    WebRequest webRequest) {
+        Room room = getRoomOrThrow(roomId);
+        if (webRequest.checkNotModified(RoomResponseCache.etag(room))) {
+            return null;
         }
+        return page(room.getEvents(), after, before, limit);
+    }
+
+    /**
+     * Server-Sent Events stream of the room's events, each with its {@code seq} as event id. Resumes after
+     * {@code Last-Event-ID} (sent by browsers on reconnect) or {@code after}; otherwise starts with the next event.
+     */
+    @GetMapping(path = "/{roomId}/events/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamEvents(@PathVariable UUID roomId,
+                                   @RequestHeader(name = "Last-Event-ID", required = false) Long lastEventId,
+                                   @RequestParam(required = false) Long after) {
+        Room room = getRoomOrThrow(roomId);
+        return eventStream.subscribe(room, lastEventId != null ? lastEventId : after);
+    }
+
+    @PostMapping("/{roomId}/messages")
+    public ResponseEntity<Object> postMessage(@PathVariable UUID roomId, @Valid @RequestBody ChatMessageRequest request, WebRequest webRequest) {
+        Room room = getRoomOrThrow(roomId);
 
         UUID participantId = request.getParticipantId();
         if (participantId == null) {
@@ -169,7 +323,11 @@ public class RoomController {
         }
 
         try {
-            return roomService.addMessage(roomId, participantId, request.getContent());
+            RoomUpdate<ChatMessage> update = execute(roomId, webRequest, new RoomCommand.PostMessage(participantId, request.getContent()));
+            // The full response of this endpoint has always been the message itself.
+            return wantsDelta(webRequest)
+                    ? respond(HttpStatus.CREATED, update, update.value(), webRequest)
+                    : ResponseEntity.status(HttpStatus.CREATED).eTag(RoomResponseCache.etag(update.room())).body(update.value());
         } catch (IllegalArgumentException ex) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage(), ex);
         } catch (IllegalStateException ex) {
@@ -177,48 +335,203 @@ public class RoomController {
         }
     }
 
-    @PostMapping("/{roomId}/pause")
-    public RoomDetailDTO pauseRoom(@PathVariable UUID roomId) {
+    /**
+     * Applies the operations in order and all-or-nothing under one room update, answering with the entity of each
+     * operation and the resulting version. Ids may refer to earlier operations through {@code $ref}.
+     */
+    @PostMapping("/{roomId}/batch")
+    public ResponseEntity<RoomBatchResultDTO> applyBatch(@PathVariable UUID roomId, @Valid @RequestBody RoomBatchRequest request, WebRequest webRequest) {
+        Room room = getRoomOrThrow(roomId);
+        UUID defaultAuthor = room.getParticipants().stream()
+                .filter(p -> p.getType() == ParticipantType.HUMAN)
+                .findFirst()
+                .map(Participant::getId)
+                .orElse(null);
+        List<RoomBatchOperationRequest> operations = request.getOperations();
         try {
-            return RoomDtoMapper.toRoomDetail(roomService.pauseRoom(roomId));
+            RoomUpdate<List<Object>> update = execute(roomId, webRequest, RoomBatches.toCommand(operations, defaultAuthor));
+            List<RoomBatchResultDTO.Entry> results = new ArrayList<>(operations.size());
+            for (int i = 0; i < operations.size(); i++) {
+                results.add(RoomBatches.toEntry(operations.get(i), update.value().get(i)));
+            }
+            return ResponseEntity.ok()
+                    .eTag(RoomResponseCache.etag(update.room()))
+                    .body(new RoomBatchResultDTO(roomId, update.version(), results));
         } catch (IllegalArgumentException ex) {
-            throw new ResponseStatusException(HttpStatus.NOT_FOUND, ex.getMessage(), ex);
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage(), ex);
+        } catch (IllegalStateException ex) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, ex.getMessage(), ex);
         }
     }
 
+    @PostMapping("/{roomId}/pause")
+    public ResponseEntity<Object> pauseRoom(@PathVariable UUID roomId, WebRequest webRequest) {
+        return changeState(roomId, new RoomCommand.PauseRoom(), webRequest);
+    }
+
     @PostMapping("/{roomId}/resume")
-    public RoomDetailDTO resumeRoom(@PathVariable UUID roomId) {
-        try {
-            return RoomDtoMapper.toRoomDetail(roomService.resumeRoom(roomId));
-        } catch (IllegalArgumentException ex) {
-            throw new ResponseStatusException(HttpStatus.NOT_FOUND, ex.getMessage(), ex);
-        }
+    public ResponseEntity<Object> resumeRoom(@PathVariable UUID roomId, WebRequest webRequest) {
+        return changeState(roomId, new RoomCommand.ResumeRoom(), webRequest);
     }
 
+    /**
+     * Records a driver failure. With {@code adapterId} the failure is charged to that provider adapter's circuit
+     * breaker and the room keeps running; without it the room's own driver status counts it.
+     */
     @PostMapping("/{roomId}/driver/failures")
-    public RoomDetailDTO recordDriverFailure(@PathVariable UUID roomId, @Valid @RequestBody DriverFailureRequest request) {
+    public ResponseEntity<Object> recordDriverFailure(@PathVariable UUID roomId,
+                                                      @RequestParam(required = false) UUID adapterId,
+                                                      @Valid @RequestBody DriverFailureRequest request,
+                                                      WebRequest webRequest) {
+        if (adapterId != null) {
+            ProviderCircuitBreaker breaker = circuitBreakers.forAdapter(getProviderAdapterOrThrow(roomId, adapterId));
+            breaker.onFailure(request.getReason());
+            return ResponseEntity.ok(breaker.status());
+        }
+        return changeState(roomId, new RoomCommand.RecordDriverFailure(request.getReason()), webRequest);
+    }
+
+    @PostMapping("/{roomId}/driver/recoveries")
+    public ResponseEntity<Object> recordDriverRecovery(@PathVariable UUID roomId, @RequestParam(required = false) UUID adapterId, WebRequest webRequest) {
+        if (adapterId != null) {
+            ProviderCircuitBreaker breaker = circuitBreakers.forAdapter(getProviderAdapterOrThrow(roomId, adapterId));
+            breaker.reset();
+            return ResponseEntity.ok(breaker.status());
+        }
+        return changeState(roomId, new RoomCommand.RecordDriverRecovery(), webRequest);
+    }
+
+    @GetMapping("/{roomId}/providers/{adapterId}/circuit")
+    public ProviderCircuitStatus getProviderCircuit(@PathVariable UUID roomId, @PathVariable UUID adapterId) {
+        return circuitBreakers.status(getProviderAdapterOrThrow(roomId, adapterId));
+    }
+
+    @GetMapping("/{roomId}/summary")
+    public RoomSummaryDTO summarizeRoom(@PathVariable UUID roomId) {
         try {
-            return RoomDtoMapper.toRoomDetail(roomService.recordDriverFailure(roomId, request.getReason()));
+            return RoomDtoMapper.toRoomSummary(roomService.summarizeRoom(roomId));
         } catch (IllegalArgumentException ex) {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, ex.getMessage(), ex);
         }
     }
 
-    @PostMapping("/{roomId}/driver/recoveries")
-    public RoomDetailDTO recordDriverRecovery(@PathVariable UUID roomId) {
+    private ResponseEntity<Object> changeState(UUID roomId, RoomCommand<DriverStatus> command, WebRequest webRequest) {
         try {
-            return RoomDtoMapper.toRoomDetail(roomService.recordDriverRecovery(roomId));
+            RoomUpdate<DriverStatus> update = execute(roomId, webRequest, command);
+            return respond(HttpStatus.OK, update, RoomDtoMapper.toRoomState(update.room()), webRequest);
         } catch (IllegalArgumentException ex) {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, ex.getMessage(), ex);
         }
     }
 
-    @GetMapping("/{roomId}/summary")
-    public RoomSummaryDTO summarizeRoom(@PathVariable UUID roomId) {
+    /**
+     * Runs a mutation, made conditional on the room version when the client sent {@code If-Match} or
+     * {@code ?expectedVersion}.
+     */
+    private <T> RoomUpdate<T> execute(UUID roomId, WebRequest webRequest, RoomCommand<T> command) {
+        Set<Long> expectedVersions = expectedVersions(webRequest);
+        return roomService.execute(roomId, expectedVersions == null ? command : new RoomCommand.Conditional<>(expectedVersions, command));
+    }
+
+    /**
+     * Reads the versions a write may be based on from {@code If-Match} (the room's ETags) or {@code ?expectedVersion}.
+     * {@code If-Match: *} sets no condition. A list matches if any of its tags does. Tags are compared strongly
+     * (RFC 9110, section 13.1.1), so weak tags never match, and neither do tags that are not a room version; a header
+     * naming nothing else therefore matches no version.
+     */
+    private static Set<Long> expectedVersions(WebRequest webRequest) {
+        String parameter = webRequest.getParameter(EXPECTED_VERSION_PARAMETER);
+        if (parameter != null) {
+            try {
+                return Set.of(Long.parseLong(parameter.trim()));
+            } catch (NumberFormatException ex) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "expectedVersion must be a number", ex);
+            }
+        }
+        String[] headers = webRequest.getHeaderValues(HttpHeaders.IF_MATCH);
+        if (headers == null) {
+            return null;
+        }
+        Set<Long> versions = new HashSet<>();
+        boolean named = false;
+        for (String header : headers) {
+            for (String element : header.split(",")) {
+                String tag = element.trim();
+                if (tag.isEmpty()) {
+                    continue;
+                }
+                if (tag.equals("*")) {
+                    return null;
+                }
+                named = true;
+                if (tag.length() > 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+                    try {
+                        versions.add(Long.parseLong(tag.substring(1, tag.length() - 1)));
+                    } catch (NumberFormatException ignored) {
+                        // Not a room version, so it never matches.
+                    }
+                }
+            }
+        }
+        return named ? versions : null;
+    }
+
+    /**
+     * A stale {@code If-Match}/{@code expectedVersion}: answer 412 with the current version so the client can reload
+     * and retry.
+     */
+    @ExceptionHandler(RoomVersionConflictException.class)
+    public ResponseEntity<ProblemDetail> versionConflict(RoomVersionConflictException ex) {
+        return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED)
+                .eTag("\"" + ex.getActualVersion() + "\"")
+                .body(ProblemDetail.forStatusAndDetail(HttpStatus.PRECONDITION_FAILED, ex.getMessage()));
+    }
+
+    /**
+     * Answers a mutation with the full room detail, or with only {@code entity} and the new version when the client
+     * opted in. Both carry the new version as {@code ETag}.
+     */
+    private static ResponseEntity<Object> respond(HttpStatus status, RoomUpdate<?> update, Object entity, WebRequest webRequest) {
+        Room room = update.room();
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(status).eTag(RoomResponseCache.etag(room));
+        if (wantsDelta(webRequest)) {
+            return response.header(PREFERENCE_APPLIED, RETURN_MINIMAL)
+                    .body(new RoomDeltaDTO<>(room.getId(), room.getVersion(), entity));
+        }
+        return response.body(RoomDtoMapper.toRoomDetail(room));
+    }
+
+    /**
+     * Delta responses are opt-in through {@code Prefer: return=minimal} (RFC 7240) or {@code ?response=delta}.
+     */
+    private static boolean wantsDelta(WebRequest webRequest) {
+        if (RESPONSE_DELTA.equalsIgnoreCase(webRequest.getParameter(RESPONSE_PARAMETER))) {
+            return true;
+        }
+        String[] prefer = webRequest.getHeaderValues(PREFER);
+        return prefer != null && Arrays.stream(prefer)
+                .flatMap(header -> Arrays.stream(header.split(",")))
+                .anyMatch(preference -> RETURN_MINIMAL.equalsIgnoreCase(preference.trim()));
+    }
+
+    private ProviderAdapter getProviderAdapterOrThrow(UUID roomId, UUID adapterId) {
+        return getRoomOrThrow(roomId).findProviderAdapter(adapterId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Provider adapter not found"));
+    }
+
+    private Room getRoomOrThrow(UUID roomId) {
+        Room room = roomService.getRoom(roomId);
+        if (room == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Room not found");
+        }
+        return room;
+    }
+
+    private static <T> List<SequencedDTO<T>> page(List<T> entries, Long after, Long before, Integer limit) {
         try {
-            return RoomDtoMapper.toRoomSummary(roomService.summarizeRoom(roomId));
+            return SequencePages.slice(entries, after, before, limit);
         } catch (IllegalArgumentException ex) {
-            throw new ResponseStatusException(HttpStatus.NOT_FOUND, ex.getMessage(), ex);
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage(), ex);
         }
     }
 }
@@ -0,0 +1,272 @@
+package com.localcollab.platform.web;
+
+import com.localcollab.platform.domain.Room;
+import com.localcollab.platform.domain.RoomEvent;
+import com.localcollab.platform.service.RoomEventListener;
+import com.localcollab.platform.service.RoomService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Pushes room events to Server-Sent Events subscribers.
+ * <p>
+ * Each room keeps its newest events in a bounded ring buffer. A subscriber is just an emitter and a cursor (the last
+ * {@code seq} it was sent): a new event signals the room's subscribers, and each one is sent everything past its cursor
+ * on a virtual thread of its own, so a client that stops reading blocks only its own sends. Open connections hold no
+ * thread while idle. A reconnecting client resumes from its {@code Last-Event-ID}; cursors that have fallen out of the
+ * ring are served from the room's event history.
+ * <p>
+ * The ring is also every subscriber's send queue. A subscriber that has caught up and then falls a whole ring behind
+ * is dropped: its stream is completed and the client resyncs by reconnecting with its {@code Last-Event-ID}.
+ */
+public class RoomEventStream implements RoomEventListener, Closeable {
+
+    static final String EVENT_NAME = "room-event";
+
+    private static final Logger log = LoggerFactory.getLogger(RoomEventStream.class);
+    private static final int BATCH_SIZE = 256;
+
+    private final RoomService roomService;
+    private final int bufferSize;
+    private final long timeoutMillis;
+    private final ExecutorService dispatcher = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("room-event-stream-", 1).factory());
+    private final Map<UUID, Channel> channels = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    private final Counter dropped;
+
+    public RoomEventStream(RoomService roomService, int bufferSize, Duration timeout, MeterRegistry meterRegistry) {
+        if (bufferSize < 1) {
+            throw new IllegalArgumentException("Event stream buffer size must be positive");
+        }
+        this.roomService = roomService;
+        this.bufferSize = bufferSize;
+        this.timeoutMillis = timeout.toMillis();
+        meterRegistry.gauge("room.events.subscribers", subscriberCount);
+        this.dropped = Counter.builder("room.events.dropped")
+                .description("Event stream subscribers dropped for falling a whole buffer behind")
+                .register(meterRegistry);
+        roomService.addEventListener("sse", this);
+    }
+
+    @Override
+    public void onEvent(long seq, RoomEvent event) {
+        channels.computeIfAbsent(event.getRoomId(), roomId -> new Channel(seq - 1)).append(seq, event);
+    }
+
+    /**
+     * Opens a stream of the room's events. With {@code lastEventId} the stream resumes after that {@code seq};
+     * without it, only events recorded from now on are sent.
+     */
+    public SseEmitter subscribe(Room room, Long lastEventId) {
+        Channel channel = channels.computeIfAbsent(room.getId(), roomId -> new Channel(room.getEvents().size()));
+        long head = channel.lastSeq();
+        long cursor = lastEventId == null ? head : Math.max(0, Math.min(lastEventId, head));
+
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        Subscriber subscriber = new Subscriber(room.getId(), channel, emitter, cursor);
+        emitter.onCompletion(subscriber::close);
+        emitter.onTimeout(subscriber::close);
+        emitter.onError(error -> subscriber.close());
+        channel.subscribers.add(subscriber);
+        subscriberCount.incrementAndGet();
+        subscriber.signal();
+        return emitter;
+    }
+
+    int subscriberCount() {
+        return subscriberCount.get();
+    }
+
+    @Override
+    public void close() {
+        dispatcher.shutdownNow();
+        channels.values().forEach(channel -> channel.subscribers.forEach(subscriber -> subscriber.emitter.complete()));
+    }
+
+    private record SequencedEvent(long seq, RoomEvent event) {
+    }
+
+    private final class Channel {
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private final RoomEvent[] ring = new RoomEvent[bufferSize];
+        private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+        // Events up to baseSeq were recorded before the channel existed and are only in the room history.
+        private long baseSeq;
+        private long lastSeq;
+
+        private Channel(long baseSeq) {
+            this.baseSeq = baseSeq;
+            this.lastSeq = baseSeq;
+        }
+
+        void append(long seq, RoomEvent event) {
+            lock.lock();
+            try {
+                if (seq <= lastSeq) {
+                    return;
+                }
+                if (seq != lastSeq + 1) {
+                    baseSeq = seq - 1;
+                }
+                ring[slot(seq)] = event;
+                lastSeq = seq;
+            } finally {
+                lock.unlock();
+            }
+            subscribers.forEach(Subscriber::signal);
+        }
+
+        long lastSeq() {
+            lock.lock();
+            try {
+                return lastSeq;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Returns the events after {@code cursor} that are still buffered, or {@code null} if some have been overwritten.
+         */
+        List<SequencedEvent> readAfter(long cursor) {
+            lock.lock();
+            try {
+                long oldest = Math.max(baseSeq, lastSeq - bufferSize) + 1;
+                if (cursor + 1 < oldest && cursor < lastSeq) {
+                    return null;
+                }
+                long to = Math.min(lastSeq, cursor + BATCH_SIZE);
+                List<SequencedEvent> batch = new ArrayList<>((int) Math.max(0, to - cursor));
+                for (long seq = cursor + 1; seq <= to; seq++) {
+                    batch.add(new SequencedEvent(seq, ring[slot(seq)]));
+                }
+                return batch;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private int slot(long seq) {
+            return (int) ((seq - 1) % bufferSize);
+        }
+    }
+
+    private final class Subscriber {
+
+        private final UUID roomId;
+        private final Channel channel;
+        private final SseEmitter emitter;
+        private final AtomicInteger pendingSignals = new AtomicInteger();
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private long cursor;
+        // Set once the subscriber reads from the ring; it may then no longer fall back to the history.
+        private boolean live;
+
+        private Subscriber(UUID roomId, Channel channel, SseEmitter emitter, long cursor) {
+            this.roomId = roomId;
+            this.channel = channel;
+            this.emitter = emitter;
+            this.cursor = cursor;
+        }
+
+        /**
+         * Schedules a drain unless one is already pending; the drain loop picks up signals that arrive while it runs,
+         * so at most one thread sends to this emitter at a time.
+         */
+        void signal() {
+            if (pendingSignals.getAndIncrement() == 0) {
+                try {
+                    dispatcher.execute(this::drain);
+                } catch (RejectedExecutionException ex) {
+                    close();
+                }
+            }
+        }
+
+        private void drain() {
+            int missed = 1;
+            do {
+                if (!closed.get()) {
+                    deliver();
+                }
+                missed = pendingSignals.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        private void deliver() {
+            try {
+                List<SequencedEvent> batch;
+                while ((batch = nextBatch()) != null && !batch.isEmpty()) {
+                    for (SequencedEvent entry : batch) {
+                        emitter.send(SseEmitter.event()
+                                .id(Long.toString(entry.seq()))
+                                .name(EVENT_NAME)
+                                .data(entry.event(), MediaType.APPLICATION_JSON));
+                        cursor = entry.seq();
+                    }
+                }
+                if (batch == null) {
+                    log.debug("Dropping lagging event stream subscriber for room {} at seq {}", roomId, cursor);
+                    dropped.increment();
+                    close();
+                    emitter.complete();
+                }
+            } catch (IOException | IllegalStateException ex) {
+                log.debug("Dropping event stream subscriber for room {}", roomId, ex);
+                close();
+                emitter.completeWithError(ex);
+            }
+        }
+
+        /**
+         * Returns the next events to send, or {@code null} if a live subscriber has fallen out of the ring.
+         */
+        private List<SequencedEvent> nextBatch() {
+            List<SequencedEvent> buffered = channel.readAfter(cursor);
+            if (buffered != null) {
+                live = true;
+                return buffered;
+            }
+            if (live) {
+                return null;
+            }
+            Room room = roomService.getRoom(roomId);
+            List<RoomEvent> history = room == null ? List.of() : room.getEvents();
+            int to = (int) Math.min(history.size(), cursor + BATCH_SIZE);
+            List<SequencedEvent> batch = new ArrayList<>(Math.max(0, to - (int) cursor));
+            for (int index = (int) cursor; index < to; index++) {
+                batch.add(new SequencedEvent(index + 1, history.get(index)));
+            }
+            return batch;
+        }
+
+        void close() {
+            if (closed.compareAndSet(false, true)) {
+                channel.subscribers.remove(this);
+                subscriberCount.decrementAndGet();
+            }
+        }
+    }
+}
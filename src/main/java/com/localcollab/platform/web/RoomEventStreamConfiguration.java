@@ -0,0 +1,21 @@
+package com.localcollab.platform.web;
+
+import com.localcollab.platform.service.RoomService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(RoomEventStreamProperties.class)
+public class RoomEventStreamConfiguration {
+
+    @Bean(destroyMethod = "close")
+    public RoomEventStream roomEventStream(RoomService roomService, RoomEventStreamProperties properties, MeterRegistry meterRegistry) {
+        return new RoomEventStream(
+                roomService,
+                properties.getBufferSize(),
+                properties.getTimeout(),
+                meterRegistry);
+    }
+}
@@ -0,0 +1,63 @@
+package com.localcollab.platform.web;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.localcollab.platform.domain.Room;
+import com.localcollab.platform.web.dto.RoomDtoMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Serialized room detail responses, one entry per room keyed by room version. Every mutation bumps the version, so a
+ * stale entry is simply replaced the next time the room is read; idle rooms are served without mapping or
+ * serializing anything.
+ */
+@Component
+public class RoomResponseCache {
+
+    private final ObjectMapper objectMapper;
+    private final Map<UUID, CachedResponse> responses = new ConcurrentHashMap<>();
+    private final Counter hits;
+    private final Counter misses;
+
+    public RoomResponseCache(ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.objectMapper = objectMapper;
+        this.hits = meterRegistry.counter("room.response.cache", "result", "hit");
+        this.misses = meterRegistry.counter("room.response.cache", "result", "miss");
+    }
+
+    /**
+     * Quoted entity tag for a room view; equal tags mean equal room state.
+     */
+    public static String etag(Room room) {
+        return "\"" + room.getVersion() + "\"";
+    }
+
+    public byte[] roomDetail(Room room) {
+        CachedResponse cached = responses.get(room.getId());
+        if (cached != null && cached.version() == room.getVersion()) {
+            hits.increment();
+            return cached.body();
+        }
+        misses.increment();
+        byte[] body;
+        try {
+            body = objectMapper.writeValueAsBytes(RoomDtoMapper.toRoomDetail(room));
+        } catch (JsonProcessingException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        // Concurrent readers may serialize different versions; never let an older one overwrite a newer entry.
+        CachedResponse fresh = new CachedResponse(room.getVersion(), body);
+        responses.merge(room.getId(), fresh, (existing, candidate) -> candidate.version() > existing.version() ? candidate : existing);
+        return body;
+    }
+
+    private record CachedResponse(long version, byte[] body) {
+    }
+}
@@ -0,0 +1,47 @@
+package com.localcollab.platform.web;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.localcollab.platform.service.RoomService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.socket.config.annotation.EnableWebSocket;
+import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+
+@Configuration
+@EnableWebSocket
+@EnableConfigurationProperties(RoomWebSocketProperties.class)
+public class RoomWebSocketConfiguration implements WebSocketConfigurer {
+
+    public static final String PATH = "/ws/rooms";
+
+    private final RoomWebSocketHub hub;
+
+    public RoomWebSocketConfiguration(RoomWebSocketHub hub) {
+        this.hub = hub;
+    }
+
+    @Override
+    public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
+        registry.addHandler(hub, PATH);
+    }
+
+    @Configuration
+    static class HubConfiguration {
+
+        @Bean(destroyMethod = "close")
+        public RoomWebSocketHub roomWebSocketHub(RoomService roomService,
+                                                 ObjectMapper objectMapper,
+                                                 RoomWebSocketProperties properties,
+                                                 MeterRegistry meterRegistry) {
+            return new RoomWebSocketHub(
+                    roomService,
+                    objectMapper,
+                    properties.getQueueLimit(),
+                    properties.getSendTimeLimit(),
+                    meterRegistry);
+        }
+    }
+}
@@ -0,0 +1,308 @@
+package com.localcollab.platform.web;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.localcollab.platform.domain.ChatMessage;
+import com.localcollab.platform.domain.Room;
+import com.localcollab.platform.domain.RoomEvent;
+import com.localcollab.platform.service.MessageChunk;
+import com.localcollab.platform.service.RoomEventListener;
+import com.localcollab.platform.service.RoomService;
+import com.localcollab.platform.web.dto.RoomStreamFrameDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * WebSocket endpoint that multiplexes live updates of many rooms over one connection.
+ * <p>
+ * Clients send {@code {"type":"subscribe","roomId":…}} or {@code {"type":"unsubscribe","roomId":…}}. The server
+ * acknowledges a subscription with the room's current {@code version}, {@code eventSeq} and {@code messageSeq}, then
+ * sends an {@code event} or {@code message} frame for each new room event and chat message.
+ * <p>
+ * As an event pipeline stage, the hub encodes each entry once and offers the same bytes to every subscribed
+ * connection's {@link OutboundQueue}; each queue is then drained on a virtual thread of its own, so a send that blocks
+ * on a stalled socket holds up only that connection. Its backlog is coalesced into {@code resync} markers, telling the
+ * client to reload the room, and once a single send has been blocked for longer than the send time limit the
+ * connection is closed.
+ */
+public class RoomWebSocketHub extends TextWebSocketHandler implements RoomEventListener, Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(RoomWebSocketHub.class);
+
+    private final RoomService roomService;
+    private final ObjectMapper objectMapper;
+    private final int queueLimit;
+    private final long sendTimeLimitNanos;
+    private final ExecutorService dispatcher = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("room-ws-dispatch-", 1).factory());
+    private final Map<String, Connection> connections = new ConcurrentHashMap<>();
+    private final Map<UUID, Set<Connection>> subscribers = new ConcurrentHashMap<>();
+    private final Counter resyncs;
+
+    public RoomWebSocketHub(RoomService roomService,
+                            ObjectMapper objectMapper,
+                            int queueLimit,
+                            Duration sendTimeLimit,
+                            MeterRegistry meterRegistry) {
+        this.roomService = roomService;
+        this.objectMapper = objectMapper;
+        this.queueLimit = queueLimit;
+        this.sendTimeLimitNanos = sendTimeLimit.toNanos();
+        this.resyncs = Counter.builder("room.ws.resyncs")
+                .description("Slow-consumer backlogs coalesced into resync markers")
+                .register(meterRegistry);
+        meterRegistry.gaugeMapSize("room.ws.connections", Tags.empty(), connections);
+        roomService.addEventListener("websocket", this);
+    }
+
+    @Override
+    public void onEvent(long seq, RoomEvent event) {
+        broadcast(event.getRoomId(), "event", seq, event);
+    }
+
+    @Override
+    public void onMessage(UUID roomId, long seq, ChatMessage message) {
+        broadcast(roomId, "message", seq, message);
+    }
+
+    @Override
+    public void onMessageChunk(UUID roomId, MessageChunk chunk) {
+        broadcast(roomId, "chunk", null, chunk);
+    }
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) {
+        connections.put(session.getId(), new Connection(session));
+    }
+
+    @Override
+    protected void handleTextMessage(WebSocketSession session, TextMessage message) {
+        Connection connection = connections.get(session.getId());
+        if (connection == null) {
+            return;
+        }
+        ClientFrame request;
+        try {
+            request = objectMapper.readValue(message.getPayload(), ClientFrame.class);
+        } catch (JsonProcessingException ex) {
+            connection.offer(null, encode(new RoomStreamFrameDTO("error", null, null, "Malformed frame")));
+            return;
+        }
+        if (request.roomId() == null || request.type() == null) {
+            connection.offer(null, encode(new RoomStreamFrameDTO("error", request.roomId(), null, "type and roomId are required")));
+            return;
+        }
+        switch (request.type()) {
+            case "subscribe" -> subscribe(connection, request.roomId());
+            case "unsubscribe" -> unsubscribe(connection, request.roomId());
+            default -> connection.offer(null, encode(new RoomStreamFrameDTO("error", request.roomId(), null, "Unknown frame type: " + request.type())));
+        }
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+        Connection connection = connections.remove(session.getId());
+        if (connection != null) {
+            connection.rooms.forEach(roomId -> unsubscribe(connection, roomId));
+        }
+    }
+
+    @Override
+    public void close() {
+        dispatcher.shutdownNow();
+    }
+
+    private void subscribe(Connection connection, UUID roomId) {
+        if (roomService.getRoom(roomId) == null) {
+            connection.offer(null, encode(new RoomStreamFrameDTO("error", roomId, null, "Room not found")));
+            return;
+        }
+        // Register before reading the cursors, so every entry recorded after them is delivered, but hold the room's
+        // frames until the acknowledgement is queued so the client has its cursors first. Entries already covered by
+        // the cursors may be delivered as well; clients ignore those by seq.
+        connection.hold(roomId);
+        subscribers.computeIfAbsent(roomId, id -> ConcurrentHashMap.newKeySet()).add(connection);
+        connection.rooms.add(roomId);
+        Room room = roomService.getRoom(roomId);
+        SubscriptionCursors cursors = new SubscriptionCursors(room.getVersion(), room.getEvents().size(), room.getMessages().size());
+        connection.acknowledge(roomId, encode(new RoomStreamFrameDTO("subscribed", roomId, null, cursors)));
+    }
+
+    private void unsubscribe(Connection connection, UUID roomId) {
+        connection.rooms.remove(roomId);
+        subscribers.computeIfPresent(roomId, (id, connections) -> {
+            connections.remove(connection);
+            return connections.isEmpty() ? null : connections;
+        });
+    }
+
+    private void broadcast(UUID roomId, String type, Long seq, Object data) {
+        Set<Connection> targets = subscribers.get(roomId);
+        if (targets == null || targets.isEmpty()) {
+            return;
+        }
+        TextMessage frame = encode(new RoomStreamFrameDTO(type, roomId, seq, data));
+        targets.forEach(connection -> connection.offer(roomId, frame));
+    }
+
+    private TextMessage encode(RoomStreamFrameDTO frame) {
+        try {
+            return new TextMessage(objectMapper.writeValueAsBytes(frame));
+        } catch (JsonProcessingException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    record ClientFrame(String type, UUID roomId) {
+    }
+
+    record SubscriptionCursors(long version, long eventSeq, long messageSeq) {
+    }
+
+    private final class Connection {
+
+        private static final long IDLE = Long.MIN_VALUE;
+
+        private final WebSocketSession session;
+        private final OutboundQueue queue;
+        private final Set<UUID> rooms = ConcurrentHashMap.newKeySet();
+        private final AtomicInteger pendingSignals = new AtomicInteger();
+        private final AtomicBoolean closing = new AtomicBoolean();
+        private final ReentrantLock holdLock = new ReentrantLock();
+        private final Map<UUID, List<TextMessage>> held = new HashMap<>();
+        // System.nanoTime() at which the send in progress started, or IDLE.
+        private volatile long sendingSince = IDLE;
+
+        private Connection(WebSocketSession session) {
+            this.session = session;
+            this.queue = new OutboundQueue(queueLimit, roomId -> encode(new RoomStreamFrameDTO("resync", roomId, null, null)));
+        }
+
+        /**
+         * Keeps the room's frames back until {@link #acknowledge} queues the subscription acknowledgement.
+         */
+        void hold(UUID roomId) {
+            holdLock.lock();
+            try {
+                held.putIfAbsent(roomId, new ArrayList<>());
+            } finally {
+                holdLock.unlock();
+            }
+        }
+
+        void acknowledge(UUID roomId, TextMessage ack) {
+            holdLock.lock();
+            try {
+                enqueue(roomId, ack);
+                List<TextMessage> frames = held.remove(roomId);
+                if (frames != null) {
+                    frames.forEach(frame -> enqueue(roomId, frame));
+                }
+            } finally {
+                holdLock.unlock();
+            }
+            signal();
+        }
+
+        void offer(UUID roomId, TextMessage message) {
+            holdLock.lock();
+            try {
+                List<TextMessage> frames = roomId == null ? null : held.get(roomId);
+                if (frames != null) {
+                    frames.add(message);
+                    return;
+                }
+                enqueue(roomId, message);
+            } finally {
+                holdLock.unlock();
+            }
+            signal();
+        }
+
+        private void enqueue(UUID roomId, TextMessage message) {
+            int coalesced = queue.offer(roomId, message);
+            if (coalesced > 0) {
+                resyncs.increment(coalesced);
+            }
+        }
+
+        private void signal() {
+            if (closing.get()) {
+                return;
+            }
+            long started = sendingSince;
+            if (started != IDLE && System.nanoTime() - started > sendTimeLimitNanos) {
+                log.debug("Closing WebSocket session {} after a send blocked for longer than the send time limit", session.getId());
+                execute(this::closeQuietly);
+                return;
+            }
+            if (pendingSignals.getAndIncrement() == 0) {
+                execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            int missed = 1;
+            do {
+                OutboundQueue.Frame frame;
+                while (session.isOpen() && !closing.get() && (frame = queue.poll()) != null) {
+                    sendingSince = System.nanoTime();
+                    try {
+                        session.sendMessage(frame.message());
+                    } catch (IOException | RuntimeException ex) {
+                        log.debug("Closing WebSocket session {} after a failed send", session.getId(), ex);
+                        closeQuietly();
+                        break;
+                    } finally {
+                        sendingSince = IDLE;
+                    }
+                }
+                missed = pendingSignals.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        private void execute(Runnable task) {
+            try {
+                dispatcher.execute(task);
+            } catch (RejectedExecutionException ex) {
+                // shutting down
+            }
+        }
+
+        private void closeQuietly() {
+            if (!closing.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                session.close(CloseStatus.SESSION_NOT_RELIABLE);
+            } catch (IOException ex) {
+                log.debug("Unable to close WebSocket session {}", session.getId(), ex);
+            }
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.localcollab.platform.web;
+
+import com.localcollab.platform.web.dto.SequencedDTO;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Cursor pagination over a room's append-only collections. An entry's sequence number is its 1-based position, which
+ * is stable because entries are never removed or reordered and replay restores them in the same order.
+ */
+final class SequencePages {
+
+    static final int DEFAULT_LIMIT = 100;
+    static final int MAX_LIMIT = 1000;
+
+    private SequencePages() {
+    }
+
+    /**
+     * Returns up to {@code limit} entries with {@code after < seq < before}. With only {@code after} the page starts
+     * right after the cursor; otherwise it ends right before {@code before} (or at the newest entry), so a request
+     * without cursors returns the latest entries. Cost is proportional to the page size, not the collection.
+     */
+    static <T> List<SequencedDTO<T>> slice(List<T> entries, Long after, Long before, Integer limit) {
+        int pageSize = limit == null ? DEFAULT_LIMIT : limit;
+        if (pageSize < 1 || pageSize > MAX_LIMIT) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_LIMIT);
+        }
+        if ((after != null && after < 0) || (before != null && before < 1)) {
+            throw new IllegalArgumentException("Cursors must be positive sequence numbers");
+        }
+        int size = entries.size();
+        long lower = after == null ? 0 : Math.min(after, size);
+        long upper = before == null ? size + 1L : Math.min(before, size + 1L);
+        if (lower + 1 >= upper) {
+            return List.of();
+        }
+        long first;
+        long last;
+        if (after != null && before == null) {
+            first = lower + 1;
+            last = Math.min(upper - 1, lower + pageSize);
+        } else {
+            last = upper - 1;
+            first = Math.max(lower + 1, upper - pageSize);
+        }
+        List<SequencedDTO<T>> page = new ArrayList<>((int) (last - first + 1));
+        for (long seq = first; seq <= last; seq++) {
+            page.add(new SequencedDTO<>(seq, entries.get((int) seq - 1)));
+        }
+        return page;
+    }
+}
@@ -0,0 +1,93 @@
+package com.localcollab.platform.web.dto;
+
+import com.localcollab.platform.domain.ArtifactType;
+import jakarta.validation.constraints.NotBlank;
+
+import java.util.UUID;
+
+/**
+ * Prompt for an API provider adapter. The completion is posted as a chat message by {@code participantId} (default:
+ * the participant backed by this provider) or, with {@code reply=ARTIFACT}, added as an artifact titled {@code title}.
+ * With {@code stream=true} a message reply is streamed to subscribers chunk by chunk while the provider writes it.
+ */
+public class ProviderPromptRequest {
+
+    public enum Reply {
+        MESSAGE,
+        ARTIFACT
+    }
+
+    @NotBlank(message = "prompt is required")
+    private String prompt;
+    private String model;
+    private Reply reply;
+    private UUID participantId;
+    private ArtifactType artifactType;
+    private String title;
+    private UUID parentArtifactId;
+    private boolean stream;
+
+    public String getPrompt() {
+        return prompt;
+    }
+
+    public void setPrompt(String prompt) {
+        this.prompt = prompt;
+    }
+
+    public String getModel() {
+        return model;
+    }
+
+    public void setModel(String model) {
+        this.model = model;
+    }
+
+    public Reply getReply() {
+        return reply;
+    }
+
+    public void setReply(Reply reply) {
+        this.reply = reply;
+    }
+
+    public UUID getParticipantId() {
+        return participantId;
+    }
+
+    public void setParticipantId(UUID participantId) {
+        this.participantId = participantId;
+    }
+
+    public ArtifactType getArtifactType() {
+        return artifactType;
+    }
+
+    public void setArtifactType(ArtifactType artifactType) {
+        this.artifactType = artifactType;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public UUID getParentArtifactId() {
+        return parentArtifactId;
+    }
+
+    public void setParentArtifactId(UUID parentArtifactId) {
+        this.parentArtifactId = parentArtifactId;
+    }
+
+    public boolean isStream() {
+        return stream;
+    }
+
+    public void setStream(boolean stream) {
+        this.stream = stream;
+    }
+}
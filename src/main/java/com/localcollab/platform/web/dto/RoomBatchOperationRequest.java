@@ -0,0 +1,130 @@
+package com.localcollab.platform.web.dto;
+
+import com.localcollab.platform.domain.ArtifactType;
+import com.localcollab.platform.domain.TaskLaneState;
+import jakarta.validation.constraints.NotNull;
+
+/**
+ * One operation of a room batch. Which fields apply depends on {@code op}. Id fields take either a UUID or
+ * {@code $name}, the {@code ref} of an earlier operation in the same batch.
+ */
+public class RoomBatchOperationRequest {
+
+    public enum Op {
+        ADD_ARTIFACT,
+        POST_MESSAGE,
+        CREATE_TASK_LANE,
+        ASSIGN_TASK,
+        UPDATE_TASK_LANE_STATE
+    }
+
+    @NotNull(message = "op is required")
+    private Op op;
+    private String ref;
+    private ArtifactType type;
+    private String title;
+    private String content;
+    private String parentArtifactId;
+    private String participantId;
+    private String name;
+    private String implementorId;
+    private String laneId;
+    private String taskArtifactId;
+    private TaskLaneState state;
+
+    public Op getOp() {
+        return op;
+    }
+
+    public void setOp(Op op) {
+        this.op = op;
+    }
+
+    public String getRef() {
+        return ref;
+    }
+
+    public void setRef(String ref) {
+        this.ref = ref;
+    }
+
+    public ArtifactType getType() {
+        return type;
+    }
+
+    public void setType(ArtifactType type) {
+        this.type = type;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public String getContent() {
+        return content;
+    }
+
+    public void setContent(String content) {
+        this.content = content;
+    }
+
+    public String getParentArtifactId() {
+        return parentArtifactId;
+    }
+
+    public void setParentArtifactId(String parentArtifactId) {
+        this.parentArtifactId = parentArtifactId;
+    }
+
+    public String getParticipantId() {
+        return participantId;
+    }
+
+    public void setParticipantId(String participantId) {
+        this.participantId = participantId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getImplementorId() {
+        return implementorId;
+    }
+
+    public void setImplementorId(String implementorId) {
+        this.implementorId = implementorId;
+    }
+
+    public String getLaneId() {
+        return laneId;
+    }
+
+    public void setLaneId(String laneId) {
+        this.laneId = laneId;
+    }
+
+    public String getTaskArtifactId() {
+        return taskArtifactId;
+    }
+
+    public void setTaskArtifactId(String taskArtifactId) {
+        this.taskArtifactId = taskArtifactId;
+    }
+
+    public TaskLaneState getState() {
+        return state;
+    }
+
+    public void setState(TaskLaneState state) {
+        this.state = state;
+    }
+}
@@ -0,0 +1,21 @@
+package com.localcollab.platform.web.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+public class RoomBatchRequest {
+    @NotEmpty(message = "operations are required")
+    @Size(max = 100, message = "a batch holds at most 100 operations")
+    private List<@Valid RoomBatchOperationRequest> operations;
+
+    public List<RoomBatchOperationRequest> getOperations() {
+        return operations;
+    }
+
+    public void setOperations(List<RoomBatchOperationRequest> operations) {
+        this.operations = operations;
+    }
+}
@@ -0,0 +1,16 @@
+package com.localcollab.platform.web.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Response of a room batch: the room version after the whole batch and one entry per operation, in request order.
+ */
+public record RoomBatchResultDTO(UUID roomId, long version, List<Entry> results) {
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public record Entry(String op, String ref, Object entity) {
+    }
+}
@@ -0,0 +1,31 @@
+package com.localcollab.platform.web.dto;
+
+import java.util.UUID;
+
+/**
+ * Minimal mutation response: the created or changed entity and the room version the change produced. Clients that
+ * hold a room detail apply the entity locally and use the version for their next {@code If-None-Match}.
+ */
+public class RoomDeltaDTO<T> {
+    private final UUID roomId;
+    private final long version;
+    private final T entity;
+
+    public RoomDeltaDTO(UUID roomId, long version, T entity) {
+        this.roomId = roomId;
+        this.version = version;
+        this.entity = entity;
+    }
+
+    public UUID getRoomId() {
+        return roomId;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public T getEntity() {
+        return entity;
+    }
+}
@@ -11,6 +11,7 @@ public class RoomDetailDTO {
     private UUID id;
     private String name;
     private Instant createdAt;
+    private long version;
     private boolean paused;
     private DriverStatus driverStatus;
     private List<ParticipantDTO> participants;
@@ -23,6 +24,7 @@ public class RoomDetailDTO {
     public RoomDetailDTO(UUID id,
                          String name,
                          Instant createdAt,
+                         long version,
                          boolean paused,
                          DriverStatus driverStatus,
                          List<ParticipantDTO> participants,
@@ -34,6 +36,7 @@ public class RoomDetailDTO {
         this.id = id;
         this.name = name;
         this.createdAt = createdAt;
+        this.version = version;
         this.paused = paused;
         this.driverStatus = driverStatus;
         this.participants = participants;
@@ -56,6 +59,10 @@ public class RoomDetailDTO {
         return createdAt;
     }
 
+    public long getVersion() {
+        return version;
+    }
+
     public boolean isPaused() {
         return paused;
     }
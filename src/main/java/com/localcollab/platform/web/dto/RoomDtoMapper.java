@@ -2,6 +2,8 @@ package com.localcollab.platform.web.dto;
 
 import com.localcollab.platform.domain.Artifact;
 import com.localcollab.platform.domain.ArtifactType;
+import com.localcollab.platform.domain.Participant;
+import com.localcollab.platform.domain.ProviderAdapter;
 import com.localcollab.platform.domain.Room;
 import com.localcollab.platform.domain.RoomSummary;
 import com.localcollab.platform.domain.TaskLane;
@@ -36,26 +38,57 @@ public final class RoomDtoMapper {
                 summary.getDriverStatusSnapshot());
     }
 
+    public static ArtifactDTO toArtifactDTO(Artifact artifact) {
+        return new ArtifactDTO(
+                artifact.getId(),
+                artifact.getType(),
+                artifact.getTitle(),
+                artifact.getContent(),
+                artifact.getVersion(),
+                artifact.getCreatedAt(),
+                artifact.getParentArtifactId());
+    }
+
+    public static ParticipantDTO toParticipantDTO(Participant participant) {
+        return new ParticipantDTO(
+                participant.getId(),
+                participant.getDisplayName(),
+                participant.getType(),
+                participant.getRole(),
+                participant.getProvider(),
+                participant.getCapabilities());
+    }
+
+    public static ProviderAdapterDTO toProviderAdapterDTO(ProviderAdapter adapter) {
+        return new ProviderAdapterDTO(
+                adapter.getId(),
+                adapter.getProviderName(),
+                adapter.getAccessMode(),
+                adapter.getCapabilities(),
+                adapter.getEndpoint(),
+                adapter.isAvailable());
+    }
+
+    public static TaskLaneDTO toTaskLaneDTO(TaskLane lane) {
+        return new TaskLaneDTO(
+                lane.getId(),
+                lane.getName(),
+                lane.getImplementorId(),
+                lane.getState(),
+                lane.getTaskArtifactIds());
+    }
+
+    public static RoomStateDTO toRoomState(Room room) {
+        return new RoomStateDTO(room.isPaused(), room.getDriverStatus());
+    }
+
     public static RoomDetailDTO toRoomDetail(Room room) {
         List<ParticipantDTO> participants = room.getParticipants().stream()
-                .map(participant -> new ParticipantDTO(
-                        participant.getId(),
-                        participant.getDisplayName(),
-                        participant.getType(),
-                        participant.getRole(),
-                        participant.getProvider(),
-                        participant.getCapabilities()))
+                .map(RoomDtoMapper::toParticipantDTO)
                 .toList();
 
         List<ArtifactDTO> artifacts = room.getArtifacts().stream()
-                .map(artifact -> new ArtifactDTO(
-                        artifact.getId(),
-                        artifact.getType(),
-                        artifact.getTitle(),
-                        artifact.getContent(),
-                        artifact.getVersion(),
-                        artifact.getCreatedAt(),
-                        artifact.getParentArtifactId()))
+                .map(RoomDtoMapper::toArtifactDTO)
                 .toList();
 
         Map<UUID, TaskLane> lanesByTask = room.getTaskLanes().stream()
@@ -63,12 +96,7 @@ public final class RoomDtoMapper {
                 .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue, (existing, replacement) -> existing));
 
         List<TaskLaneDTO> taskLanes = room.getTaskLanes().stream()
-                .map(lane -> new TaskLaneDTO(
-                        lane.getId(),
-                        lane.getName(),
-                        lane.getImplementorId(),
-                        lane.getState(),
-                        lane.getTaskArtifactIds()))
+                .map(RoomDtoMapper::toTaskLaneDTO)
                 .toList();
 
         List<TaskDTO> tasks = room.getArtifacts().stream()
@@ -77,19 +105,14 @@ public final class RoomDtoMapper {
                 .toList();
 
         List<ProviderAdapterDTO> providers = room.getProviderAdapters().stream()
-                .map(adapter -> new ProviderAdapterDTO(
-                        adapter.getId(),
-                        adapter.getProviderName(),
-                        adapter.getAccessMode(),
-                        adapter.getCapabilities(),
-                        adapter.getEndpoint(),
-                        adapter.isAvailable()))
+                .map(RoomDtoMapper::toProviderAdapterDTO)
                 .toList();
 
         return new RoomDetailDTO(
                 room.getId(),
                 room.getName(),
                 room.getCreatedAt(),
+                room.getVersion(),
                 room.isPaused(),
                 room.getDriverStatus(),
                 participants,
@@ -0,0 +1,21 @@
+package com.localcollab.platform.web.dto;
+
+import com.localcollab.platform.domain.DriverStatus;
+
+public class RoomStateDTO {
+    private final boolean paused;
+    private final DriverStatus driverStatus;
+
+    public RoomStateDTO(boolean paused, DriverStatus driverStatus) {
+        this.paused = paused;
+        this.driverStatus = driverStatus;
+    }
+
+    public boolean isPaused() {
+        return paused;
+    }
+
+    public DriverStatus getDriverStatus() {
+        return driverStatus;
+    }
+}
@@ -0,0 +1,14 @@
+package com.localcollab.platform.web.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.UUID;
+
+/**
+ * A server-to-client WebSocket frame. {@code type} is one of {@code subscribed}, {@code event}, {@code message},
+ * {@code chunk}, {@code resync} or {@code error}; {@code seq} is the entry's per-room sequence number for events and
+ * messages. Chunks of a message still being streamed carry no {@code seq}.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record RoomStreamFrameDTO(String type, UUID roomId, Long seq, Object data) {
+}
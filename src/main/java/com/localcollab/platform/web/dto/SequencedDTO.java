@@ -0,0 +1,28 @@
+package com.localcollab.platform.web.dto;
+
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import com.fasterxml.jackson.annotation.JsonUnwrapped;
+
+/**
+ * An entry of a room collection together with its per-room sequence number. The entry's own properties are written
+ * inline, so existing clients see the same objects with an extra {@code seq} field.
+ */
+@JsonPropertyOrder({"seq"})
+public class SequencedDTO<T> {
+    private final long seq;
+    private final T item;
+
+    public SequencedDTO(long seq, T item) {
+        this.seq = seq;
+        this.item = item;
+    }
+
+    public long getSeq() {
+        return seq;
+    }
+
+    @JsonUnwrapped
+    public T getItem() {
+        return item;
+    }
+}
@@ -0,0 +1,52 @@
+package com.localcollab.platform.domain;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class PersistentVectorTest {
+
+    @Test
+    void appendsAcrossTrieLevelsWithoutChangingEarlierVersions() {
+        PersistentVector<Integer> vector = PersistentVector.empty();
+        List<PersistentVector<Integer>> versions = new ArrayList<>();
+        int size = 40_000; // deep enough for a three-level trie
+        for (int i = 0; i < size; i++) {
+            vector = vector.append(i);
+            if (i % 997 == 0) {
+                versions.add(vector);
+            }
+        }
+
+        assertEquals(size, vector.size());
+        for (int i = 0; i < size; i++) {
+            assertEquals(i, vector.get(i));
+        }
+        for (PersistentVector<Integer> version : versions) {
+            assertEquals(version.size() - 1, version.get(version.size() - 1));
+        }
+        assertThrows(IndexOutOfBoundsException.class, () -> versions.getFirst().get(1));
+    }
+
+    @Test
+    void withReplacesOneElementAndSharesTheRest() {
+        PersistentVector<String> original = PersistentVector.empty();
+        for (int i = 0; i < 100; i++) {
+            original = original.append("v" + i);
+        }
+
+        PersistentVector<String> inTrie = original.with(5, "changed");
+        PersistentVector<String> inTail = original.with(99, "tail");
+
+        assertEquals("v5", original.get(5));
+        assertEquals("changed", inTrie.get(5));
+        assertEquals("v99", inTrie.get(99));
+        assertEquals("tail", inTail.get(99));
+        assertEquals(original.subList(0, 99), inTail.subList(0, 99));
+        assertThrows(UnsupportedOperationException.class, () -> inTail.add("x"));
+    }
+}
@@ -0,0 +1,137 @@
+package com.localcollab.platform.persistence;
+
+import com.localcollab.platform.domain.ChatMessage;
+import com.localcollab.platform.domain.TaskLaneState;
+import com.localcollab.platform.persistence.RoomLogRecord.MessageAdded;
+import com.localcollab.platform.persistence.RoomLogRecord.RoomCreated;
+import com.localcollab.platform.persistence.RoomLogRecord.TaskLaneStateChanged;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SegmentedRoomLogTest {
+
+    @TempDir
+    Path directory;
+
+    @ParameterizedTest
+    @EnumSource(DurabilityMode.class)
+    void replaysAppendedRecordsAfterReopen(DurabilityMode mode) {
+        UUID roomId = UUID.randomUUID();
+        try (SegmentedRoomLog log = open(mode, 64 * 1024)) {
+            assertEquals(1, log.append(new RoomCreated(roomId, "Durable Room", Instant.now())));
+            long lsn = log.append(message(roomId, "hello"));
+            log.awaitDurable(lsn);
+            log.append(new TaskLaneStateChanged(roomId, UUID.randomUUID(), TaskLaneState.BLOCKED));
+        }
+
+        List<RoomLogRecord> replayed = new ArrayList<>();
+        try (SegmentedRoomLog log = open(mode, 64 * 1024)) {
+            assertEquals(3, log.lastLsn());
+            log.replay(0, (lsn, record) -> replayed.add(record));
+            assertEquals(4, log.append(message(roomId, "after restart")));
+        }
+
+        assertEquals(3, replayed.size());
+        assertEquals("Durable Room", assertInstanceOf(RoomCreated.class, replayed.get(0)).name());
+        assertEquals("hello", assertInstanceOf(MessageAdded.class, replayed.get(1)).message().getContent());
+        assertEquals(TaskLaneState.BLOCKED, assertInstanceOf(TaskLaneStateChanged.class, replayed.get(2)).state());
+    }
+
+    @Test
+    void rollsSegmentsAndReplaysFromAnLsn() throws IOException {
+        UUID roomId = UUID.randomUUID();
+        try (SegmentedRoomLog log = open(DurabilityMode.ASYNC, 1024)) {
+            for (int i = 0; i < 100; i++) {
+                log.append(message(roomId, "message " + i));
+            }
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            assertTrue(files.count() > 1, "expected the log to span several segments");
+        }
+
+        List<Long> lsns = new ArrayList<>();
+        try (SegmentedRoomLog log = open(DurabilityMode.ASYNC, 1024)) {
+            log.replay(90, (lsn, record) -> lsns.add(lsn));
+        }
+        assertEquals(List.of(91L, 92L, 93L, 94L, 95L, 96L, 97L, 98L, 99L, 100L), lsns);
+    }
+
+    @Test
+    void truncatesTornTailOnRecovery() throws IOException {
+        UUID roomId = UUID.randomUUID();
+        try (SegmentedRoomLog log = open(DurabilityMode.SYNC, 64 * 1024)) {
+            log.append(message(roomId, "kept"));
+            log.append(message(roomId, "torn"));
+        }
+
+        Path segment = RoomLogSegment.pathFor(directory, 1);
+        try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "rw")) {
+            file.seek(RoomLogSegment.HEADER_SIZE);
+            int firstLength = file.readInt();
+            long secondFrame = RoomLogSegment.HEADER_SIZE + RoomLogSegment.FRAME_HEADER_SIZE + firstLength;
+            // Flip a payload byte of the second frame so its CRC no longer matches.
+            file.seek(secondFrame + RoomLogSegment.FRAME_HEADER_SIZE + 4);
+            file.writeByte(0x7F);
+        }
+
+        List<String> contents = new ArrayList<>();
+        try (SegmentedRoomLog log = open(DurabilityMode.SYNC, 64 * 1024)) {
+            assertEquals(1, log.lastLsn());
+            assertEquals(2, log.append(message(roomId, "rewritten")));
+        }
+        try (SegmentedRoomLog log = open(DurabilityMode.SYNC, 64 * 1024)) {
+            log.replay(0, (lsn, record) -> contents.add(((MessageAdded) record).message().getContent()));
+        }
+        assertEquals(List.of("kept", "rewritten"), contents);
+    }
+
+    @Test
+    void groupCommitSharesForcesAcrossWriters() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        UUID roomId = UUID.randomUUID();
+        try (SegmentedRoomLog log = SegmentedRoomLog.open(directory, DurabilityMode.GROUP_COMMIT, Duration.ofMillis(20), 1024 * 1024, registry)) {
+            List<Thread> writers = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                writers.add(Thread.ofPlatform().start(() -> log.awaitDurable(log.append(message(roomId, "concurrent")))));
+            }
+            writers.forEach(SegmentedRoomLogTest::join);
+        }
+        double forces = registry.get("room.log.forces").counter().count();
+        assertTrue(forces < 8, "expected writers to share forces, saw " + forces);
+    }
+
+    private SegmentedRoomLog open(DurabilityMode mode, int segmentSize) {
+        return SegmentedRoomLog.open(directory, mode, Duration.ofMillis(2), segmentSize, new SimpleMeterRegistry());
+    }
+
+    private static MessageAdded message(UUID roomId, String content) {
+        return new MessageAdded(roomId, new ChatMessage(UUID.randomUUID(), UUID.randomUUID(), "Tester", content, Instant.now()));
+    }
+
+    private static void join(Thread thread) {
+        try {
+            thread.join();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(ex);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.localcollab.platform.service;
+
+import com.localcollab.platform.domain.ArtifactType;
+import com.localcollab.platform.domain.Room;
+import com.localcollab.platform.validation.ProviderIdentityValidator;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Shows that creating an artifact costs the same in a small room and in one with 100k artifacts. Run with
+ * {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+class ArtifactVersionBenchmarkTest {
+
+    private static final int WARMUP_INSERTS = 50_000;
+    private static final int MEASURED_INSERTS = 2_000;
+    private static final int ROUNDS = 3;
+
+    @Test
+    void artifactCreationCostIsIndependentOfRoomSize() {
+        RoomService warmup = new RoomService(new ProviderIdentityValidator());
+        insert(warmup, warmup.findAll().getFirst().getId(), WARMUP_INSERTS);
+
+        double smallRoomNanos = Double.MAX_VALUE;
+        double largeRoomNanos = Double.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            smallRoomNanos = Math.min(smallRoomNanos, nanosPerInsert(10));
+            largeRoomNanos = Math.min(largeRoomNanos, nanosPerInsert(100_000));
+        }
+
+        System.out.printf("addArtifact: %.0f ns/op with 10 artifacts, %.0f ns/op with 100k artifacts%n", smallRoomNanos, largeRoomNanos);
+        assertTrue(largeRoomNanos < smallRoomNanos * 3, "artifact creation should not grow with room size");
+    }
+
+    private double nanosPerInsert(int existingArtifacts) {
+        RoomService service = new RoomService(new ProviderIdentityValidator());
+        Room room = service.findAll().getFirst();
+        insert(service, room.getId(), existingArtifacts - room.getArtifacts().size());
+
+        long start = System.nanoTime();
+        insert(service, room.getId(), MEASURED_INSERTS);
+        return (System.nanoTime() - start) / (double) MEASURED_INSERTS;
+    }
+
+    private void insert(RoomService service, UUID roomId, int count) {
+        for (int i = 0; i < count; i++) {
+            service.addArtifact(roomId, ArtifactType.NOTE, "Note " + i, "benchmark", null);
+        }
+    }
+}
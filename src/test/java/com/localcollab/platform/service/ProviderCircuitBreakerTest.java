@@ -0,0 +1,140 @@
+package com.localcollab.platform.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.random.RandomGenerator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ProviderCircuitBreakerTest {
+
+    private final AtomicLong now = new AtomicLong();
+    private final ProviderCallProperties.CircuitBreaker settings = new ProviderCallProperties.CircuitBreaker();
+
+    @Test
+    void opensOnFailureRateBacksOffExponentiallyAndClosesAfterSuccessfulProbes() {
+        settings.setWindowSize(4);
+        settings.setMinimumCalls(4);
+        settings.setOpenWait(Duration.ofSeconds(10));
+        // Always draws the longest jittered wait, so the backoff is the full doubling.
+        ProviderCircuitBreaker breaker = new ProviderCircuitBreaker(settings, now::get, fixedRandom(Long.MAX_VALUE));
+
+        succeed(breaker, 2);
+        fail(breaker, 1);
+        assertEquals(ProviderCircuitBreaker.State.CLOSED, breaker.state());
+        fail(breaker, 1);
+        assertEquals(ProviderCircuitBreaker.State.OPEN, breaker.state());
+        assertFalse(breaker.tryAcquire());
+
+        advance(Duration.ofSeconds(10));
+        assertTrue(breaker.tryAcquire());
+        assertTrue(breaker.tryAcquire());
+        assertFalse(breaker.tryAcquire(), "only the configured probes are let through");
+        breaker.onSuccess(Duration.ofMillis(5));
+        breaker.onFailure("still down");
+        assertEquals(2, breaker.status().openings());
+
+        advance(Duration.ofSeconds(19));
+        assertFalse(breaker.tryAcquire(), "the second opening waits twice as long");
+        advance(Duration.ofSeconds(1));
+        assertTrue(breaker.tryAcquire());
+        breaker.onSuccess(Duration.ofMillis(5));
+        assertTrue(breaker.tryAcquire());
+        breaker.onSuccess(Duration.ofMillis(5));
+
+        ProviderCircuitStatus status = breaker.status();
+        assertEquals(ProviderCircuitBreaker.State.CLOSED, status.state());
+        assertEquals(0, status.openings());
+        assertEquals("still down", status.lastFailureReason());
+    }
+
+    @Test
+    void opensOnSlowCallsAndJittersTheBackoffBetweenHalfAndFullWait() {
+        settings.setWindowSize(10);
+        settings.setMinimumCalls(5);
+        settings.setSlowCallDuration(Duration.ofSeconds(2));
+        settings.setOpenWait(Duration.ofSeconds(10));
+        ProviderCircuitBreaker breaker = new ProviderCircuitBreaker(settings, now::get, fixedRandom(0));
+
+        for (int i = 0; i < 4; i++) {
+            assertTrue(breaker.tryAcquire());
+            breaker.onSuccess(Duration.ofSeconds(3));
+        }
+        assertEquals(ProviderCircuitBreaker.State.CLOSED, breaker.state());
+        assertTrue(breaker.tryAcquire());
+        breaker.onSuccess(Duration.ofSeconds(3));
+
+        ProviderCircuitStatus status = breaker.status();
+        assertEquals(ProviderCircuitBreaker.State.OPEN, status.state());
+        assertNotNull(status.retryAt());
+        advance(Duration.ofSeconds(5));
+        assertTrue(breaker.tryAcquire(), "the shortest jittered wait is half the backoff");
+    }
+
+    @Test
+    void resetClosesAnOpenCircuitAndRestartsTheBackoff() {
+        settings.setWindowSize(2);
+        settings.setMinimumCalls(2);
+        settings.setOpenWait(Duration.ofSeconds(10));
+        ProviderCircuitBreaker breaker = new ProviderCircuitBreaker(settings, now::get, fixedRandom(Long.MAX_VALUE));
+
+        fail(breaker, 2);
+        advance(Duration.ofSeconds(10));
+        assertTrue(breaker.tryAcquire());
+        breaker.onFailure("still down");
+        assertEquals(ProviderCircuitBreaker.State.OPEN, breaker.state());
+        assertEquals(2, breaker.status().openings());
+
+        breaker.reset();
+        ProviderCircuitStatus status = breaker.status();
+        assertEquals(ProviderCircuitBreaker.State.CLOSED, status.state());
+        assertEquals(0, status.calls());
+        assertEquals(0, status.openings());
+        assertEquals("still down", status.lastFailureReason());
+        assertTrue(breaker.tryAcquire());
+
+        breaker.onFailure("down again");
+        fail(breaker, 1);
+        advance(Duration.ofSeconds(9));
+        assertFalse(breaker.tryAcquire(), "the backoff starts again from the first step");
+        advance(Duration.ofSeconds(1));
+        assertTrue(breaker.tryAcquire());
+    }
+
+    private void succeed(ProviderCircuitBreaker breaker, int calls) {
+        for (int i = 0; i < calls; i++) {
+            assertTrue(breaker.tryAcquire());
+            breaker.onSuccess(Duration.ofMillis(5));
+        }
+    }
+
+    private void fail(ProviderCircuitBreaker breaker, int calls) {
+        for (int i = 0; i < calls; i++) {
+            assertTrue(breaker.tryAcquire());
+            breaker.onFailure("timeout");
+        }
+    }
+
+    private void advance(Duration duration) {
+        now.addAndGet(duration.toNanos());
+    }
+
+    private static RandomGenerator fixedRandom(long draw) {
+        return new RandomGenerator() {
+            @Override
+            public long nextLong() {
+                return draw;
+            }
+
+            @Override
+            public long nextLong(long bound) {
+                return draw == Long.MAX_VALUE ? bound - 1 : draw;
+            }
+        };
+    }
+}
@@ -0,0 +1,346 @@
+package com.localcollab.platform.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.localcollab.platform.domain.Artifact;
+import com.localcollab.platform.domain.ArtifactType;
+import com.localcollab.platform.domain.ChatMessage;
+import com.localcollab.platform.domain.ProviderAccessMode;
+import com.localcollab.platform.domain.ProviderAdapter;
+import com.localcollab.platform.domain.Room;
+import com.localcollab.platform.domain.RoomEvent;
+import com.localcollab.platform.validation.ProviderIdentityValidator;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ProviderDispatcherTest {
+
+    private static final int CALL_THREADS = 4;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger peakInFlight = new AtomicInteger();
+    private final AtomicInteger upstreamCalls = new AtomicInteger();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private HttpServer stub;
+    private ExecutorService callExecutor;
+    private RoomService roomService;
+    private ProviderDispatcher dispatcher;
+    private Room room;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        // Mimics the Local API endpoint: POST /api/generate {"model","prompt"} -> {"response"} after a short think, or
+        // one {"response"} line per word when streaming.
+        stub = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 1024);
+        stub.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        stub.createContext("/api/generate", exchange -> {
+            upstreamCalls.incrementAndGet();
+            peakInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            try {
+                JsonNode request = objectMapper.readTree(exchange.getRequestBody());
+                Thread.sleep(200);
+                String prompt = request.get("prompt").asText();
+                if (request.get("stream").asBoolean()) {
+                    streamAnswer(exchange, prompt);
+                    return;
+                }
+                int status = prompt.equals("fail") ? 500 : 200;
+                byte[] body = objectMapper.writeValueAsBytes(java.util.Map.of("model", request.get("model").asText(), "response", "echo: " + prompt));
+                exchange.sendResponseHeaders(status, body.length);
+                exchange.getResponseBody().write(body);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            } finally {
+                inFlight.decrementAndGet();
+                exchange.close();
+            }
+        });
+        stub.start();
+
+        callExecutor = ProviderCallConfiguration.providerCallExecutor(false, CALL_THREADS);
+        roomService = new RoomService(new ProviderIdentityValidator());
+        dispatcher = dispatcher(new ProviderCallProperties());
+        room = roomService.findAll().getFirst();
+    }
+
+    @AfterEach
+    void tearDown() {
+        stub.stop(0);
+        callExecutor.shutdownNow();
+    }
+
+    @Test
+    void keepsManyPromptsInFlightOnFewThreadsAndPostsCompletions() {
+        ProviderAdapter adapter = registerStub();
+        UUID authorId = room.getParticipants().getFirst().getId();
+
+        List<CompletableFuture<RoomUpdate<ChatMessage>>> replies = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            replies.add(dispatcher.dispatch(room.getId(), adapter.getId(), new ProviderPrompt(null, "prompt " + i),
+                    completion -> new RoomCommand.PostMessage(authorId, completion)));
+        }
+        CompletableFuture.allOf(replies.toArray(CompletableFuture[]::new)).join();
+
+        assertTrue(peakInFlight.get() > CALL_THREADS, () -> "peak in flight " + peakInFlight.get());
+        assertEquals("echo: prompt 7", replies.get(7).join().value().getContent());
+        assertEquals(room.getMessages().size() + 40, roomService.getRoom(room.getId()).getMessages().size());
+
+        Artifact note = dispatcher.dispatch(room.getId(), adapter.getId(), new ProviderPrompt("llama3", "summarize"),
+                completion -> new RoomCommand.AddArtifact(ArtifactType.NOTE, "Summary", completion, null)).join().value();
+        assertEquals("echo: summarize", note.getContent());
+    }
+
+    @Test
+    void failsWithProviderCallExceptionAndWritesNothingWhenTheProviderErrors() {
+        ProviderAdapter adapter = registerStub();
+        UUID authorId = room.getParticipants().getFirst().getId();
+
+        CompletableFuture<RoomUpdate<ChatMessage>> reply = dispatcher.dispatch(room.getId(), adapter.getId(), new ProviderPrompt(null, "fail"),
+                completion -> new RoomCommand.PostMessage(authorId, completion));
+
+        CompletionException failure = assertThrows(CompletionException.class, reply::join);
+        assertInstanceOf(ProviderCallException.class, failure.getCause());
+        assertEquals(room.getMessages().size(), roomService.getRoom(room.getId()).getMessages().size());
+
+        ProviderAdapter webUi = room.getProviderAdapters().stream()
+                .filter(candidate -> candidate.getAccessMode() == ProviderAccessMode.WEB_UI)
+                .findFirst()
+                .orElseThrow();
+        assertThrows(IllegalStateException.class, () -> dispatcher.dispatch(room.getId(), webUi.getId(), new ProviderPrompt(null, "hi"),
+                completion -> new RoomCommand.PostMessage(authorId, completion)));
+    }
+
+    @Test
+    void streamsCompletionChunksToSubscribersBeforePostingTheMessage() throws Exception {
+        ProviderAdapter adapter = registerStub();
+        UUID authorId = room.getParticipants().getFirst().getId();
+        List<MessageChunk> chunks = new CopyOnWriteArrayList<>();
+        List<ChatMessage> posted = new CopyOnWriteArrayList<>();
+        roomService.addEventListener("chunks", new RoomEventListener() {
+            @Override
+            public void onEvent(long seq, RoomEvent event) {
+            }
+
+            @Override
+            public void onMessage(UUID roomId, long seq, ChatMessage message) {
+                posted.add(message);
+            }
+
+            @Override
+            public void onMessageChunk(UUID roomId, MessageChunk chunk) {
+                chunks.add(chunk);
+            }
+        });
+
+        ChatMessage message = dispatcher.stream(room.getId(), adapter.getId(), new ProviderPrompt(null, "tell me more"), authorId).join().value();
+
+        assertEquals("echo: tell me more", message.getContent());
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (posted.isEmpty() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(List.of("echo: ", "tell ", "me ", "more"), chunks.stream().map(MessageChunk::text).toList());
+        assertTrue(chunks.stream().allMatch(chunk -> chunk.messageId().equals(message.getId())));
+        assertEquals(message.getId(), posted.getFirst().getId());
+        assertTrue(roomService.findStreamingMessages(room.getId()).isEmpty());
+
+        CompletableFuture<RoomUpdate<ChatMessage>> broken = dispatcher.stream(room.getId(), adapter.getId(), new ProviderPrompt(null, "garble"), authorId);
+        CompletionException failure = assertThrows(CompletionException.class, broken::join);
+        assertInstanceOf(ProviderCallException.class, failure.getCause());
+        assertEquals(1, roomService.getRoom(room.getId()).getMessages().stream().filter(m -> m.getContent().startsWith("echo:")).count());
+    }
+
+    @Test
+    void releasesThePermitAndCancelsTheMessageWhenAStreamedCallCannotBeSent() {
+        ProviderAdapter adapter = registerStub();
+        UUID authorId = room.getParticipants().getFirst().getId();
+        ProviderCallProperties properties = new ProviderCallProperties();
+        properties.getLimits().getProviders().put("stub api", limit(1));
+        HttpClient closed = ProviderCallConfiguration.httpClient(properties, callExecutor);
+        closed.close();
+        ProviderDispatcher unsendable = new ProviderDispatcher(roomService, closed, callExecutor, objectMapper, properties,
+                new ProviderCircuitBreakers(properties, meterRegistry), new ProviderLimits(properties, meterRegistry), meterRegistry);
+
+        // With a single permit, a leaked one would leave the second stream waiting for admission forever.
+        for (int i = 0; i < 2; i++) {
+            CompletableFuture<RoomUpdate<ChatMessage>> reply = unsendable.stream(room.getId(), adapter.getId(), new ProviderPrompt(null, "hello"), authorId);
+            CompletionException failure = assertThrows(CompletionException.class, () -> reply.orTimeout(5, TimeUnit.SECONDS).join());
+            assertInstanceOf(ProviderCallException.class, failure.getCause());
+        }
+        assertTrue(roomService.findStreamingMessages(room.getId()).isEmpty());
+        assertEquals(0, meterRegistry.get("provider.calls.in.flight").gauge().value());
+        assertEquals(0, upstreamCalls.get());
+    }
+
+    @Test
+    void messageStreamsJoinChunksOnceAndCanBeCancelled() {
+        UUID authorId = room.getParticipants().getFirst().getId();
+
+        MessageStream stream = roomService.openMessageStream(room.getId(), authorId);
+        stream.append("Draft ");
+        stream.append("");
+        stream.append("plan");
+        ChatMessage partial = roomService.findStreamingMessages(room.getId()).getFirst();
+        assertEquals(stream.getMessageId(), partial.getId());
+        assertEquals("Draft plan", partial.getContent());
+        assertEquals(room.getMessages().size(), roomService.getRoom(room.getId()).getMessages().size());
+
+        ChatMessage message = stream.finish().join().value();
+        assertEquals(stream.getMessageId(), message.getId());
+        assertEquals("Draft plan", roomService.getRoom(room.getId()).getMessages().getLast().getContent());
+        assertThrows(IllegalStateException.class, () -> stream.append("late"));
+
+        MessageStream abandoned = roomService.openMessageStream(room.getId(), authorId);
+        abandoned.append("never mind");
+        abandoned.cancel();
+        assertTrue(roomService.findStreamingMessages(room.getId()).isEmpty());
+        assertEquals(room.getMessages().size() + 1, roomService.getRoom(room.getId()).getMessages().size());
+        assertThrows(IllegalArgumentException.class, () -> roomService.openMessageStream(room.getId(), UUID.randomUUID()));
+    }
+
+    @Test
+    void coalescesConcurrentIdenticalPromptsIntoOneCallAndEvictsLeastRecentlyUsed() {
+        ProviderAdapter adapter = registerStub();
+
+        List<CompletableFuture<String>> answers = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            answers.add(dispatcher.call(room.getId(), adapter, new ProviderPrompt(null, i % 2 == 0 ? "review PATCH" : "  review\n PATCH ")));
+        }
+        answers.forEach(answer -> assertEquals("echo: review PATCH", answer.join()));
+        assertEquals("echo: review PATCH", dispatcher.call(room.getId(), adapter, new ProviderPrompt("llama3", "review PATCH")).join());
+        assertEquals(1, upstreamCalls.get());
+        assertEquals(10, meterRegistry.get("provider.cache.gets").tag("result", "hit").counter().count());
+        assertEquals(1, meterRegistry.get("provider.cache.gets").tag("result", "miss").counter().count());
+
+        dispatcher.call(room.getId(), adapter, new ProviderPrompt("other-model", "review PATCH")).join();
+        assertEquals(2, upstreamCalls.get());
+
+        // Another room's adapter of the same provider may point elsewhere, so it has entries of its own.
+        ProviderAdapter sibling = new ProviderAdapter(UUID.randomUUID(), adapter.getProviderName(), adapter.getAccessMode(),
+                adapter.getCapabilities(), adapter.getEndpoint(), true);
+        dispatcher.call(room.getId(), sibling, new ProviderPrompt(null, "review PATCH")).join();
+        assertEquals(3, upstreamCalls.get());
+        assertEquals(1, meterRegistry.get("provider.cache.gets").tag("adapter", sibling.getId().toString()).tag("result", "miss").counter().count());
+
+        ProviderCallProperties small = new ProviderCallProperties();
+        small.getCache().setMaxEntries(1);
+        ProviderDispatcher smallCache = dispatcher(small);
+        smallCache.call(room.getId(), adapter, new ProviderPrompt(null, "first")).join();
+        smallCache.call(room.getId(), adapter, new ProviderPrompt(null, "second")).join();
+        smallCache.call(room.getId(), adapter, new ProviderPrompt(null, "first")).join();
+        assertEquals(6, upstreamCalls.get());
+        assertEquals(2, meterRegistry.get("provider.cache.evictions").tag("cause", "size").counter().count());
+    }
+
+    @Test
+    void failsFastOnceTheProvidersCircuitOpens() {
+        ProviderAdapter adapter = registerStub();
+        ProviderCallProperties properties = new ProviderCallProperties();
+        properties.getCache().setMaxEntries(0);
+        properties.getCircuitBreaker().setMinimumCalls(3);
+        ProviderDispatcher breaking = dispatcher(properties);
+
+        for (int i = 0; i < 3; i++) {
+            CompletionException failure = assertThrows(CompletionException.class, () -> breaking.call(room.getId(), adapter, new ProviderPrompt(null, "fail")).join());
+            assertInstanceOf(ProviderCallException.class, failure.getCause());
+        }
+        CompletionException rejected = assertThrows(CompletionException.class, () -> breaking.call(room.getId(), adapter, new ProviderPrompt(null, "hello")).join());
+        assertInstanceOf(ProviderCircuitOpenException.class, rejected.getCause());
+        assertEquals(3, upstreamCalls.get());
+        assertEquals(1, meterRegistry.get("provider.calls.rejected").counter().count());
+    }
+
+    @Test
+    void capsCallsInFlightPerProviderNameAndReportsQueueWait() {
+        ProviderAdapter adapter = registerStub();
+        ProviderCallProperties properties = new ProviderCallProperties();
+        properties.getLimits().getProviders().put("stub api", limit(2));
+        ProviderDispatcher limited = dispatcher(properties);
+
+        List<CompletableFuture<String>> answers = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            answers.add(limited.call(room.getId(), adapter, new ProviderPrompt(null, "prompt " + i)));
+        }
+        CompletableFuture.allOf(answers.toArray(CompletableFuture[]::new)).join();
+
+        assertEquals(2, peakInFlight.get());
+        assertEquals(12, meterRegistry.get("provider.queue.wait").tag("scope", "provider").timer().count());
+    }
+
+    @Test
+    void rejectsStreamsBeyondTheProviderQueueWithoutLeavingTheirMessagesOpen() {
+        ProviderAdapter adapter = registerStub();
+        UUID authorId = room.getParticipants().getFirst().getId();
+        ProviderCallProperties properties = new ProviderCallProperties();
+        ProviderCallProperties.Limit limit = limit(1);
+        limit.setMaxQueued(1);
+        properties.getLimits().getProviders().put("stub api", limit);
+        ProviderDispatcher limited = dispatcher(properties);
+
+        List<CompletableFuture<RoomUpdate<ChatMessage>>> admitted = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            admitted.add(limited.stream(room.getId(), adapter.getId(), new ProviderPrompt(null, "queued " + i), authorId));
+        }
+        CompletableFuture<RoomUpdate<ChatMessage>> overflow = limited.stream(room.getId(), adapter.getId(), new ProviderPrompt(null, "one too many"), authorId);
+        CompletionException rejected = assertThrows(CompletionException.class, overflow::join);
+        assertInstanceOf(ProviderQueueFullException.class, rejected.getCause());
+
+        CompletableFuture.allOf(admitted.toArray(CompletableFuture[]::new)).join();
+        assertTrue(roomService.findStreamingMessages(room.getId()).isEmpty());
+        assertEquals(2, upstreamCalls.get());
+    }
+
+    private static ProviderCallProperties.Limit limit(int maxInFlight) {
+        ProviderCallProperties.Limit limit = new ProviderCallProperties.Limit();
+        limit.setMaxInFlight(maxInFlight);
+        return limit;
+    }
+
+    private ProviderDispatcher dispatcher(ProviderCallProperties properties) {
+        return new ProviderDispatcher(roomService, ProviderCallConfiguration.httpClient(properties, callExecutor),
+                callExecutor, objectMapper, properties, new ProviderCircuitBreakers(properties, meterRegistry), new ProviderLimits(properties, meterRegistry), meterRegistry);
+    }
+
+    private static void streamAnswer(HttpExchange exchange, String prompt) throws IOException, InterruptedException {
+        exchange.sendResponseHeaders(200, 0);
+        OutputStream body = exchange.getResponseBody();
+        for (String word : ("echo: " + prompt).split("(?<= )")) {
+            String line = prompt.equals("garble") && word.startsWith("garble") ? "{not json" : "{\"response\":\"" + word + "\",\"done\":false}";
+            body.write((line + "\n").getBytes(StandardCharsets.UTF_8));
+            body.flush();
+            Thread.sleep(20);
+        }
+        body.write("{\"response\":\"\",\"done\":true}\n".getBytes(StandardCharsets.UTF_8));
+    }
+
+    private ProviderAdapter registerStub() {
+        String endpoint = "http://127.0.0.1:" + stub.getAddress().getPort() + "/api";
+        return roomService.execute(room.getId(), new RoomCommand.RegisterProvider("Stub API", ProviderAccessMode.API, List.of("dialog"), endpoint, true)).value();
+    }
+}
@@ -0,0 +1,140 @@
+package com.localcollab.platform.service;
+
+import com.localcollab.platform.domain.ProviderAccessMode;
+import com.localcollab.platform.domain.ProviderAdapter;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ProviderLimiterTest {
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+    private final Timer queueWait = Timer.builder("provider.queue.wait").register(new SimpleMeterRegistry());
+
+    @AfterEach
+    void tearDown() {
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    void bulkheadServesWaitingRoomsRoundRobin() {
+        ProviderCallProperties.Limit limit = new ProviderCallProperties.Limit();
+        limit.setMaxInFlight(1);
+        ProviderLimiter limiter = new ProviderLimiter("Stub", limit, scheduler, System::nanoTime, queueWait);
+        UUID busyRoom = UUID.randomUUID();
+        UUID quietRoom = UUID.randomUUID();
+        List<String> admitted = new CopyOnWriteArrayList<>();
+
+        List<CompletableFuture<Void>> calls = new ArrayList<>();
+        for (int i = 1; i <= 3; i++) {
+            String name = "busy-" + i;
+            calls.add(limiter.acquire(busyRoom).thenRun(() -> admitted.add(name)));
+        }
+        calls.add(limiter.acquire(quietRoom).thenRun(() -> admitted.add("quiet-1")));
+        assertEquals(List.of("busy-1"), admitted);
+        assertEquals(3, limiter.queued());
+
+        for (int i = 0; i < 3; i++) {
+            limiter.release();
+        }
+        assertEquals(List.of("busy-1", "busy-2", "quiet-1", "busy-3"), admitted);
+        assertTrue(calls.stream().allMatch(CompletableFuture::isDone));
+        assertEquals(4, queueWait.count());
+    }
+
+    @Test
+    void tokenBucketSpacesCallsAfterTheBurstAndSkipsCancelledWaiters() {
+        ProviderCallProperties.Limit limit = new ProviderCallProperties.Limit();
+        limit.setRate(20);
+        limit.setBurst(2);
+        ProviderLimiter limiter = new ProviderLimiter("Stub", limit, scheduler, System::nanoTime, queueWait);
+        UUID room = UUID.randomUUID();
+
+        long started = System.nanoTime();
+        assertTrue(limiter.acquire(room).isDone());
+        assertTrue(limiter.acquire(room).isDone());
+        CompletableFuture<Void> abandoned = limiter.acquire(room);
+        assertFalse(abandoned.isDone());
+        abandoned.cancel(false);
+        CompletableFuture<Void> third = limiter.acquire(room);
+        CompletableFuture<Void> fourth = limiter.acquire(room);
+
+        CompletableFuture.allOf(third, fourth).join();
+        long elapsedMillis = (System.nanoTime() - started) / 1_000_000;
+        assertTrue(elapsedMillis >= 90, () -> "two calls past the burst at 20/s took " + elapsedMillis + "ms");
+    }
+
+    @Test
+    void cancelledWaitersLeaveTheQueueWithoutTakingASlot() {
+        ProviderCallProperties.Limit limit = new ProviderCallProperties.Limit();
+        limit.setMaxInFlight(1);
+        ProviderLimiter limiter = new ProviderLimiter("Stub", limit, scheduler, System::nanoTime, queueWait);
+        UUID room = UUID.randomUUID();
+
+        assertTrue(limiter.acquire(room).isDone());
+        CompletableFuture<Void> abandoned = limiter.acquire(room);
+        abandoned.cancel(false);
+        assertEquals(0, limiter.queued());
+
+        limiter.release();
+        assertTrue(limiter.acquire(room).isDone(), "the cancelled waiter must not have taken the freed slot");
+    }
+
+    @Test
+    void rejectsCallersOnceTheQueueIsFull() {
+        ProviderCallProperties.Limit limit = new ProviderCallProperties.Limit();
+        limit.setMaxInFlight(1);
+        limit.setMaxQueued(2);
+        ProviderLimiter limiter = new ProviderLimiter("Stub", limit, scheduler, System::nanoTime, queueWait);
+        UUID room = UUID.randomUUID();
+
+        List<CompletableFuture<Void>> calls = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            calls.add(limiter.acquire(room));
+        }
+        CompletableFuture<Void> overflow = limiter.acquire(room);
+        CompletionException rejected = assertThrows(CompletionException.class, overflow::join);
+        assertInstanceOf(ProviderQueueFullException.class, rejected.getCause());
+        assertEquals(2, limiter.queued());
+
+        limiter.release();
+        assertTrue(calls.get(1).isDone());
+        assertFalse(limiter.acquire(room).isCompletedExceptionally(), "a freed queue place can be taken again");
+    }
+
+    @Test
+    void cancellingAnAdmissionHandsBackTheAdapterSlotItAlreadyHeld() {
+        ProviderCallProperties properties = new ProviderCallProperties();
+        properties.getLimits().getAdapter().setMaxInFlight(1);
+        properties.getLimits().getProvider().setMaxInFlight(1);
+        ProviderAdapter first = new ProviderAdapter(UUID.randomUUID(), "Stub", ProviderAccessMode.API, List.of("dialog"), "http://localhost:1/api", true);
+        ProviderAdapter second = new ProviderAdapter(UUID.randomUUID(), "Stub", ProviderAccessMode.API, List.of("dialog"), "http://localhost:2/api", true);
+        UUID room = UUID.randomUUID();
+        try (ProviderLimits limits = new ProviderLimits(properties, new SimpleMeterRegistry())) {
+            ProviderLimits.Permit running = limits.acquire(room, first).join();
+            // Holds the second adapter's slot while waiting for the provider's.
+            CompletableFuture<ProviderLimits.Permit> abandoned = limits.acquire(room, second);
+            abandoned.cancel(false);
+
+            CompletableFuture<ProviderLimits.Permit> next = limits.acquire(room, second);
+            running.release();
+            assertTrue(next.isDone(), "the abandoned call must have returned both slots");
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.localcollab.platform.service;
+
+import com.localcollab.platform.domain.ChatMessage;
+import com.localcollab.platform.domain.RoomEvent;
+import com.localcollab.platform.domain.RoomEventType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RoomEventPipelineTest {
+
+    @Test
+    void everyStageSeesEveryEntryInOrderAcrossWrapAround() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        UUID roomId = UUID.randomUUID();
+        int entries = 1_000;
+        List<Long> fast = new CopyOnWriteArrayList<>();
+        List<Long> slow = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(2);
+
+        try (RoomEventPipeline pipeline = new RoomEventPipeline(8, registry)) {
+            pipeline.addStage("fast", recording(fast, entries, done, 0));
+            pipeline.addStage("slow", recording(slow, entries, done, 20_000));
+
+            for (long seq = 1; seq <= entries; seq++) {
+                if (seq % 2 == 0) {
+                    pipeline.publishMessage(roomId, seq, new ChatMessage(UUID.randomUUID(), UUID.randomUUID(), "You", "m" + seq, Instant.now()));
+                } else {
+                    pipeline.publishEvent(seq, new RoomEvent(UUID.randomUUID(), roomId, RoomEventType.MESSAGE_POSTED, "e" + seq, Instant.now(), null, null, null));
+                }
+            }
+
+            assertTrue(done.await(10, TimeUnit.SECONDS));
+            List<Long> expected = LongStream.rangeClosed(1, entries).boxed().toList();
+            assertEquals(expected, fast);
+            assertEquals(expected, slow);
+            assertEquals(0, pipeline.depth());
+            assertTrue(registry.get("room.events.pipeline.stalls").counter().count() > 0, "the slow stage holds writers back");
+            assertTrue(registry.get("room.events.pipeline.lag").tag("stage", "slow").timer().count() > 0);
+        }
+    }
+
+    @Test
+    void rejectsCapacityThatIsNotAPowerOfTwo() {
+        assertThrows(IllegalArgumentException.class, () -> new RoomEventPipeline(1000, new SimpleMeterRegistry()));
+    }
+
+    private static RoomEventListener recording(List<Long> seen, int expected, CountDownLatch done, long delayNanos) {
+        return new RoomEventListener() {
+            @Override
+            public void onEvent(long seq, RoomEvent event) {
+                record(seq);
+            }
+
+            @Override
+            public void onMessage(UUID roomId, long seq, ChatMessage message) {
+                record(seq);
+            }
+
+            private void record(long seq) {
+                if (delayNanos > 0) {
+                    LockSupport.parkNanos(delayNanos);
+                }
+                seen.add(seq);
+                if (seen.size() == expected) {
+                    done.countDown();
+                }
+            }
+        };
+    }
+}
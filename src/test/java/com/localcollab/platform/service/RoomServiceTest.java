@@ -0,0 +1,538 @@
+package com.localcollab.platform.service;
+
+import com.localcollab.platform.domain.ArtifactType;
+import com.localcollab.platform.domain.ChatMessage;
+import com.localcollab.platform.domain.DriverStatus;
+import com.localcollab.platform.domain.Participant;
+import com.localcollab.platform.domain.ParticipantRole;
+import com.localcollab.platform.domain.ParticipantType;
+import com.localcollab.platform.domain.ProviderAccessMode;
+import com.localcollab.platform.domain.TaskLane;
+import com.localcollab.platform.domain.Room;
+import com.localcollab.platform.domain.TaskLaneState;
+import com.localcollab.platform.domain.RoomSummary;
+import com.localcollab.platform.persistence.DurabilityMode;
+import com.localcollab.platform.persistence.FileRoomSnapshotStore;
+import com.localcollab.platform.persistence.RoomLog;
+import com.localcollab.platform.persistence.RoomLogRecord;
+import com.localcollab.platform.persistence.RoomSnapshotStore;
+import com.localcollab.platform.persistence.SegmentedRoomLog;
+import com.localcollab.platform.validation.ProviderIdentityValidator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingStream;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RoomServiceTest {
+
+    private RoomService service;
+    private Room room;
+
+    @BeforeEach
+    void setUp() {
+        service = new RoomService(new ProviderIdentityValidator());
+        room = service.findAll().getFirst();
+    }
+
+    @Test
+    void pausesRoomWhenRetryBudgetExhausted() {
+        Room updated = service.recordDriverFailure(room.getId(), "timeout");
+        assertEquals(DriverStatus.State.RETRYING, updated.getDriverStatus().getState());
+        assertTrue(updated.getDriverStatus().getConsecutiveFailures() > 0);
+
+        service.recordDriverFailure(room.getId(), "timeout2");
+        Room pausedRoom = service.recordDriverFailure(room.getId(), "timeout3");
+
+        assertEquals(DriverStatus.State.PAUSED, pausedRoom.getDriverStatus().getState());
+        assertTrue(pausedRoom.isPaused());
+    }
+
+    @Test
+    void blocksArtifactChangesWhilePaused() {
+        service.pauseRoom(room.getId());
+
+        IllegalStateException ex = assertThrows(IllegalStateException.class, () ->
+                service.addArtifact(room.getId(), ArtifactType.NOTE, "Blocked", "No write while paused", null));
+
+        assertEquals("Room is paused; resume before making changes", ex.getMessage());
+    }
+
+    @Test
+    void resumingRoomResetsDriverStatus() {
+        service.recordDriverFailure(room.getId(), "first");
+        service.recordDriverFailure(room.getId(), "second");
+        Room pausedRoom = service.recordDriverFailure(room.getId(), "third");
+        assertTrue(pausedRoom.isPaused());
+
+        Room resumed = service.resumeRoom(room.getId());
+        assertTrue(resumed.getDriverStatus().getConsecutiveFailures() == 0);
+        assertEquals(DriverStatus.State.HEALTHY, resumed.getDriverStatus().getState());
+        assertTrue(!resumed.isPaused());
+    }
+
+    @Test
+    void registersApiAdapterAndKeepsCatalogSynced() {
+        service.registerProvider(room.getId(), "OpenAI API", ProviderAccessMode.API, java.util.List.of("dialog", "tools"), "https://api.openai.local", true);
+
+        Room refreshed = service.getRoom(room.getId());
+        assertTrue(refreshed.getProviderAdapters().stream().anyMatch(adapter ->
+                adapter.getProviderName().equals("OpenAI API") && adapter.getAccessMode() == ProviderAccessMode.API));
+
+        Participant apiImplementor = new Participant(java.util.UUID.randomUUID(), "API Implementor", ParticipantType.AI, ParticipantRole.IMPLEMENTOR, "OpenAI API", java.util.List.of("patch"));
+        Room withImplementor = service.addParticipant(room.getId(), apiImplementor);
+
+        assertTrue(withImplementor.getParticipants().stream().anyMatch(p -> p.getProvider().equals("OpenAI API")));
+    }
+
+    @Test
+    void reusesAdapterRegisteredUnderDifferentCase() {
+        var adapter = service.registerProvider(room.getId(), "OpenAI API", ProviderAccessMode.API, java.util.List.of("dialog"), "https://api.openai.local", true);
+        int adapterCount = service.getRoom(room.getId()).getProviderAdapters().size();
+
+        var again = service.registerProvider(room.getId(), "openai api", ProviderAccessMode.API, java.util.List.of("dialog"), "https://api.openai.local", true);
+
+        assertEquals(adapter.getId(), again.getId());
+        assertEquals(adapterCount, service.getRoom(room.getId()).getProviderAdapters().size());
+        assertEquals(adapter, service.getRoom(room.getId()).findProviderAdapter("OPENAI API", ProviderAccessMode.API).orElseThrow());
+    }
+
+    @Test
+    void assignsTasksIntoParallelLanes() {
+        Participant extraImplementor = new Participant(java.util.UUID.randomUUID(), "Gemini Builder", ParticipantType.AI, ParticipantRole.IMPLEMENTOR, "Gemini", java.util.List.of("implementation"));
+        Room roomWithExtra = service.addParticipant(room.getId(), extraImplementor);
+
+        var taskOne = service.addArtifact(room.getId(), ArtifactType.TASK, "Task Alpha", "Build feature A", roomWithExtra.getArtifacts().stream().filter(a -> a.getType() == ArtifactType.PLAN).findFirst().orElseThrow().getId());
+        var taskTwo = service.addArtifact(room.getId(), ArtifactType.TASK, "Task Beta", "Build feature B", roomWithExtra.getArtifacts().stream().filter(a -> a.getType() == ArtifactType.PLAN).findFirst().orElseThrow().getId());
+
+        TaskLane laneOne = service.createTaskLane(room.getId(), "Lane One", roomWithExtra.getParticipants().stream().filter(p -> p.getRole() == ParticipantRole.IMPLEMENTOR).findFirst().orElseThrow().getId());
+        TaskLane laneTwo = service.createTaskLane(room.getId(), "Lane Two", extraImplementor.getId());
+
+        service.assignTaskToLane(room.getId(), laneOne.getId(), taskOne.getId());
+        service.assignTaskToLane(room.getId(), laneTwo.getId(), taskTwo.getId());
+
+        Room updated = service.getRoom(room.getId());
+        assertEquals(3, updated.getTaskLanes().size());
+        assertTrue(updated.getTaskLanes().stream().anyMatch(lane -> lane.getTaskArtifactIds().contains(taskOne.getId())));
+        assertTrue(updated.getTaskLanes().stream().anyMatch(lane -> lane.getTaskArtifactIds().contains(taskTwo.getId())));
+    }
+
+    @Test
+    void updatesTaskLaneStateAndProducesSummary() {
+        TaskLane lane = room.getTaskLanes().getFirst();
+        service.updateTaskLaneState(room.getId(), lane.getId(), TaskLaneState.BLOCKED);
+
+        Room updated = service.getRoom(room.getId());
+        assertEquals(TaskLaneState.BLOCKED, updated.getTaskLanes().getFirst().getState());
+
+        RoomSummary summary = service.summarizeRoom(room.getId());
+        assertEquals(4, summary.getParticipantsByRole().values().stream().mapToLong(Long::longValue).sum());
+        assertEquals(1, summary.getTaskLanesByState().get(TaskLaneState.BLOCKED));
+        assertTrue(summary.getArtifactsByType().get(ArtifactType.PLAN) >= 1);
+        assertEquals(updated.getMessages().size(), summary.getMessageCount());
+    }
+
+    @Test
+    void summaryCountersFollowMutationsAndLaneTransitions() {
+        TaskLane lane = room.getTaskLanes().getFirst();
+        service.addParticipant(room.getId(), new Participant(UUID.randomUUID(), "Second Reviewer", ParticipantType.AI, ParticipantRole.REVIEWER, "Gemini", java.util.List.of("review")));
+        service.addArtifact(room.getId(), ArtifactType.NOTE, "Note", "Counted", null);
+        service.updateTaskLaneState(room.getId(), lane.getId(), TaskLaneState.BLOCKED);
+        service.updateTaskLaneState(room.getId(), lane.getId(), TaskLaneState.COMPLETE);
+
+        RoomSummary summary = service.summarizeRoom(room.getId());
+        Room updated = service.getRoom(room.getId());
+        assertEquals(2, summary.getParticipantsByRole().get(ParticipantRole.REVIEWER));
+        assertEquals(updated.getParticipants().stream().filter(p -> p.getType() == ParticipantType.AI).count(),
+                summary.getParticipantsByType().get(ParticipantType.AI));
+        assertEquals(1, summary.getArtifactsByType().get(ArtifactType.NOTE));
+        assertEquals(1, summary.getTaskLanesByState().get(TaskLaneState.COMPLETE));
+        assertFalse(summary.getTaskLanesByState().containsKey(TaskLaneState.ACTIVE));
+        assertFalse(summary.getTaskLanesByState().containsKey(TaskLaneState.BLOCKED));
+    }
+
+    @Test
+    void publishedViewsStayConsistentWhileWritersContinue() {
+        Room before = service.getRoom(room.getId());
+        UUID authorId = before.getParticipants().getFirst().getId();
+        TaskLane lane = before.getTaskLanes().getFirst();
+
+        service.addMessage(room.getId(), authorId, "after the view was taken");
+        service.updateTaskLaneState(room.getId(), lane.getId(), TaskLaneState.BLOCKED);
+        Room after = service.getRoom(room.getId());
+
+        assertTrue(after.getVersion() > before.getVersion());
+        assertEquals(before.getMessages().size() + 1, after.getMessages().size());
+        assertEquals(TaskLaneState.ACTIVE, before.getTaskLanes().getFirst().getState());
+        assertEquals(TaskLaneState.BLOCKED, after.getTaskLanes().getFirst().getState());
+        assertEquals(TaskLaneState.ACTIVE, before.findTaskLane(lane.getId()).orElseThrow().getState());
+        assertTrue(before.summarize().getTaskLanesByState().containsKey(TaskLaneState.ACTIVE));
+        assertThrows(IllegalStateException.class, () -> before.addMessage(after.getMessages().getLast()));
+        assertEquals(after, service.getRoom(room.getId()), "reads without writes reuse the published view");
+    }
+
+    @Test
+    void recoversRoomStateFromRoomLog(@TempDir Path logDirectory) {
+        Room durableRoom;
+        try (SegmentedRoomLog roomLog = openLog(logDirectory)) {
+            RoomService durableService = new RoomService(new ProviderIdentityValidator(), roomLog, RoomSnapshotStore.disabled());
+            durableRoom = durableService.findAll().getFirst();
+            var plan = durableRoom.getArtifacts().getFirst();
+            var task = durableService.addArtifact(durableRoom.getId(), ArtifactType.TASK, "Durable Task", "Survive restarts", plan.getId());
+            durableService.assignTaskToLane(durableRoom.getId(), durableRoom.getTaskLanes().getFirst().getId(), task.getId());
+            durableService.addMessage(durableRoom.getId(), durableRoom.getParticipants().getFirst().getId(), "Persist me");
+            durableService.registerProvider(durableRoom.getId(), "Durable API", ProviderAccessMode.API, java.util.List.of("dialog"), "http://localhost:9999", true);
+            durableService.recordDriverFailure(durableRoom.getId(), "timeout");
+            durableRoom = durableService.getRoom(durableRoom.getId());
+        }
+
+        try (SegmentedRoomLog roomLog = openLog(logDirectory)) {
+            RoomService recovered = new RoomService(new ProviderIdentityValidator(), roomLog, RoomSnapshotStore.disabled());
+            assertEquals(1, recovered.findAll().size());
+            Room restored = recovered.getRoom(durableRoom.getId());
+            assertNotNull(restored);
+            assertEquals(durableRoom.getArtifacts().size(), restored.getArtifacts().size());
+            assertEquals(durableRoom.getEvents().size(), restored.getEvents().size());
+            assertEquals("Persist me", restored.getMessages().getFirst().getContent());
+            assertEquals(durableRoom.getMessages().getFirst().getCreatedAt(), restored.getMessages().getFirst().getCreatedAt());
+            assertEquals(1, restored.getTaskLanes().getFirst().getTaskArtifactIds().size());
+            assertTrue(restored.getProviderAdapters().stream().anyMatch(adapter -> adapter.getProviderName().equals("Durable API")));
+            assertEquals(DriverStatus.State.RETRYING, restored.getDriverStatus().getState());
+            assertEquals("timeout", restored.getDriverStatus().getLastFailureReason());
+        }
+    }
+
+    @Test
+    void restoresFromSnapshotsAndTruncatesLogBehindCheckpoint(@TempDir Path logDirectory) throws Exception {
+        RoomSnapshotStore snapshots = new FileRoomSnapshotStore(logDirectory.resolve("snapshots"));
+        Room durableRoom;
+        try (SegmentedRoomLog roomLog = openLog(logDirectory, 2048)) {
+            RoomService durableService = new RoomService(new ProviderIdentityValidator(), roomLog, snapshots);
+            durableRoom = durableService.findAll().getFirst();
+            UUID authorId = durableRoom.getParticipants().getFirst().getId();
+            for (int i = 0; i < 50; i++) {
+                durableService.addMessage(durableRoom.getId(), authorId, "before checkpoint " + i);
+            }
+            assertEquals(1, durableService.checkpoint());
+            assertEquals(0, durableService.checkpoint());
+            durableService.addMessage(durableRoom.getId(), authorId, "after checkpoint");
+            durableService.updateTaskLaneState(durableRoom.getId(), durableRoom.getTaskLanes().getFirst().getId(), TaskLaneState.BLOCKED);
+            durableRoom = durableService.getRoom(durableRoom.getId());
+        }
+        try (var segments = Files.list(logDirectory)) {
+            assertFalse(segments.anyMatch(path -> path.getFileName().toString().equals("00000000000000000001.seg")),
+                    "segments fully covered by the checkpoint should be truncated");
+        }
+
+        try (SegmentedRoomLog roomLog = openLog(logDirectory, 2048)) {
+            RoomService recovered = new RoomService(new ProviderIdentityValidator(), roomLog, snapshots);
+            Room restored = recovered.getRoom(durableRoom.getId());
+            assertEquals(51, restored.getMessages().size());
+            assertEquals("after checkpoint", restored.getMessages().getLast().getContent());
+            assertEquals(TaskLaneState.BLOCKED, restored.getTaskLanes().getFirst().getState());
+            assertEquals(durableRoom.getEvents().size(), restored.getEvents().size());
+        }
+    }
+
+    @Test
+    void fileEngineKeepsAppendOnlyCollectionsOnDiskAndRebuildsFromLog(@TempDir Path directory) throws Exception {
+        Room durableRoom;
+        try (SegmentedRoomLog roomLog = openLog(directory.resolve("log"));
+             FileRoomRepository repository = new FileRoomRepository(directory.resolve("rooms"))) {
+            RoomService fileService = new RoomService(new ProviderIdentityValidator(), repository, roomLog, RoomSnapshotStore.disabled());
+            durableRoom = fileService.findAll().getFirst();
+            UUID authorId = durableRoom.getParticipants().getFirst().getId();
+            for (int i = 0; i < 200; i++) {
+                fileService.addMessage(durableRoom.getId(), authorId, "spilled " + i);
+            }
+            durableRoom = fileService.getRoom(durableRoom.getId());
+            assertEquals(200, durableRoom.getMessages().size());
+            assertEquals("spilled 199", durableRoom.getMessages().getLast().getContent());
+            assertTrue(Files.size(directory.resolve("rooms").resolve(FileRoomRepository.SPILL_DIRECTORY).resolve(durableRoom.getId().toString()).resolve("messages.bin")) > 0);
+        }
+
+        try (SegmentedRoomLog roomLog = openLog(directory.resolve("log"));
+             FileRoomRepository repository = new FileRoomRepository(directory.resolve("rooms"))) {
+            RoomService recovered = new RoomService(new ProviderIdentityValidator(), repository, roomLog, RoomSnapshotStore.disabled());
+            Room restored = recovered.getRoom(durableRoom.getId());
+            assertEquals(200, restored.getMessages().size());
+            assertEquals("spilled 0", restored.getMessages().getFirst().getContent());
+            assertEquals(durableRoom.getArtifacts().size(), restored.getArtifacts().size());
+            assertEquals(durableRoom.getEvents().size(), restored.getEvents().size());
+        }
+    }
+
+    @Test
+    void fileEngineRestoresSnapshotsEntryByEntryIntoItsFiles(@TempDir Path directory) throws Exception {
+        RoomSnapshotStore snapshots = new FileRoomSnapshotStore(directory.resolve("snapshots"));
+        String longMessage = "x".repeat(200_000);
+        Room durableRoom;
+        try (SegmentedRoomLog roomLog = openLog(directory.resolve("log"));
+             FileRoomRepository repository = new FileRoomRepository(directory.resolve("rooms"))) {
+            RoomService fileService = new RoomService(new ProviderIdentityValidator(), repository, roomLog, snapshots);
+            durableRoom = fileService.findAll().getFirst();
+            UUID authorId = durableRoom.getParticipants().getFirst().getId();
+            for (int i = 0; i < 5_000; i++) {
+                fileService.addMessage(durableRoom.getId(), authorId, "snapshotted " + i);
+            }
+            fileService.addMessage(durableRoom.getId(), authorId, longMessage);
+            assertEquals(1, fileService.checkpoint());
+            durableRoom = fileService.getRoom(durableRoom.getId());
+        }
+
+        try (SegmentedRoomLog roomLog = openLog(directory.resolve("log"));
+             FileRoomRepository repository = new FileRoomRepository(directory.resolve("rooms"))) {
+            RoomService recovered = new RoomService(new ProviderIdentityValidator(), repository, roomLog, snapshots);
+            Room restored = recovered.getRoom(durableRoom.getId());
+            assertEquals(5_001, restored.getMessages().size());
+            assertEquals("snapshotted 4999", restored.getMessages().get(4_999).getContent());
+            assertEquals(longMessage, restored.getMessages().getLast().getContent());
+            assertEquals(durableRoom.getEvents().size(), restored.getEvents().size());
+            assertEquals(durableRoom.getVersion(), restored.getVersion());
+            assertTrue(Files.size(directory.resolve("rooms").resolve(FileRoomRepository.SPILL_DIRECTORY)
+                    .resolve(durableRoom.getId().toString()).resolve("messages.bin")) > longMessage.length());
+        }
+    }
+
+    @Test
+    void fileEngineOnlyClearsTheSpillAreaItCreated(@TempDir Path directory) throws Exception {
+        Path foreign = Files.writeString(directory.resolve("notes.txt"), "keep me");
+        try (FileRoomRepository repository = new FileRoomRepository(directory)) {
+            repository.newRoom(UUID.randomUUID(), "Spilled", Instant.now());
+        }
+        try (FileRoomRepository repository = new FileRoomRepository(directory)) {
+            assertTrue(repository.isEmpty());
+        }
+        assertEquals("keep me", Files.readString(foreign));
+        try (var spill = Files.list(directory.resolve(FileRoomRepository.SPILL_DIRECTORY))) {
+            assertEquals(List.of(FileRoomRepository.MARKER), spill.map(path -> path.getFileName().toString()).toList());
+        }
+
+        Path unmarked = directory.resolve("other");
+        Files.createDirectories(unmarked.resolve(FileRoomRepository.SPILL_DIRECTORY));
+        Path stranger = Files.writeString(unmarked.resolve(FileRoomRepository.SPILL_DIRECTORY).resolve("data.bin"), "not ours");
+        assertThrows(IllegalStateException.class, () -> new FileRoomRepository(unmarked));
+        assertEquals("not ours", Files.readString(stranger));
+    }
+
+    @Test
+    void contendedRoomWritesDoNotPinVirtualThreads(@TempDir Path logDirectory) throws Exception {
+        List<RecordedEvent> pinned = new CopyOnWriteArrayList<>();
+        try (SegmentedRoomLog roomLog = SegmentedRoomLog.open(logDirectory, DurabilityMode.GROUP_COMMIT, Duration.ofMillis(2), 1024 * 1024, new SimpleMeterRegistry());
+             RecordingStream recording = new RecordingStream()) {
+            recording.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ZERO).withStackTrace();
+            recording.onEvent("jdk.VirtualThreadPinned", pinned::add);
+            recording.startAsync();
+
+            RoomService durableService = new RoomService(new ProviderIdentityValidator(), roomLog, RoomSnapshotStore.disabled());
+            Room room = durableService.findAll().getFirst();
+            UUID authorId = room.getParticipants().getFirst().getId();
+            try (ExecutorService writers = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (int i = 0; i < 500; i++) {
+                    int message = i;
+                    writers.submit(() -> durableService.addMessage(room.getId(), authorId, "virtual " + message));
+                }
+            }
+            recording.stop();
+
+            assertEquals(room.getMessages().size() + 500, durableService.getRoom(room.getId()).getMessages().size());
+        }
+        assertTrue(pinned.isEmpty(), () -> "virtual threads pinned while waiting: " + pinned);
+    }
+
+    @Test
+    void actorModeAppliesConcurrentCommandsInBatchesWithSameValidation(@TempDir Path logDirectory) throws Exception {
+        RoomExecutionProperties execution = new RoomExecutionProperties();
+        execution.setExecution(RoomExecutionProperties.Execution.ACTOR);
+        execution.setMailboxBatchSize(16);
+        try (SegmentedRoomLog roomLog = SegmentedRoomLog.open(logDirectory, DurabilityMode.GROUP_COMMIT, Duration.ofMillis(2), 1024 * 1024, new SimpleMeterRegistry())) {
+            RoomService actorService = new RoomService(new ProviderIdentityValidator(), new InMemoryRoomRepository(), roomLog,
+                    RoomSnapshotStore.disabled(), RoomEventPipeline.standalone(), execution);
+            Room room = actorService.findAll().getFirst();
+            UUID authorId = room.getParticipants().getFirst().getId();
+            int before = room.getMessages().size();
+
+            List<CompletableFuture<RoomUpdate<ChatMessage>>> updates = new CopyOnWriteArrayList<>();
+            try (ExecutorService writers = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (int i = 0; i < 300; i++) {
+                    int message = i;
+                    writers.submit(() -> updates.add(actorService.submit(room.getId(), new RoomCommand.PostMessage(authorId, "actor " + message))));
+                }
+            }
+            CompletableFuture.allOf(updates.toArray(CompletableFuture[]::new)).join();
+
+            assertEquals(before + 300, actorService.getRoom(room.getId()).getMessages().size());
+            assertEquals(300, updates.stream().map(update -> update.join().version()).distinct().count());
+            assertThrows(IllegalArgumentException.class, () -> actorService.addMessage(room.getId(), authorId, " "));
+            assertThrows(IllegalArgumentException.class, () -> actorService.addMessage(UUID.randomUUID(), authorId, "nowhere"));
+            assertEquals(before + 300, actorService.getRoom(room.getId()).getMessages().size());
+        }
+    }
+
+    @Test
+    void actorModeFailsEveryCallerOfABatchThatCannotBeMadeDurable() {
+        RoomExecutionProperties execution = new RoomExecutionProperties();
+        execution.setExecution(RoomExecutionProperties.Execution.ACTOR);
+        FailingDurabilityLog roomLog = new FailingDurabilityLog();
+        RoomService actorService = new RoomService(new ProviderIdentityValidator(), new InMemoryRoomRepository(), roomLog,
+                RoomSnapshotStore.disabled(), RoomEventPipeline.standalone(), execution);
+        Room room = actorService.findAll().getFirst();
+        UUID authorId = room.getParticipants().getFirst().getId();
+
+        roomLog.failing = true;
+        CompletableFuture<RoomUpdate<ChatMessage>> update = actorService.submit(room.getId(), new RoomCommand.PostMessage(authorId, "lost"));
+
+        CompletionException ex = assertThrows(CompletionException.class, () -> update.orTimeout(5, TimeUnit.SECONDS).join());
+        assertInstanceOf(UncheckedIOException.class, ex.getCause());
+    }
+
+    @Test
+    void failedBatchLeavesNoProviderInTheCatalogForNewRooms() {
+        RoomExecutionProperties execution = new RoomExecutionProperties();
+        execution.setMode(RoomExecutionProperties.Mode.MULTI);
+        RoomService multiService = new RoomService(new ProviderIdentityValidator(), new InMemoryRoomRepository(), RoomLog.disabled(),
+                RoomSnapshotStore.disabled(), RoomEventPipeline.standalone(), execution);
+        Room room = multiService.findAll().getFirst();
+        UUID authorId = room.getParticipants().getFirst().getId();
+
+        RoomCommand.Batch failing = new RoomCommand.Batch(List.of(
+                results -> new RoomCommand.RegisterProvider("Rolled Back", ProviderAccessMode.API, List.of("dialog"), "http://localhost:9000", true),
+                results -> new RoomCommand.PostMessage(authorId, " ")));
+        CompletionException ex = assertThrows(CompletionException.class, () -> multiService.submit(room.getId(), failing).join());
+        assertInstanceOf(IllegalArgumentException.class, ex.getCause());
+        assertFalse(multiService.getRoom(room.getId()).getProviderAdapters().stream().anyMatch(a -> a.getProviderName().equals("Rolled Back")));
+
+        multiService.submit(room.getId(), new RoomCommand.Batch(List.of(
+                results -> new RoomCommand.RegisterProvider("Committed", ProviderAccessMode.API, List.of("dialog"), "http://localhost:9001", true)))).join();
+
+        Room created = multiService.createRoom("Second room");
+        assertFalse(created.getProviderAdapters().stream().anyMatch(a -> a.getProviderName().equals("Rolled Back")));
+        assertTrue(created.getProviderAdapters().stream().anyMatch(a -> a.getProviderName().equals("Committed")));
+    }
+
+    @Test
+    void unknownRoomIdsAreRejectedWithoutRegisteringLocks() throws Exception {
+        int registered = service.roomLocks().size();
+        for (int i = 0; i < 100; i++) {
+            UUID unknown = UUID.randomUUID();
+            assertThrows(IllegalArgumentException.class, () -> service.pauseRoom(unknown));
+            assertTrue(service.submit(unknown, new RoomCommand.ResumeRoom()).isCompletedExceptionally());
+        }
+        assertEquals(registered, service.roomLocks().size());
+
+        ReentrantLock held = service.roomLocks().acquire(room.getId());
+        Thread writer = Thread.ofVirtual().start(() -> service.addMessage(room.getId(), room.getParticipants().getFirst().getId(), "waited"));
+        while (!held.hasQueuedThreads()) {
+            Thread.onSpinWait();
+        }
+        held.unlock();
+        writer.join();
+        assertEquals(1, service.roomLocks().contendedAcquisitions());
+        assertEquals(registered, service.roomLocks().size());
+    }
+
+    @Test
+    void multiRoomModeCreatesIndependentRoomsServedByShards() {
+        RoomExecutionProperties execution = new RoomExecutionProperties();
+        execution.setExecution(RoomExecutionProperties.Execution.ACTOR);
+        execution.setMode(RoomExecutionProperties.Mode.MULTI);
+        execution.setShards(3);
+        RoomService multiService = new RoomService(new ProviderIdentityValidator(), new InMemoryRoomRepository(), RoomLog.disabled(),
+                RoomSnapshotStore.disabled(), RoomEventPipeline.standalone(), execution);
+
+        List<Room> created = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            created.add(multiService.createRoom("Room " + i));
+        }
+        assertEquals(8, created.stream().map(Room::getId).distinct().count());
+        assertEquals(9, multiService.findAll().size());
+
+        List<CompletableFuture<RoomUpdate<ChatMessage>>> updates = new ArrayList<>();
+        for (int message = 0; message < 50; message++) {
+            for (Room target : created) {
+                UUID authorId = target.getParticipants().getFirst().getId();
+                updates.add(multiService.submit(target.getId(), new RoomCommand.PostMessage(authorId, "sharded " + message)));
+            }
+        }
+        CompletableFuture.allOf(updates.toArray(CompletableFuture[]::new)).join();
+
+        for (Room target : created) {
+            List<ChatMessage> messages = multiService.getRoom(target.getId()).getMessages();
+            assertEquals(target.getMessages().size() + 50, messages.size());
+            assertEquals("sharded 49", messages.getLast().getContent());
+        }
+        Room first = multiService.getRoom(created.getFirst().getId());
+        assertEquals(first.getProviderAdapters().size(), room.getProviderAdapters().size());
+    }
+
+    private SegmentedRoomLog openLog(Path logDirectory) {
+        return openLog(logDirectory, 1024 * 1024);
+    }
+
+    private SegmentedRoomLog openLog(Path logDirectory, int segmentSize) {
+        return SegmentedRoomLog.open(logDirectory, DurabilityMode.SYNC, Duration.ofMillis(5), segmentSize, new SimpleMeterRegistry());
+    }
+
+    private static final class FailingDurabilityLog implements RoomLog {
+
+        private volatile boolean failing;
+
+        @Override
+        public long append(RoomLogRecord record) {
+            return 0;
+        }
+
+        @Override
+        public long lastLsn() {
+            return 0;
+        }
+
+        @Override
+        public void awaitDurable(long lsn) {
+            if (failing) {
+                throw new UncheckedIOException(new IOException("disk full"));
+            }
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void replay(long afterLsn, RecordVisitor visitor) {
+        }
+
+        @Override
+        public void truncateBefore(long lsn) {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.localcollab.platform.service;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compares how many slow provider round trips can be in flight at once with the platform-thread pool and with virtual
+ * threads, against a local stub that answers after {@link #PROVIDER_LATENCY}. Run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+class VirtualThreadLoadBenchmarkTest {
+
+    private static final Duration PROVIDER_LATENCY = Duration.ofMillis(500);
+    private static final int AGENT_REQUESTS = 2_000;
+    private static final int PLATFORM_THREADS = 200;
+
+    @Test
+    void virtualThreadsKeepMoreProviderCallsInFlight() throws Exception {
+        HttpServer provider = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 4096);
+        provider.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        provider.createContext("/api/generate", exchange -> {
+            try {
+                Thread.sleep(PROVIDER_LATENCY);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            byte[] body = "{\"response\":\"ok\"}".getBytes();
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        provider.start();
+        try {
+            URI endpoint = URI.create("http://127.0.0.1:" + provider.getAddress().getPort() + "/api/generate");
+            Result platform = run(ProviderCallConfiguration.providerCallExecutor(false, PLATFORM_THREADS), endpoint);
+            Result virtual = run(ProviderCallConfiguration.providerCallExecutor(true, PLATFORM_THREADS), endpoint);
+
+            System.out.printf("%d provider calls of %d ms: platform pool peak %d in flight in %d ms, virtual threads peak %d in flight in %d ms%n",
+                    AGENT_REQUESTS, PROVIDER_LATENCY.toMillis(), platform.peakInFlight, platform.elapsedMillis, virtual.peakInFlight, virtual.elapsedMillis);
+            assertTrue(platform.peakInFlight <= PLATFORM_THREADS);
+            assertTrue(virtual.peakInFlight > platform.peakInFlight * 2, "virtual threads should not be capped by the pool size");
+        } finally {
+            provider.stop(0);
+        }
+    }
+
+    private Result run(ExecutorService executor, URI endpoint) throws Exception {
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+        HttpRequest request = HttpRequest.newBuilder(endpoint).timeout(Duration.ofSeconds(60)).build();
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        long start = System.nanoTime();
+        try (executor) {
+            List<Future<Integer>> calls = new ArrayList<>(AGENT_REQUESTS);
+            for (int i = 0; i < AGENT_REQUESTS; i++) {
+                calls.add(executor.submit(() -> {
+                    peak.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                    try {
+                        return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                    } finally {
+                        inFlight.decrementAndGet();
+                    }
+                }));
+            }
+            for (Future<Integer> call : calls) {
+                assertEquals(200, call.get());
+            }
+        }
+        return new Result(peak.get(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private record Result(int peakInFlight, long elapsedMillis) {
+    }
+}
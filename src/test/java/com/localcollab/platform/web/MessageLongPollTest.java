@@ -0,0 +1,64 @@
+package com.localcollab.platform.web;
+
+import com.localcollab.platform.domain.ChatMessage;
+import com.localcollab.platform.domain.Participant;
+import com.localcollab.platform.domain.ParticipantType;
+import com.localcollab.platform.domain.Room;
+import com.localcollab.platform.service.RoomService;
+import com.localcollab.platform.validation.ProviderIdentityValidator;
+import com.localcollab.platform.web.dto.SequencedDTO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MessageLongPollTest {
+
+    @Test
+    void wakesEveryWaiterAcrossConcurrentAwaitAndCompleteCycles() throws Exception {
+        RoomService roomService = new RoomService(new ProviderIdentityValidator());
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        MessageLongPoll longPoll = new MessageLongPoll(roomService, meterRegistry);
+        Room room = roomService.findAll().getFirst();
+        UUID humanId = room.getParticipants().stream()
+                .filter(p -> p.getType() == ParticipantType.HUMAN)
+                .map(Participant::getId)
+                .findFirst()
+                .orElseThrow();
+
+        ExecutorService callers = Executors.newFixedThreadPool(8);
+        try {
+            for (int round = 0; round < 200; round++) {
+                long after = roomService.getRoom(room.getId()).getMessages().size();
+                List<Future<DeferredResult<List<SequencedDTO<ChatMessage>>>>> parked = new ArrayList<>();
+                for (int i = 0; i < 8; i++) {
+                    parked.add(callers.submit(() -> longPoll.await(room.getId(), after, null, 10_000)));
+                }
+                roomService.addMessage(room.getId(), humanId, "round " + round);
+                for (Future<DeferredResult<List<SequencedDTO<ChatMessage>>>> waiter : parked) {
+                    DeferredResult<List<SequencedDTO<ChatMessage>>> result = waiter.get();
+                    long deadline = System.nanoTime() + 5_000_000_000L;
+                    while (!result.hasResult() && System.nanoTime() < deadline) {
+                        Thread.sleep(1);
+                    }
+                    assertTrue(result.hasResult(), "waiter of round " + round + " was never woken");
+                    @SuppressWarnings("unchecked")
+                    List<SequencedDTO<ChatMessage>> messages = (List<SequencedDTO<ChatMessage>>) result.getResult();
+                    assertEquals(after + 1, messages.getFirst().getSeq());
+                }
+            }
+        } finally {
+            callers.shutdownNow();
+        }
+        assertEquals(0, meterRegistry.get("room.messages.waiters").gauge().value());
+    }
+}
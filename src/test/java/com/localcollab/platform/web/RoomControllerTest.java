@@ -5,7 +5,7 @@ import com.localcollab.platform.domain.Participant;
 import com.localcollab.platform.domain.ParticipantType;
 import com.localcollab.platform.domain.Room;
 import com.localcollab.platform.domain.TaskLaneState;
-import com.localcollab.platform.service.InMemoryRoomService;
+import com.localcollab.platform.service.RoomService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -14,15 +14,20 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @SpringBootTest
@@ -33,7 +38,7 @@ class RoomControllerTest {
     private MockMvc mockMvc;
 
     @Autowired
-    private InMemoryRoomService roomService;
+    private RoomService roomService;
 
     @Autowired
     private ObjectMapper objectMapper;
@@ -91,7 +96,8 @@ class RoomControllerTest {
 
         mockMvc.perform(get("/api/rooms/" + roomId + "/messages"))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$[0].content").value("Hello planner"));
+                .andExpect(jsonPath("$[0].content").value("Hello planner"))
+                .andExpect(jsonPath("$[0].seq").doesNotExist());
     }
 
     @Test
@@ -144,6 +150,38 @@ class RoomControllerTest {
                 .andExpect(jsonPath("$.providerAdapters[?(@.providerName=='Gemini API')]").isNotEmpty());
     }
 
+    @Test
+    void chargesDriverFailuresWithAnAdapterToItsCircuitInsteadOfPausingTheRoom() throws Exception {
+        UUID adapterId = roomService.getRoom(roomId).getProviderAdapters().getFirst().getId();
+
+        mockMvc.perform(post("/api/rooms/" + roomId + "/driver/failures").param("adapterId", adapterId.toString())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("reason", "tab crashed"))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.state", is("CLOSED")))
+                .andExpect(jsonPath("$.calls", is(1)))
+                .andExpect(jsonPath("$.lastFailureReason", is("tab crashed")));
+        for (int i = 0; i < 4; i++) {
+            mockMvc.perform(post("/api/rooms/" + roomId + "/driver/failures").param("adapterId", adapterId.toString())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(Map.of("reason", "tab crashed"))));
+        }
+        mockMvc.perform(get("/api/rooms/" + roomId + "/providers/" + adapterId + "/circuit"))
+                .andExpect(jsonPath("$.state", is("OPEN")));
+        mockMvc.perform(post("/api/rooms/" + roomId + "/driver/recoveries").param("adapterId", adapterId.toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.state", is("CLOSED")));
+        mockMvc.perform(get("/api/rooms/" + roomId + "/providers/" + adapterId + "/circuit"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.state", is("CLOSED")))
+                .andExpect(jsonPath("$.calls", is(0)))
+                .andExpect(jsonPath("$.openings", is(0)));
+        mockMvc.perform(get("/api/rooms/" + roomId + "/providers/" + UUID.randomUUID() + "/circuit"))
+                .andExpect(status().isNotFound());
+
+        assertThat(roomService.getRoom(roomId).isPaused()).isFalse();
+    }
+
     @Test
     void createsParallelTaskLanesViaApi() throws Exception {
         Map<String, Object> taskPayload = Map.of(
@@ -202,4 +240,260 @@ class RoomControllerTest {
                 .andExpect(jsonPath("$.taskLanesByState." + TaskLaneState.BLOCKED.name()).value(1))
                 .andExpect(jsonPath("$.participantsByRole.PLANNER").value(1));
     }
+
+    @Test
+    void servesRoomDetailWithVersionEtagAndNotModified() throws Exception {
+        String etag = mockMvc.perform(get("/api/rooms/" + roomId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(roomId.toString()))
+                .andExpect(jsonPath("$.version").value(roomService.getRoom(roomId).getVersion()))
+                .andReturn().getResponse().getHeader("ETag");
+        assertThat(etag).isEqualTo("\"" + roomService.getRoom(roomId).getVersion() + "\"");
+
+        mockMvc.perform(get("/api/rooms/" + roomId).header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+
+        mockMvc.perform(post("/api/rooms/" + roomId + "/messages")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("participantId", humanId.toString(), "content", "Changes the version"))))
+                .andExpect(status().isCreated());
+
+        mockMvc.perform(get("/api/rooms/" + roomId).header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.events[-1:].description").value(org.hamcrest.Matchers.hasItem("Message posted by You")));
+        mockMvc.perform(get("/api/rooms/" + UUID.randomUUID()))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void pagesMessagesArtifactsAndEventsBySequenceNumber() throws Exception {
+        int existing = roomService.getRoom(roomId).getMessages().size();
+        for (int i = 1; i <= 5; i++) {
+            roomService.addMessage(roomId, humanId, "page " + i);
+        }
+        long firstNew = existing + 1;
+
+        mockMvc.perform(get("/api/rooms/" + roomId + "/messages").param("after", String.valueOf(existing)).param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].seq").value(firstNew))
+                .andExpect(jsonPath("$[0].content").value("page 1"))
+                .andExpect(jsonPath("$[1].content").value("page 2"));
+
+        mockMvc.perform(get("/api/rooms/" + roomId + "/messages").param("before", String.valueOf(firstNew + 4)).param("limit", "2"))
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].content").value("page 3"))
+                .andExpect(jsonPath("$[1].seq").value(firstNew + 3));
+
+        mockMvc.perform(get("/api/rooms/" + roomId + "/messages").param("limit", "1"))
+                .andExpect(jsonPath("$[0].content").value("page 5"));
+
+        mockMvc.perform(get("/api/rooms/" + roomId + "/messages").param("after", String.valueOf(firstNew + 4)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(0)));
+
+        mockMvc.perform(get("/api/rooms/" + roomId + "/messages").param("limit", "0"))
+                .andExpect(status().isBadRequest());
+
+        mockMvc.perform(get("/api/rooms/" + roomId + "/artifacts").param("after", "0").param("limit", "1"))
+                .andExpect(jsonPath("$[0].seq").value(1))
+                .andExpect(jsonPath("$[0].id").value(starterPlanId.toString()));
+
+        int events = roomService.getRoom(roomId).getEvents().size();
+        mockMvc.perform(get("/api/rooms/" + roomId + "/events").param("limit", "1"))
+                .andExpect(jsonPath("$[0].seq").value(events))
+                .andExpect(jsonPath("$[0].description").value("Message posted by You"));
+    }
+
+    @Test
+    void returnsOnlyTheChangedEntityWhenClientPrefersMinimalResponses() throws Exception {
+        Map<String, Object> payload = Map.of("type", "NOTE", "title", "Delta note", "content", "Only this comes back");
+
+        var result = mockMvc.perform(post("/api/rooms/" + roomId + "/artifacts")
+                        .header("Prefer", "return=minimal")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(payload)))
+                .andExpect(status().isCreated())
+                .andExpect(header().string("Preference-Applied", "return=minimal"))
+                .andExpect(jsonPath("$.roomId").value(roomId.toString()))
+                .andExpect(jsonPath("$.version").value(roomService.getRoom(roomId).getVersion()))
+                .andExpect(jsonPath("$.entity.title").value("Delta note"))
+                .andExpect(jsonPath("$.participants").doesNotExist())
+                .andReturn();
+        assertThat(result.getResponse().getHeader("ETag")).isEqualTo("\"" + roomService.getRoom(roomId).getVersion() + "\"");
+
+        mockMvc.perform(post("/api/rooms/" + roomId + "/pause").param("response", "delta"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.entity.paused").value(true))
+                .andExpect(jsonPath("$.version").value(roomService.getRoom(roomId).getVersion()));
+
+        mockMvc.perform(post("/api/rooms/" + roomId + "/resume"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("Preference-Applied"))
+                .andExpect(jsonPath("$.paused").value(false))
+                .andExpect(jsonPath("$.participants").isArray());
+    }
+
+    @Test
+    void appliesBatchAtomicallyAndResolvesRefsToEarlierOperations() throws Exception {
+        Map<String, Object> batch = Map.of("operations", List.of(
+                Map.of("op", "ADD_ARTIFACT", "ref", "task", "type", "TASK", "title", "Batch task", "content", "Do it", "parentArtifactId", starterPlanId.toString()),
+                Map.of("op", "CREATE_TASK_LANE", "ref", "lane", "name", "Batch lane", "implementorId", implementorId.toString()),
+                Map.of("op", "ASSIGN_TASK", "laneId", "$lane", "taskArtifactId", "$task"),
+                Map.of("op", "ADD_ARTIFACT", "type", "PATCH", "title", "Batch patch", "content", "diff", "parentArtifactId", "$task"),
+                Map.of("op", "UPDATE_TASK_LANE_STATE", "laneId", "$lane", "state", TaskLaneState.COMPLETE.name())));
+
+        var result = mockMvc.perform(post("/api/rooms/" + roomId + "/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(batch)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.version").value(roomService.getRoom(roomId).getVersion()))
+                .andExpect(jsonPath("$.results", hasSize(5)))
+                .andExpect(jsonPath("$.results[0].ref").value("task"))
+                .andExpect(jsonPath("$.results[4].entity.state").value(TaskLaneState.COMPLETE.name()))
+                .andExpect(jsonPath("$.participants").doesNotExist())
+                .andReturn();
+        String taskId = objectMapper.readTree(result.getResponse().getContentAsString()).at("/results/0/entity/id").asText();
+        assertThat(objectMapper.readTree(result.getResponse().getContentAsString()).at("/results/3/entity/parentArtifactId").asText()).isEqualTo(taskId);
+        assertThat(objectMapper.readTree(result.getResponse().getContentAsString()).at("/results/4/entity/taskArtifactIds/0").asText()).isEqualTo(taskId);
+
+        Room before = roomService.getRoom(roomId);
+        Map<String, Object> failing = Map.of("operations", List.of(
+                Map.of("op", "ADD_ARTIFACT", "ref", "note", "title", "Never kept", "content", "Rolled back"),
+                Map.of("op", "POST_MESSAGE", "content", "Never posted"),
+                Map.of("op", "ASSIGN_TASK", "laneId", UUID.randomUUID().toString(), "taskArtifactId", taskId)));
+
+        mockMvc.perform(post("/api/rooms/" + roomId + "/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(failing)))
+                .andExpect(status().isBadRequest());
+
+        Room after = roomService.getRoom(roomId);
+        assertThat(after.getVersion()).isEqualTo(before.getVersion());
+        assertThat(after.getArtifacts()).hasSameSizeAs(before.getArtifacts());
+        assertThat(after.getMessages()).hasSameSizeAs(before.getMessages());
+        assertThat(after.getEvents()).hasSameSizeAs(before.getEvents());
+        assertThat(after.getArtifacts()).noneMatch(artifact -> artifact.getTitle().equals("Never kept"));
+    }
+
+    @Test
+    void rejectsWritesBasedOnAStaleVersionWithPreconditionFailed() throws Exception {
+        long version = roomService.getRoom(roomId).getVersion();
+        String note = objectMapper.writeValueAsString(Map.of("type", "NOTE", "title", "Based on a fresh read", "content", "Accepted"));
+
+        mockMvc.perform(post("/api/rooms/" + roomId + "/artifacts")
+                        .header("If-Match", "\"" + version + "\"")
+                        .header("Prefer", "return=minimal")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(note))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.version").value(roomService.getRoom(roomId).getVersion()));
+
+        long current = roomService.getRoom(roomId).getVersion();
+        String stale = objectMapper.writeValueAsString(Map.of("type", "NOTE", "title", "Based on a stale read", "content", "Rejected"));
+        mockMvc.perform(post("/api/rooms/" + roomId + "/artifacts")
+                        .header("If-Match", "\"" + version + "\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(stale))
+                .andExpect(status().isPreconditionFailed())
+                .andExpect(header().string("ETag", "\"" + current + "\""));
+        mockMvc.perform(post("/api/rooms/" + roomId + "/pause").param("expectedVersion", String.valueOf(version)))
+                .andExpect(status().isPreconditionFailed());
+
+        Room room = roomService.getRoom(roomId);
+        assertThat(room.getVersion()).isEqualTo(current);
+        assertThat(room.isPaused()).isFalse();
+        assertThat(room.getArtifacts()).noneMatch(artifact -> artifact.getTitle().equals("Based on a stale read"));
+    }
+
+    @Test
+    void comparesIfMatchStronglyAndAcceptsAnyVersionInAList() throws Exception {
+        long version = roomService.getRoom(roomId).getVersion();
+
+        mockMvc.perform(post("/api/rooms/" + roomId + "/pause").header("If-Match", "W/\"" + version + "\""))
+                .andExpect(status().isPreconditionFailed())
+                .andExpect(header().string("ETag", "\"" + version + "\""));
+        mockMvc.perform(post("/api/rooms/" + roomId + "/pause").header("If-Match", "W/\"" + version + "\", \"" + (version + 7) + "\""))
+                .andExpect(status().isPreconditionFailed());
+        assertThat(roomService.getRoom(roomId).isPaused()).isFalse();
+
+        mockMvc.perform(post("/api/rooms/" + roomId + "/pause").header("If-Match", "\"" + (version + 7) + "\", \"" + version + "\""))
+                .andExpect(status().isOk());
+        assertThat(roomService.getRoom(roomId).isPaused()).isTrue();
+
+        long paused = roomService.getRoom(roomId).getVersion();
+        mockMvc.perform(post("/api/rooms/" + roomId + "/resume").header("If-Match", "\"" + version + "\", \"" + (version + 7) + "\""))
+                .andExpect(status().isPreconditionFailed())
+                .andExpect(header().string("ETag", "\"" + paused + "\""));
+        mockMvc.perform(post("/api/rooms/" + roomId + "/resume").header("If-Match", "\"" + version + "\"", "\"" + paused + "\""))
+                .andExpect(status().isOk());
+        assertThat(roomService.getRoom(roomId).isPaused()).isFalse();
+    }
+
+    @Test
+    void streamsRoomEventsAndResumesFromLastEventId() throws Exception {
+        long before = roomService.getRoom(roomId).getEvents().size();
+
+        var live = mockMvc.perform(get("/api/rooms/" + roomId + "/events/stream"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        roomService.addMessage(roomId, humanId, "streamed");
+
+        String liveBody = awaitContent(live.getResponse(), "id:" + (before + 1));
+        assertThat(liveBody)
+                .contains("event:room-event")
+                .contains("Message posted by You")
+                .doesNotContain("id:" + before + "\n");
+
+        var resumed = mockMvc.perform(get("/api/rooms/" + roomId + "/events/stream").header("Last-Event-ID", before - 1))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String resumedBody = awaitContent(resumed.getResponse(), "id:" + (before + 1));
+        assertThat(resumedBody).contains("id:" + before + "\n").doesNotContain("id:" + (before - 1) + "\n");
+    }
+
+    @Test
+    void longPollParksUntilANewMessageArrives() throws Exception {
+        long existing = roomService.getRoom(roomId).getMessages().size();
+
+        var parked = mockMvc.perform(get("/api/rooms/" + roomId + "/messages").param("after", String.valueOf(existing)).param("waitMs", "5000"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        assertThatThrownBy(() -> parked.getAsyncResult(100)).isInstanceOf(IllegalStateException.class);
+        roomService.addMessage(roomId, humanId, "worth the wait");
+
+        mockMvc.perform(asyncDispatch(parked))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].seq").value(existing + 1))
+                .andExpect(jsonPath("$[0].content").value("worth the wait"));
+
+        var immediate = mockMvc.perform(get("/api/rooms/" + roomId + "/messages").param("after", String.valueOf(existing - 1)).param("waitMs", "5000"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(immediate))
+                .andExpect(jsonPath("$", hasSize(2)));
+
+        mockMvc.perform(get("/api/rooms/" + roomId + "/messages").param("waitMs", "-1"))
+                .andExpect(status().isBadRequest());
+    }
+
+    /**
+     * Waits until the SSE event containing {@code expected} has been written completely (up to its blank line).
+     */
+    private static String awaitContent(org.springframework.mock.web.MockHttpServletResponse response, String expected) throws Exception {
+        long deadline = System.nanoTime() + java.util.concurrent.TimeUnit.SECONDS.toNanos(5);
+        String body = response.getContentAsString();
+        while (!containsCompleteEvent(body, expected) && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+            body = response.getContentAsString();
+        }
+        assertThat(containsCompleteEvent(body, expected)).as("complete event with %s in %s", expected, body).isTrue();
+        return body;
+    }
+
+    private static boolean containsCompleteEvent(String body, String expected) {
+        int start = body.indexOf(expected);
+        return start >= 0 && body.indexOf("\n\n", start) >= 0;
+    }
 }
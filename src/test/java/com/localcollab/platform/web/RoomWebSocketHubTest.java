@@ -0,0 +1,325 @@
+package com.localcollab.platform.web;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.localcollab.platform.domain.Participant;
+import com.localcollab.platform.domain.ParticipantType;
+import com.localcollab.platform.domain.Room;
+import com.localcollab.platform.service.RoomService;
+import com.localcollab.platform.validation.ProviderIdentityValidator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketExtension;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.security.Principal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class RoomWebSocketHubTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private RoomService roomService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void deliversSubscribedRoomUpdatesUntilUnsubscribed() throws Exception {
+        Room seeded = roomService.findAll().getFirst();
+        UUID humanId = seeded.getParticipants().stream()
+                .filter(p -> p.getType() == ParticipantType.HUMAN)
+                .map(Participant::getId)
+                .findFirst()
+                .orElseThrow();
+
+        BlockingQueue<JsonNode> frames = new LinkedBlockingQueue<>();
+        WebSocketSession session = new StandardWebSocketClient()
+                .execute(new TextWebSocketHandler() {
+                    @Override
+                    protected void handleTextMessage(WebSocketSession session, TextMessage message) throws Exception {
+                        frames.add(objectMapper.readTree(message.getPayload()));
+                    }
+                }, "ws://localhost:" + port + RoomWebSocketConfiguration.PATH)
+                .get(5, TimeUnit.SECONDS);
+        try {
+            session.sendMessage(new TextMessage("{\"type\":\"subscribe\",\"roomId\":\"" + seeded.getId() + "\"}"));
+            JsonNode subscribed = next(frames);
+            assertEquals("subscribed", subscribed.get("type").asText());
+            long messageSeq = subscribed.get("data").get("messageSeq").asLong();
+
+            session.sendMessage(new TextMessage("{\"type\":\"subscribe\",\"roomId\":\"" + UUID.randomUUID() + "\"}"));
+            assertEquals("error", next(frames).get("type").asText());
+
+            roomService.addMessage(seeded.getId(), humanId, "over the socket");
+            List<JsonNode> received = List.of(next(frames), next(frames));
+            JsonNode message = received.stream().filter(f -> f.get("type").asText().equals("message")).findFirst().orElseThrow();
+            assertEquals(messageSeq + 1, message.get("seq").asLong());
+            assertEquals("over the socket", message.get("data").get("content").asText());
+            assertTrue(received.stream().anyMatch(f -> f.get("type").asText().equals("event")));
+
+            session.sendMessage(new TextMessage("{\"type\":\"unsubscribe\",\"roomId\":\"" + seeded.getId() + "\"}"));
+            Thread.sleep(100);
+            roomService.addMessage(seeded.getId(), humanId, "nobody is listening");
+            assertNull(frames.poll(200, TimeUnit.MILLISECONDS), "unsubscribed rooms are not delivered");
+        } finally {
+            session.close();
+        }
+    }
+
+    @Test
+    void coalescesBacklogIntoOneResyncMarkerPerRoom() {
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        OutboundQueue queue = new OutboundQueue(3, roomId -> new TextMessage("resync " + roomId));
+
+        assertEquals(0, queue.offer(first, new TextMessage("1")));
+        assertEquals(0, queue.offer(second, new TextMessage("2")));
+        assertEquals(0, queue.offer(first, new TextMessage("3")));
+        assertEquals(2, queue.offer(first, new TextMessage("4")));
+        assertEquals(0, queue.offer(second, new TextMessage("dropped while resync is pending")));
+
+        List<String> drained = new ArrayList<>();
+        OutboundQueue.Frame frame;
+        while ((frame = queue.poll()) != null) {
+            drained.add(frame.message().getPayload());
+        }
+        assertEquals(List.of("resync " + first, "resync " + second), drained);
+
+        assertEquals(0, queue.offer(second, new TextMessage("after resync")));
+        assertEquals("after resync", queue.poll().message().getPayload());
+    }
+
+    @Test
+    void keepsErrorFramesWhenCoalescing() {
+        UUID room = UUID.randomUUID();
+        OutboundQueue queue = new OutboundQueue(2, roomId -> new TextMessage("resync " + roomId));
+
+        queue.offer(room, new TextMessage("1"));
+        queue.offer(null, new TextMessage("error"));
+        queue.offer(room, new TextMessage("2"));
+        assertEquals(1, queue.offer(room, new TextMessage("3")));
+
+        assertEquals("error", queue.poll().message().getPayload());
+        assertEquals("resync " + room, queue.poll().message().getPayload());
+        assertNull(queue.poll());
+    }
+
+    @Test
+    void stalledConnectionsDoNotDelayOtherSubscribersAndAreClosed() throws Exception {
+        RoomService rooms = new RoomService(new ProviderIdentityValidator());
+        RoomWebSocketHub hub = new RoomWebSocketHub(rooms, objectMapper, 256, Duration.ofMillis(200), new SimpleMeterRegistry());
+        Room room = rooms.findAll().getFirst();
+        UUID humanId = room.getParticipants().getFirst().getId();
+        CountDownLatch unblock = new CountDownLatch(1);
+        try {
+            List<StubSession> stalled = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                StubSession session = new StubSession("stalled-" + i, unblock);
+                stalled.add(session);
+                connect(hub, session, room.getId());
+            }
+            StubSession healthy = new StubSession("healthy", null);
+            connect(hub, healthy, room.getId());
+            assertEquals("subscribed", type(healthy.next()));
+
+            rooms.addMessage(room.getId(), humanId, "still flowing");
+            List<String> received = List.of(type(healthy.next()), type(healthy.next()));
+            assertTrue(received.contains("message"), "healthy connection got " + received);
+
+            Thread.sleep(300);
+            rooms.addMessage(room.getId(), humanId, "past the send time limit");
+            for (StubSession session : stalled) {
+                assertEquals(CloseStatus.SESSION_NOT_RELIABLE, session.closed.get(5, TimeUnit.SECONDS));
+            }
+            assertNull(healthy.closed.getNow(null));
+        } finally {
+            unblock.countDown();
+            hub.close();
+        }
+    }
+
+    @Test
+    void acknowledgesSubscriptionsBeforeAnyFrameOfTheRoom() throws Exception {
+        RoomService rooms = new RoomService(new ProviderIdentityValidator());
+        RoomWebSocketHub hub = new RoomWebSocketHub(rooms, objectMapper, 256, Duration.ofSeconds(10), new SimpleMeterRegistry());
+        Room room = rooms.findAll().getFirst();
+        UUID humanId = room.getParticipants().getFirst().getId();
+        AtomicBoolean writing = new AtomicBoolean(true);
+        Thread writer = Thread.ofVirtual().start(() -> {
+            for (int i = 0; writing.get(); i++) {
+                rooms.addMessage(room.getId(), humanId, "busy " + i);
+            }
+        });
+        try {
+            for (int i = 0; i < 50; i++) {
+                StubSession session = new StubSession("subscriber-" + i, null);
+                connect(hub, session, room.getId());
+                assertEquals("subscribed", type(session.next()));
+            }
+        } finally {
+            writing.set(false);
+            writer.join();
+            hub.close();
+        }
+    }
+
+    private void connect(RoomWebSocketHub hub, StubSession session, UUID roomId) {
+        hub.afterConnectionEstablished(session);
+        hub.handleTextMessage(session, new TextMessage("{\"type\":\"subscribe\",\"roomId\":\"" + roomId + "\"}"));
+    }
+
+    private String type(TextMessage frame) throws Exception {
+        return objectMapper.readTree(frame.getPayload()).get("type").asText();
+    }
+
+    private static JsonNode next(BlockingQueue<JsonNode> frames) throws InterruptedException {
+        JsonNode frame = frames.poll(5, TimeUnit.SECONDS);
+        assertNotNull(frame, "expected a frame");
+        return frame;
+    }
+
+    /**
+     * Session that records what is sent to it; with a latch, every send blocks until it opens, like a client that
+     * stopped reading.
+     */
+    private static final class StubSession implements WebSocketSession {
+
+        private final String id;
+        private final CountDownLatch sendsBlockedUntil;
+        private final BlockingQueue<TextMessage> sent = new LinkedBlockingQueue<>();
+        private final CompletableFuture<CloseStatus> closed = new CompletableFuture<>();
+
+        private StubSession(String id, CountDownLatch sendsBlockedUntil) {
+            this.id = id;
+            this.sendsBlockedUntil = sendsBlockedUntil;
+        }
+
+        TextMessage next() throws InterruptedException {
+            TextMessage frame = sent.poll(5, TimeUnit.SECONDS);
+            assertNotNull(frame, "expected a frame on " + id);
+            return frame;
+        }
+
+        @Override
+        public void sendMessage(WebSocketMessage<?> message) throws IOException {
+            if (sendsBlockedUntil != null) {
+                try {
+                    sendsBlockedUntil.await();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException(ex);
+                }
+            }
+            sent.add((TextMessage) message);
+        }
+
+        @Override
+        public boolean isOpen() {
+            return !closed.isDone();
+        }
+
+        @Override
+        public void close() {
+            close(CloseStatus.NORMAL);
+        }
+
+        @Override
+        public void close(CloseStatus status) {
+            closed.complete(status);
+        }
+
+        @Override
+        public String getId() {
+            return id;
+        }
+
+        @Override
+        public URI getUri() {
+            return null;
+        }
+
+        @Override
+        public HttpHeaders getHandshakeHeaders() {
+            return new HttpHeaders();
+        }
+
+        @Override
+        public Map<String, Object> getAttributes() {
+            return Map.of();
+        }
+
+        @Override
+        public Principal getPrincipal() {
+            return null;
+        }
+
+        @Override
+        public InetSocketAddress getLocalAddress() {
+            return null;
+        }
+
+        @Override
+        public InetSocketAddress getRemoteAddress() {
+            return null;
+        }
+
+        @Override
+        public String getAcceptedProtocol() {
+            return null;
+        }
+
+        @Override
+        public void setTextMessageSizeLimit(int messageSizeLimit) {
+        }
+
+        @Override
+        public int getTextMessageSizeLimit() {
+            return Integer.MAX_VALUE;
+        }
+
+        @Override
+        public void setBinaryMessageSizeLimit(int messageSizeLimit) {
+        }
+
+        @Override
+        public int getBinaryMessageSizeLimit() {
+            return Integer.MAX_VALUE;
+        }
+
+        @Override
+        public List<WebSocketExtension> getExtensions() {
+            return List.of();
+        }
+    }
+}